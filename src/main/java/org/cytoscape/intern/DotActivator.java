@@ -1,22 +1,35 @@
 package org.cytoscape.intern;
 
+import java.io.File;
 import java.util.Properties;
 
+import org.cytoscape.application.CyApplicationConfiguration;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.intern.read.DotPreviewTaskFactory;
 import org.cytoscape.intern.read.DotReaderFactory;
+import org.cytoscape.intern.read.ParseCache;
+import org.cytoscape.intern.read.PlainReaderFactory;
+import org.cytoscape.intern.write.DotBatchExportTaskFactory;
 import org.cytoscape.intern.write.DotWriterFactory;
 import org.cytoscape.io.BasicCyFileFilter;
 import org.cytoscape.io.DataCategory;
+import org.cytoscape.io.read.InputStreamTaskFactory;
 import org.cytoscape.io.util.StreamUtil;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.service.util.AbstractCyActivator;
 import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.model.CyNetworkViewManager;
 import org.cytoscape.view.presentation.RenderingEngineManager;
 import org.cytoscape.view.presentation.customgraphics.CyCustomGraphics2Factory;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualStyleFactory;
 import org.cytoscape.work.ServiceProperties;
+import org.cytoscape.work.TaskFactory;
 import org.osgi.framework.BundleContext;
 
 import org.slf4j.Logger;
@@ -33,6 +46,9 @@ public class DotActivator extends AbstractCyActivator {
 
 	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
 	private static final Logger LOGGER = LoggerFactory.getLogger(DotActivator.class);
+
+	// total size of the parse cache in the app configuration directory
+	private static final long PARSE_CACHE_SIZE = 256L << 20;
 	
 	/**
 	 * Method that runs when class is activated-- will start dot app
@@ -48,6 +64,8 @@ public class DotActivator extends AbstractCyActivator {
 		DataCategory category = DataCategory.NETWORK;
 		StreamUtil streamUtil = getService(context, StreamUtil.class);
 		BasicCyFileFilter fileFilter = new BasicCyFileFilter(extensions, contentTypes, "GraphViz files", category, streamUtil);
+		String[] plainExtensions = {"plain", "plain-ext"};
+		BasicCyFileFilter plainFileFilter = new BasicCyFileFilter(plainExtensions, contentTypes, "GraphViz plain files", category, streamUtil);
 				 
 		// get necessary services for factories
 		RenderingEngineManager rendEngMgr = getService(context, RenderingEngineManager.class);
@@ -57,12 +75,28 @@ public class DotActivator extends AbstractCyActivator {
 		CyRootNetworkManager rootNetMgr = getService(context, CyRootNetworkManager.class);
 		VisualMappingManager vizMapMgr = getService(context, VisualMappingManager.class);
 		VisualStyleFactory vizStyleFact = getService(context, VisualStyleFactory.class);
+		CyNetworkViewManager netViewMgr = getService(context, CyNetworkViewManager.class);
+		CyApplicationConfiguration appConfig = getService(context, CyApplicationConfiguration.class);
+		BendFactory bendFact = getService(context, BendFactory.class);
+		HandleFactory handleFact = getService(context, HandleFactory.class);
+		CyEventHelper eventHelper = getService(context, CyEventHelper.class);
+		VisualMappingFunctionFactory discreteMappingFact = getService(context, VisualMappingFunctionFactory.class, "(mapping.type=discrete)");
 		
 		// create properties for TaskFactories
 		Properties dotWriterFactProps = new Properties();
 		Properties dotReaderFactProps = new Properties();
 		dotWriterFactProps.put(ServiceProperties.ID, "dotWriterFactory");
 		dotReaderFactProps.put(ServiceProperties.ID, "dotReaderFactory");
+		Properties plainReaderFactProps = new Properties();
+		plainReaderFactProps.put(ServiceProperties.ID, "plainReaderFactory");
+		Properties batchExportFactProps = new Properties();
+		batchExportFactProps.put(ServiceProperties.ID, "dotBatchExportTaskFactory");
+		batchExportFactProps.put(ServiceProperties.PREFERRED_MENU, "File.Export");
+		batchExportFactProps.put(ServiceProperties.TITLE, "Network Views as GraphViz Files...");
+		Properties previewFactProps = new Properties();
+		previewFactProps.put(ServiceProperties.ID, "dotPreviewTaskFactory");
+		previewFactProps.put(ServiceProperties.PREFERRED_MENU, "File.Import");
+		previewFactProps.put(ServiceProperties.TITLE, "Preview GraphViz File...");
 
 		// initialize the GradientListener for later use
 		LOGGER.info("Constructing Gradient Listener...");
@@ -72,11 +106,27 @@ public class DotActivator extends AbstractCyActivator {
 		LOGGER.info("Constructing Writer Factory...");
 		DotWriterFactory dotWriteFact = new DotWriterFactory(fileFilter, vizMapMgr);
 		
+		// initialize the ParseCache that lets the reader skip parsing files it has read before
+		File parseCacheDir = new File(appConfig.getAppConfigurationDirectoryLocation(DotActivator.class), "parse-cache");
+		ParseCache parseCache = new ParseCache(parseCacheDir, PARSE_CACHE_SIZE);
+
 		// initialize the DotReaderFactory for later use
 		LOGGER.info("Constructing Reader Factory...");
 		DotReaderFactory dotReadFact = new DotReaderFactory(fileFilter, netViewFact,
-				netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact, gradientListener, rendEngMgr);
+				netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact, gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact, parseCache);
+		
+		// initialize the PlainReaderFactory for later use
+		LOGGER.info("Constructing Plain Reader Factory...");
+		PlainReaderFactory plainReadFact = new PlainReaderFactory(plainFileFilter, netViewFact,
+				netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact, gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact);
+		
+		// initialize the DotPreviewTaskFactory for later use
+		LOGGER.info("Constructing Preview Factory...");
+		DotPreviewTaskFactory previewFact = new DotPreviewTaskFactory(dotReadFact, netMgr, netViewMgr);
 		
+		// initialize the DotBatchExportTaskFactory for later use
+		LOGGER.info("Constructing Batch Export Factory...");
+		DotBatchExportTaskFactory batchExportFact = new DotBatchExportTaskFactory(netViewMgr, vizMapMgr);
 		
 		LOGGER.info("Registering Writer Factory as OSGI service...");
 		//register DotWriterFactory as an OSGI service
@@ -86,6 +136,18 @@ public class DotActivator extends AbstractCyActivator {
 		//register DotReaderFactory as an OSGI service
 		registerAllServices(context, dotReadFact, dotReaderFactProps);
 		
+		LOGGER.info("Registering Plain Reader Factory as OSGI service...");
+		//register PlainReaderFactory as a reader only, the DotReaderFactory applies its VisualStyles
+		registerService(context, plainReadFact, InputStreamTaskFactory.class, plainReaderFactProps);
+		
+		LOGGER.info("Registering Batch Export Factory as OSGI service...");
+		//register DotBatchExportTaskFactory as a menu TaskFactory
+		registerService(context, batchExportFact, TaskFactory.class, batchExportFactProps);
+		
+		LOGGER.info("Registering Preview Factory as OSGI service...");
+		//register DotPreviewTaskFactory as a menu TaskFactory
+		registerService(context, previewFact, TaskFactory.class, previewFactProps);
+		
 		LOGGER.info("Registering GradientListener as OSGI service listener...");
 		registerServiceListener(context, gradientListener, "addCustomGraphicsFactory", "removeCustomGraphicsFactory", CyCustomGraphics2Factory.class);
 
@@ -0,0 +1,120 @@
+package org.cytoscape.intern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility class for the comment header that maps compact node IDs back to
+ * node names. The header is written before the graph, so GraphViz ignores it:
+ *
+ * // dotapp-names
+ * // n_0 first name
+ * // n_1 second name
+ *
+ * Line breaks and backslashes in names are escaped so that each name stays on
+ * one line
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class NodeNameHeader {
+
+	// first line of the header
+	public static final String MARKER = "// dotapp-names";
+
+	// start of each line mapping an ID to a name
+	private static final String LINE_START = "// ";
+
+	/**
+	 * Returns the header line mapping a node ID to its name
+	 *
+	 * @param nodeID compact .dot ID of the node
+	 * @param name name of the node, may be null
+	 * @return header line, ending with a line break
+	 */
+	public static String formatLine(String nodeID, String name) {
+		StringBuilder line = new StringBuilder(LINE_START.length() + nodeID.length() + 32);
+		line.append(LINE_START);
+		line.append(nodeID);
+		if (name != null) {
+			line.append(' ');
+			for (int i = 0; i < name.length(); i++) {
+				char c = name.charAt(i);
+				switch (c) {
+				case '\\':
+					line.append("\\\\");
+					break;
+				case '\n':
+					line.append("\\n");
+					break;
+				case '\r':
+					line.append("\\r");
+					break;
+				default:
+					line.append(c);
+					break;
+				}
+			}
+		}
+		line.append('\n');
+		return line.toString();
+	}
+
+	/**
+	 * Reads the header from the start of input, if there is one. The header
+	 * lines are consumed, input is left at the first line after them
+	 *
+	 * @param input BufferedReader at the start of a .dot file
+	 * @return Map from node ID to node name, or null if input has no header
+	 * @throws IOException if input cannot be read
+	 */
+	public static Map<String, String> read(BufferedReader input) throws IOException {
+		if (!startsWith(input, MARKER)) {
+			return null;
+		}
+		input.readLine();
+
+		Map<String, String> names = new HashMap<String, String>();
+		while (startsWith(input, LINE_START)) {
+			String line = input.readLine();
+			int nameStart = line.indexOf(' ', LINE_START.length());
+			if (nameStart >= 0) {
+				names.put(line.substring(LINE_START.length(), nameStart), unescape(line, nameStart + 1));
+			}
+		}
+		return names;
+	}
+
+	/*
+	 * Returns whether the next characters of input are prefix, without
+	 * consuming them
+	 */
+	private static boolean startsWith(BufferedReader input, String prefix) throws IOException {
+		input.mark(prefix.length());
+		for (int i = 0; i < prefix.length(); i++) {
+			if (input.read() != prefix.charAt(i)) {
+				input.reset();
+				return false;
+			}
+		}
+		input.reset();
+		return true;
+	}
+
+	private static String unescape(String line, int start) {
+		StringBuilder name = new StringBuilder(line.length() - start);
+		for (int i = start; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '\\' && i + 1 < line.length()) {
+				char escaped = line.charAt(++i);
+				name.append((escaped == 'n') ? '\n' : (escaped == 'r') ? '\r' : escaped);
+			} else {
+				name.append(c);
+			}
+		}
+		return name.toString();
+	}
+}
@@ -0,0 +1,230 @@
+package org.cytoscape.intern.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.cytoscape.intern.NodeNameHeader;
+
+/**
+ * Utility class that recognizes .dot files by their first bytes, for inputs
+ * whose names do not end in .gv or .dot. At most SNIFF_LIMIT bytes are read
+ * through mark/reset, so the stream is left where it was. A UTF-8 byte order
+ * mark, white space and comments are skipped, then the input must start with
+ * "graph" or "digraph", optionally after "strict". The "graph scale width
+ * height" line that starts GraphViz plain output is told apart from them.
+ * The node name header of an export with compact IDs can be longer than
+ * SNIFF_LIMIT, a stream cut off inside it is taken for .dot
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotFormatSniffer {
+
+	// most bytes read from the stream
+	public static final int SNIFF_LIMIT = 4096;
+
+	// UTF-8 encoding of U+FEFF
+	private static final int[] UTF8_BOM = {0xEF, 0xBB, 0xBF};
+
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+	// first line of the node name header written before the graph
+	private static final byte[] NAME_HEADER_MARKER = NodeNameHeader.MARKER.getBytes(US_ASCII);
+
+	private static final String STRICT = "strict";
+	private static final String GRAPH = "graph";
+	private static final String DIGRAPH = "digraph";
+
+	// first line of plain and plain-ext output
+	private static final String PLAIN_HEADER = "graph( +[-+0-9.eE]+){3} *\r?";
+
+	/**
+	 * Returns the extension of a file name, without the dot
+	 *
+	 * @param inputName name of the input
+	 * @return extension, or "" if the name has none
+	 */
+	public static String getExtension(String inputName) {
+		int dot = inputName.lastIndexOf('.');
+		int separator = Math.max(inputName.lastIndexOf('/'), inputName.lastIndexOf('\\'));
+		if (dot <= separator + 1 || dot == inputName.length() - 1) {
+			return "";
+		}
+		return inputName.substring(dot + 1);
+	}
+
+	/**
+	 * Returns whether the stream starts like a .dot file. The stream is
+	 * reset to where it was, streams that cannot be reset are not read
+	 *
+	 * @param inStream stream being checked
+	 * @return true if the first bytes are a .dot graph header
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static boolean looksLikeDot(InputStream inStream) throws IOException {
+		byte[] head = readHead(inStream);
+		return head != null && !isPlainHeader(head) && isDotHeader(head, head.length);
+	}
+
+	/**
+	 * Returns whether the stream starts like GraphViz plain or plain-ext
+	 * output. The stream is reset to where it was, streams that cannot be
+	 * reset are not read
+	 *
+	 * @param inStream stream being checked
+	 * @return true if the first line is a plain graph statement
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static boolean looksLikePlain(InputStream inStream) throws IOException {
+		byte[] head = readHead(inStream);
+		return head != null && isPlainHeader(head);
+	}
+
+	/*
+	 * Returns at most SNIFF_LIMIT bytes from the start of the stream, or null
+	 * if it cannot be reset
+	 */
+	private static byte[] readHead(InputStream inStream) throws IOException {
+		if (!inStream.markSupported()) {
+			return null;
+		}
+		byte[] head = new byte[SNIFF_LIMIT];
+		int length = 0;
+		inStream.mark(SNIFF_LIMIT);
+		try {
+			int read;
+			while (length < head.length && (read = inStream.read(head, length, head.length - length)) != -1) {
+				length += read;
+			}
+		} finally {
+			inStream.reset();
+		}
+		return Arrays.copyOf(head, length);
+	}
+
+	/*
+	 * Checks whether the first line of head is "graph scale width height"
+	 */
+	private static boolean isPlainHeader(byte[] head) {
+		int lineEnd = 0;
+		while (lineEnd < head.length && head[lineEnd] != '\n') {
+			lineEnd++;
+		}
+		// the whole line has to be there
+		if (lineEnd == head.length) {
+			return false;
+		}
+		return new String(head, 0, lineEnd, US_ASCII).matches(PLAIN_HEADER);
+	}
+
+	/*
+	 * Checks the first length bytes of head
+	 */
+	private static boolean isDotHeader(byte[] head, int length) {
+		int i = 0;
+		if (length >= UTF8_BOM.length && (head[0] & 0xFF) == UTF8_BOM[0]
+				&& (head[1] & 0xFF) == UTF8_BOM[1] && (head[2] & 0xFF) == UTF8_BOM[2]) {
+			i = UTF8_BOM.length;
+		}
+		if (startsWith(head, i, length, NAME_HEADER_MARKER)) {
+			i = skipLineComments(head, i, length);
+			// the writer always follows the header with the graph
+			if (i == length) {
+				return length == SNIFF_LIMIT;
+			}
+		}
+		i = skipSpaceAndComments(head, i, length);
+		int wordEnd = endOfWord(head, i, length);
+		if (matches(head, i, wordEnd, STRICT)) {
+			i = skipSpaceAndComments(head, wordEnd, length);
+			wordEnd = endOfWord(head, i, length);
+		}
+		// the keyword has to be followed by something, the limit may have cut it
+		return wordEnd < length && (matches(head, i, wordEnd, GRAPH) || matches(head, i, wordEnd, DIGRAPH));
+	}
+
+	/*
+	 * Returns the index of the first byte at or after i that is not white
+	 * space or part of a comment
+	 */
+	private static int skipSpaceAndComments(byte[] head, int i, int length) {
+		boolean lineStart = true;
+		while (i < length) {
+			byte c = head[i];
+			if (c == '\n' || c == '\r') {
+				lineStart = true;
+				i++;
+			} else if (c == ' ' || c == '\t' || c == '\f') {
+				i++;
+			} else if (c == '/' && i + 1 < length && head[i + 1] == '/' || c == '#' && lineStart) {
+				while (i < length && head[i] != '\n' && head[i] != '\r') {
+					i++;
+				}
+			} else if (c == '/' && i + 1 < length && head[i + 1] == '*') {
+				i += 2;
+				while (i + 1 < length && !(head[i] == '*' && head[i + 1] == '/')) {
+					i++;
+				}
+				i += 2;
+				lineStart = false;
+			} else {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	/*
+	 * Returns the index of the first line at or after i that does not start
+	 * with "//", or length if the lines run past it
+	 */
+	private static int skipLineComments(byte[] head, int i, int length) {
+		while (i < length && head[i] == '/') {
+			// a '/' right before the limit may start a comment
+			if (i + 1 < length && head[i + 1] != '/') {
+				return i;
+			}
+			while (i < length && head[i] != '\n') {
+				i++;
+			}
+			if (i < length) {
+				i++;
+			}
+		}
+		return i;
+	}
+
+	private static boolean startsWith(byte[] head, int start, int length, byte[] prefix) {
+		if (length - start < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (head[start + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int endOfWord(byte[] head, int i, int length) {
+		while (i < length && (Character.isLetterOrDigit(head[i]) || head[i] == '_')) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean matches(byte[] head, int start, int end, String keyword) {
+		if (end - start != keyword.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); i++) {
+			if (Character.toLowerCase((char) head[start + i]) != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
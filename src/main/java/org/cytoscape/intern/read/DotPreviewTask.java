@@ -0,0 +1,525 @@
+package org.cytoscape.intern.read;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.cytoscape.intern.NodeNameHeader;
+import org.cytoscape.intern.Notifier;
+import org.cytoscape.intern.Notifier.MessageType;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.ListSingleSelection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task that scans a GraphViz file with a DotScanner and reports what an
+ * import of it would hold: its graphs and whether they are directed, its
+ * node and edge counts, the attributes it uses, whether it has positions and
+ * an estimate of the memory an import needs. Optionally a small preview
+ * network is imported, made of the first elements of the file or of a
+ * random sample of its edges, so that a file can be judged before it is
+ * loaded in full
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotPreviewTask extends AbstractTask {
+
+	// preview modes
+	static final String STATISTICS_ONLY = "Statistics only";
+	static final String FIRST_ELEMENTS = "Import first elements";
+	static final String EDGE_SAMPLE = "Import random edge sample";
+
+	// rough heap cost of an imported element: JPGD objects, table rows and views
+	private static final long BYTES_PER_NODE = 1500;
+	private static final long BYTES_PER_EDGE = 1000;
+	private static final long BYTES_PER_ATTRIBUTE = 150;
+
+	// number of attributes listed in the report
+	private static final int MAX_REPORTED_ATTRIBUTES = 20;
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(DotPreviewTask.class);
+
+	// creates the DotReaderTask importing the preview network
+	private DotReaderFactory readerFactory;
+
+	// networks and views of the preview are registered with these
+	private CyNetworkManager netMgr;
+	private CyNetworkViewManager netViewMgr;
+
+	/*
+	 * Tunable to prompt user for the file being previewed
+	 */
+	@Tunable(description = "GraphViz file to preview", params = "input=true;fileCategory=network")
+	public File dotFile;
+
+	/*
+	 * Tunable to prompt user whether a preview network is imported and which
+	 * elements it holds
+	 */
+	@Tunable(description = "Preview")
+	public ListSingleSelection<String> previewModes = new ListSingleSelection<String>(
+			STATISTICS_ONLY, FIRST_ELEMENTS, EDGE_SAMPLE);
+
+	// Tunable to prompt user for the size of the preview network
+	@Tunable(description = "Number of elements or edges in preview network")
+	public int sampleSize = 1000;
+
+	/**
+	 * Constructs a DotPreviewTask
+	 *
+	 * @param readerFactory DotReaderFactory creating the task that imports the preview network
+	 * @param netMgr CyNetworkManager the preview network is added to
+	 * @param netViewMgr CyNetworkViewManager the view of the preview network is added to
+	 */
+	public DotPreviewTask(DotReaderFactory readerFactory, CyNetworkManager netMgr, CyNetworkViewManager netViewMgr) {
+		this.readerFactory = readerFactory;
+		this.netMgr = netMgr;
+		this.netViewMgr = netViewMgr;
+	}
+
+	/**
+	 * Scans the file, reports its statistics and imports the preview network
+	 * if one was asked for
+	 *
+	 * @param monitor TaskMonitor the scan is reported to
+	 */
+	@Override
+	public void run(TaskMonitor monitor) throws IOException {
+		if (dotFile == null) {
+			throw new IllegalArgumentException("No file chosen");
+		}
+		String mode = previewModes.getSelectedValue();
+		monitor.setTitle("Previewing " + dotFile.getName());
+		monitor.setStatusMessage("Scanning file...");
+		monitor.setProgress(-1);
+
+		Statistics statistics = new Statistics(mode, Math.max(0, sampleSize));
+		BufferedReader input = openFile();
+		try {
+			statistics.nodeNames = NodeNameHeader.read(input);
+			DotScanner.scan(input, statistics);
+		} finally {
+			input.close();
+		}
+		if (cancelled) {
+			return;
+		}
+
+		String report = statistics.report(dotFile.getName());
+		LOGGER.info(report);
+		monitor.setStatusMessage(String.format("%d nodes, %d edges", statistics.nodes.size(), statistics.edgeCount));
+		Notifier.showMessage(report, MessageType.INFO);
+
+		if (mode.equals(STATISTICS_ONLY)) {
+			return;
+		}
+		if (mode.equals(EDGE_SAMPLE)) {
+			// node statements of the sampled edges' ends are collected in a second pass
+			monitor.setStatusMessage("Collecting nodes of sampled edges...");
+			input = openFile();
+			try {
+				NodeCollector collector = new NodeCollector(statistics);
+				NodeNameHeader.read(input);
+				DotScanner.scan(input, collector);
+			} finally {
+				input.close();
+			}
+		}
+
+		String preview = statistics.previewText();
+		LOGGER.info(String.format("Importing preview network of %d characters", preview.length()));
+		DotReaderTask reader = readerFactory.createReaderTask(
+				new ByteArrayInputStream(preview.getBytes()), dotFile.getName() + " (preview)");
+		insertTasksAfterCurrentTask(reader, new RegisterTask(reader));
+	}
+
+	private BufferedReader openFile() throws IOException {
+		return new BufferedReader(new InputStreamReader(new FileInputStream(dotFile)), 1 << 16);
+	}
+
+	/**
+	 * Collects the statistics of a scanned file and the statements of its
+	 * preview network
+	 */
+	class Statistics implements DotScanner.Listener {
+
+		private String mode;
+		private int sampleSize;
+
+		// name header of the file, copied to the preview
+		Map<String, String> nodeNames;
+
+		// counts
+		private int graphCount = 0;
+		private int directedCount = 0;
+		private int nodeStatementCount = 0;
+		private long edgeCount = 0;
+		private long attributeCount = 0;
+		private long positionCount = 0;
+		private NodeIDSet nodes = new NodeIDSet();
+		private Map<String, Integer> attributeUses = new HashMap<String, Integer>();
+
+		// graphs of the preview, in file order
+		private List<PreviewGraph> graphs = new ArrayList<PreviewGraph>();
+		private PreviewGraph currentGraph;
+
+		// elements left for FIRST_ELEMENTS
+		private long budget;
+
+		// reservoir of edge statements for EDGE_SAMPLE
+		private List<SampledEdge> sample = new ArrayList<SampledEdge>();
+		private long edgeStatementCount = 0;
+		private Random random = new Random();
+
+		Statistics(String mode, int sampleSize) {
+			this.mode = mode;
+			this.sampleSize = sampleSize;
+			this.budget = sampleSize;
+		}
+
+		@Override
+		public void graphStarted(String header, boolean directed) {
+			graphCount++;
+			if (directed) {
+				directedCount++;
+			}
+			currentGraph = new PreviewGraph(header);
+			if (!mode.equals(STATISTICS_ONLY)) {
+				graphs.add(currentGraph);
+			}
+		}
+
+		@Override
+		public void statement(DotScanner.Statement statement) {
+			if (cancelled) {
+				throw new IllegalStateException("Preview was cancelled");
+			}
+			for (String id : statement.getNodeIDs()) {
+				nodes.add(id);
+			}
+			edgeCount += statement.getEdgeCount();
+			if (statement.getKind() == DotScanner.NODE_STATEMENT) {
+				nodeStatementCount++;
+			}
+			for (String name : statement.getAttributeNames()) {
+				attributeCount++;
+				Integer uses = attributeUses.get(name);
+				attributeUses.put(name, (uses == null) ? 1 : uses + 1);
+				if (name.equals("pos")) {
+					positionCount++;
+				}
+			}
+
+			switch (statement.getKind()) {
+			case DotScanner.DEFAULTS_STATEMENT:
+			case DotScanner.GRAPH_ATTRIBUTE_STATEMENT:
+				currentGraph.settings.add(statement.getText());
+				break;
+			case DotScanner.EDGE_STATEMENT:
+				if (mode.equals(FIRST_ELEMENTS)) {
+					addFirstElement(statement, statement.getEdgeCount());
+				} else if (mode.equals(EDGE_SAMPLE)) {
+					sampleEdge(statement);
+				}
+				break;
+			default:
+				if (mode.equals(FIRST_ELEMENTS)) {
+					addFirstElement(statement, Math.max(1, statement.getNodeIDs().size()));
+				}
+				break;
+			}
+		}
+
+		@Override
+		public void graphEnded() {
+			currentGraph = null;
+		}
+
+		private void addFirstElement(DotScanner.Statement statement, int elements) {
+			if (budget > 0) {
+				currentGraph.elements.add(statement.getText());
+				budget -= elements;
+			}
+		}
+
+		/*
+		 * Keeps each edge statement with the same probability, reservoir sampling
+		 */
+		private void sampleEdge(DotScanner.Statement statement) {
+			edgeStatementCount++;
+			SampledEdge edge = new SampledEdge(currentGraph, edgeStatementCount, statement);
+			if (sample.size() < sampleSize) {
+				sample.add(edge);
+				return;
+			}
+			long slot = (long) (random.nextDouble() * edgeStatementCount);
+			if (slot < sampleSize) {
+				sample.set((int) slot, edge);
+			}
+		}
+
+		/*
+		 * Returns the text of the preview network, each graph with its settings,
+		 * then its node statements, then its edge statements
+		 */
+		String previewText() {
+			if (mode.equals(EDGE_SAMPLE)) {
+				Collections.sort(sample, new Comparator<SampledEdge>() {
+					@Override
+					public int compare(SampledEdge first, SampledEdge second) {
+						return (first.position < second.position) ? -1 : (first.position == second.position) ? 0 : 1;
+					}
+				});
+				for (SampledEdge edge : sample) {
+					edge.graph.elements.add(edge.text);
+				}
+			}
+
+			StringBuilder text = new StringBuilder();
+			if (nodeNames != null) {
+				text.append(NodeNameHeader.MARKER).append('\n');
+				for (Map.Entry<String, String> name : nodeNames.entrySet()) {
+					text.append(NodeNameHeader.formatLine(name.getKey(), name.getValue()));
+				}
+			}
+			for (PreviewGraph graph : graphs) {
+				if (graph.elements.isEmpty()) {
+					continue;
+				}
+				text.append(graph.header).append('\n');
+				for (String setting : graph.settings) {
+					text.append(setting).append('\n');
+				}
+				for (String node : graph.nodes) {
+					text.append(node).append('\n');
+				}
+				for (String element : graph.elements) {
+					text.append(element).append('\n');
+				}
+				text.append("}\n");
+			}
+			return text.toString();
+		}
+
+		/*
+		 * Returns the report shown to the user
+		 */
+		String report(String fileName) {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%s%n", fileName));
+			report.append(String.format("Graphs: %d (%d directed, %d undirected)%n",
+					graphCount, directedCount, graphCount - directedCount));
+			report.append(String.format("Nodes: %d (%d node statements)%n", nodes.size(), nodeStatementCount));
+			report.append(String.format("Edges: %d%n", edgeCount));
+			report.append(String.format("Positions: %s%n",
+					(positionCount > 0) ? String.format("yes, on %d statements", positionCount) : "no"));
+
+			List<Map.Entry<String, Integer>> uses = new ArrayList<Map.Entry<String, Integer>>(attributeUses.entrySet());
+			Collections.sort(uses, new Comparator<Map.Entry<String, Integer>>() {
+				@Override
+				public int compare(Map.Entry<String, Integer> first, Map.Entry<String, Integer> second) {
+					return second.getValue().compareTo(first.getValue());
+				}
+			});
+			report.append(String.format("Attributes: %d distinct%n", uses.size()));
+			for (int i = 0; i < uses.size() && i < MAX_REPORTED_ATTRIBUTES; i++) {
+				report.append(String.format("    %s: %d%n", uses.get(i).getKey(), uses.get(i).getValue()));
+			}
+
+			long bytes = nodes.size() * BYTES_PER_NODE + edgeCount * BYTES_PER_EDGE
+					+ attributeCount * BYTES_PER_ATTRIBUTE;
+			report.append(String.format("Estimated memory for import: %.1f MB", bytes / (double) (1 << 20)));
+			return report.toString();
+		}
+	}
+
+	/**
+	 * Second pass of EDGE_SAMPLE, collects the node statements of the nodes
+	 * at the ends of the sampled edges
+	 */
+	class NodeCollector implements DotScanner.Listener {
+
+		private Statistics statistics;
+		private Set<String> ends = new HashSet<String>();
+		private int graphIndex = -1;
+
+		NodeCollector(Statistics statistics) {
+			this.statistics = statistics;
+			for (SampledEdge edge : statistics.sample) {
+				ends.addAll(edge.nodeIDs);
+			}
+		}
+
+		@Override
+		public void graphStarted(String header, boolean directed) {
+			graphIndex++;
+		}
+
+		@Override
+		public void statement(DotScanner.Statement statement) {
+			if (cancelled) {
+				throw new IllegalStateException("Preview was cancelled");
+			}
+			if (statement.getKind() != DotScanner.NODE_STATEMENT) {
+				return;
+			}
+			for (String id : statement.getNodeIDs()) {
+				if (ends.contains(id)) {
+					statistics.graphs.get(graphIndex).nodes.add(statement.getText());
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void graphEnded() {
+			// nothing to do after a graph
+		}
+	}
+
+	/**
+	 * Statements of one graph of the preview network
+	 */
+	private static class PreviewGraph {
+
+		private String header;
+
+		// default and graph attribute statements, always kept
+		private List<String> settings = new ArrayList<String>();
+
+		// node statements of sampled edges' ends
+		private List<String> nodes = new ArrayList<String>();
+
+		// node, edge and subgraph statements of the preview
+		private List<String> elements = new ArrayList<String>();
+
+		PreviewGraph(String header) {
+			this.header = header;
+		}
+	}
+
+	/**
+	 * Edge statement in the reservoir of EDGE_SAMPLE
+	 */
+	private static class SampledEdge {
+
+		private PreviewGraph graph;
+
+		// position among the edge statements of the file
+		private long position;
+		private String text;
+		private List<String> nodeIDs;
+
+		SampledEdge(PreviewGraph graph, long position, DotScanner.Statement statement) {
+			this.graph = graph;
+			this.position = position;
+			this.text = statement.getText();
+			this.nodeIDs = statement.getNodeIDs();
+		}
+	}
+
+	/**
+	 * Set of 64 bit hashes of node IDs, counts distinct nodes without keeping
+	 * their IDs
+	 */
+	private static class NodeIDSet {
+
+		private long[] hashes = new long[1 << 10];
+		private boolean[] used = new boolean[1 << 10];
+		private int size = 0;
+
+		void add(String id) {
+			if (size * 2 >= hashes.length) {
+				grow();
+			}
+			long hash = 0xcbf29ce484222325L;
+			for (int i = 0; i < id.length(); i++) {
+				hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+			}
+			if (insert(hashes, used, hash)) {
+				size++;
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		private void grow() {
+			long[] newHashes = new long[hashes.length * 2];
+			boolean[] newUsed = new boolean[hashes.length * 2];
+			for (int i = 0; i < hashes.length; i++) {
+				if (used[i]) {
+					insert(newHashes, newUsed, hashes[i]);
+				}
+			}
+			hashes = newHashes;
+			used = newUsed;
+		}
+
+		private static boolean insert(long[] hashes, boolean[] used, long hash) {
+			int mask = hashes.length - 1;
+			long mixed = hash * 0x9E3779B97F4A7C15L;
+			int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+			while (used[slot]) {
+				if (hashes[slot] == hash) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			hashes[slot] = hash;
+			used[slot] = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Adds the networks of the preview import and their views to Cytoscape
+	 */
+	private class RegisterTask extends AbstractTask {
+
+		private DotReaderTask reader;
+
+		RegisterTask(DotReaderTask reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public void run(TaskMonitor monitor) {
+			CyNetwork[] networks = reader.getNetworks();
+			if (networks == null) {
+				return;
+			}
+			for (CyNetwork network : networks) {
+				netMgr.addNetwork(network);
+				CyNetworkView view = reader.buildCyNetworkView(network);
+				if (view != null) {
+					netViewMgr.addNetworkView(view);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package org.cytoscape.intern.read;
+
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.work.AbstractTaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task factory that creates the task previewing a GraphViz file before it
+ * is imported
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotPreviewTaskFactory extends AbstractTaskFactory {
+
+	// creates the readers importing preview networks
+	private DotReaderFactory readerFactory;
+
+	// preview networks and their views are added to these
+	private CyNetworkManager netMgr;
+	private CyNetworkViewManager netViewMgr;
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(DotPreviewTaskFactory.class);
+
+	/**
+	 * Constructs a DotPreviewTaskFactory object
+	 *
+	 * @param readerFactory DotReaderFactory creating the readers of preview networks
+	 * @param netMgr CyNetworkManager preview networks are added to
+	 * @param netViewMgr CyNetworkViewManager views of preview networks are added to
+	 */
+	public DotPreviewTaskFactory(DotReaderFactory readerFactory, CyNetworkManager netMgr, CyNetworkViewManager netViewMgr) {
+		this.readerFactory = readerFactory;
+		this.netMgr = netMgr;
+		this.netViewMgr = netViewMgr;
+	}
+
+	/**
+	 * Returns a TaskIterator containing the preview task
+	 *
+	 * @return TaskIterator with one DotPreviewTask
+	 */
+	@Override
+	public TaskIterator createTaskIterator() {
+		LOGGER.trace("createTaskIterator called");
+		return new TaskIterator(new DotPreviewTask(readerFactory, netMgr, netViewMgr));
+	}
+}
@@ -1,9 +1,11 @@
 package org.cytoscape.intern.read;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 import javax.swing.SwingUtilities;
 
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.intern.GradientListener;
 import org.cytoscape.io.CyFileFilter;
 import org.cytoscape.io.read.InputStreamTaskFactory;
@@ -17,6 +19,9 @@ import org.cytoscape.view.model.CyNetworkViewFactory;
 import org.cytoscape.view.model.events.NetworkViewAddedEvent;
 import org.cytoscape.view.model.events.NetworkViewAddedListener;
 import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualStyle;
 import org.cytoscape.view.vizmap.VisualStyleFactory;
@@ -39,18 +44,25 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 	// For file export
 	private CyFileFilter fileFilter;
 	
-	// For generating views
-	private CyNetworkViewFactory netViewFact;
+	// For generating views, also used by subclasses creating their own tasks
+	protected CyNetworkViewFactory netViewFact;
 	
 	// For generating networks
-	private CyNetworkFactory netFact;
+	protected CyNetworkFactory netFact;
 	
-	private CyNetworkManager netMgr;
-	private CyRootNetworkManager rootNetMgr;
-	private VisualMappingManager vizMapMgr;
-	private VisualStyleFactory vizStyleFact;
-	private GradientListener gradientListener;
-	private RenderingEngineManager rendEngMgr;
+	protected CyNetworkManager netMgr;
+	protected CyRootNetworkManager rootNetMgr;
+	protected VisualMappingManager vizMapMgr;
+	protected VisualStyleFactory vizStyleFact;
+	protected GradientListener gradientListener;
+	protected RenderingEngineManager rendEngMgr;
+	protected BendFactory bendFact;
+	protected HandleFactory handleFact;
+	protected CyEventHelper eventHelper;
+	protected VisualMappingFunctionFactory discreteMappingFact;
+
+	// Cache of parsed files shared by all imports
+	private ParseCache parseCache;
 	
 	/**
 	 * Sets the DotReaderFactory with associate fileFilter
@@ -65,10 +77,17 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 	 * @param gradientListener GradientListener needed for DotReaderTask
 	 * @param rendEngMgr RenderingEngineManager that contains the default
 	 * VisualLexicon needed for gradient support
+	 * @param bendFact BendFactory needed for DotReaderTask
+	 * @param handleFact HandleFactory needed for DotReaderTask
+	 * @param eventHelper CyEventHelper needed for DotReaderTask
+	 * @param discreteMappingFact discrete VisualMappingFunctionFactory needed for DotReaderTask
+	 * @param parseCache ParseCache needed for DotReaderTask, null to always parse
 	 */
 	public DotReaderFactory(CyFileFilter fileFilter, CyNetworkViewFactory netViewFact,
 			CyNetworkFactory netFact, CyNetworkManager netMgr, CyRootNetworkManager rootNetMgr,
-			VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr) {
+			VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr,
+			BendFactory bendFact, HandleFactory handleFact, CyEventHelper eventHelper,
+			VisualMappingFunctionFactory discreteMappingFact, ParseCache parseCache) {
 
 		this.fileFilter = fileFilter;
 		this.netViewFact = netViewFact;
@@ -79,6 +98,11 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 		this.vizStyleFact = vizStyleFact;
 		this.gradientListener = gradientListener;
 		this.rendEngMgr = rendEngMgr;
+		this.bendFact = bendFact;
+		this.handleFact = handleFact;
+		this.eventHelper = eventHelper;
+		this.discreteMappingFact = discreteMappingFact;
+		this.parseCache = parseCache;
 	}	
 	
 	private boolean isDotNetwork(CyNetwork network) {
@@ -98,8 +122,21 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 	public TaskIterator createTaskIterator(InputStream inStream, String inputName) {
 		LOGGER.trace("Create TaskIterator with params");
 		
-		return new TaskIterator(new DotReaderTask(inStream, netViewFact,
-				netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact, gradientListener, rendEngMgr));
+		return new TaskIterator(createReaderTask(inStream, inputName));
+	}
+
+	/**
+	 * Returns a DotReaderTask reading from an input stream, eg. to import a
+	 * preview of a file
+	 * 
+	 * @param inStream The InputStream to be read
+	 * @param inputName The name of the input
+	 * 
+	 * @return DotReaderTask reading inStream
+	 */
+	public DotReaderTask createReaderTask(InputStream inStream, String inputName) {
+		return new DotReaderTask(inStream, netViewFact, netFact, netMgr, rootNetMgr, vizMapMgr,
+				vizStyleFact, gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact, parseCache, inputName);
 	}
 	
 	/**
@@ -147,6 +184,8 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 
 	/**
 	 * Returns true if the factory is ready to produce a TaskIterator and false otherwise.
+	 * Inputs named *.gv or *.dot are accepted, others if their first bytes are a
+	 * GraphViz graph header
 	 * 
 	 * @param inStream The InputStream to be read
 	 * @param inputName The name of the input
@@ -155,19 +194,32 @@ public class DotReaderFactory implements InputStreamTaskFactory, NetworkViewAdde
 	 */
 	@Override
 	public boolean isReady(InputStream inStream, String inputName) {
+		if (inStream == null) {
+			return false;
+		}
 		
 		// check file extension
-		if (inStream != null && inputName != null) {
+		if (inputName != null) {
 			LOGGER.info("Valid input is found");
 			
-			String[] parts = inputName.split(".");
-			String extension = parts[parts.length-1];
-			if (extension.matches(("gv|dot"))) {
+			String extension = DotFormatSniffer.getExtension(inputName);
+			if (extension.matches("(?i)gv|dot")) {
 				
 				LOGGER.info("gv|dot extention is matched");
 				return true;
 			}
-		}		
+		}
+
+		// check content, eg. of pipes and temporary files
+		try {
+			if (DotFormatSniffer.looksLikeDot(inStream)) {
+				LOGGER.info("GraphViz header is found in input");
+				return true;
+			}
+		}
+		catch (IOException e) {
+			LOGGER.warn("Could not check content of input: " + e.getMessage());
+		}
 		return false;
 	}
 }
@@ -1,13 +1,38 @@
 package org.cytoscape.intern.read;
 
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.intern.GradientListener;
+import org.cytoscape.intern.NodeNameHeader;
+import org.cytoscape.intern.read.layout.ForceDirectedLayout;
+import org.cytoscape.intern.read.layout.GraphLayout;
+import org.cytoscape.intern.read.layout.LayeredLayout;
 import org.cytoscape.intern.read.reader.EdgeReader;
 import org.cytoscape.intern.read.reader.NetworkReader;
 import org.cytoscape.intern.read.reader.NodeReader;
@@ -23,15 +48,20 @@ import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.model.View;
 import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualPropertyDependency;
 import org.cytoscape.view.vizmap.VisualStyle;
 import org.cytoscape.view.vizmap.VisualStyleFactory;
 import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.ListSingleSelection;
 
 import com.alexmerz.graphviz.ParseException;
-import com.alexmerz.graphviz.Parser;
 import com.alexmerz.graphviz.TokenMgrError;
 import com.alexmerz.graphviz.objects.Edge;
 import com.alexmerz.graphviz.objects.Graph;
@@ -53,6 +83,9 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	// JPGD way of representing directed graphs
 	private static final int DIRECTED = 2;
 
+	// character some editors put at the start of a file to mark its encoding
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
 	// list of all relevant attributes
 	private static final String[] EDGE_ATTRIBUTES = {
 		"arrowhead", "arrowtail", "dir"
@@ -69,7 +102,7 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	};
 	
 	// whether task is cancelled or not
-	private boolean cancelled = false;
+	private volatile boolean cancelled = false;
 	
 	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
 	private static final Logger LOGGER = LoggerFactory.getLogger(DotReaderTask.class);
@@ -95,6 +128,43 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	// RenderingEngineManager used to get VisualLexicon
 	// Used to check compatibility with Non BVL Visual Properties
 	private RenderingEngineManager rendEngMr;
+	// Create the edge bends that keep the routing of edges
+	private BendFactory bendFact;
+	private HandleFactory handleFact;
+	// Silences view events while the readers apply visual properties
+	private CyEventHelper eventHelper;
+	// Creates the discrete mappings of values shared by many elements
+	private VisualMappingFunctionFactory discreteMappingFact;
+
+	// Maps compact node IDs to node names, null if the file has no name header
+	private Map<String, String> nodeNames;
+
+	// Held while CyNetworks are built, graphs are only prepared in parallel
+	private final Object modelLock = new Object();
+
+	// Layouts computed while the graphs were prepared, applied to their views
+	private Map<Graph, GraphLayout> graphLayouts = new ConcurrentHashMap<Graph, GraphLayout>();
+
+	// Pool the layouts of all graphs are computed on while they are imported
+	private ForkJoinPool layoutPool;
+
+	// Root network the graphs are added to, null if each gets a new one
+	private CyRootNetwork rootNetwork;
+
+	// Progress of each graph being imported, from 0 to 1
+	private double[] graphProgress;
+
+	// Cache of parsed files, null if parsed files are not cached
+	private ParseCache parseCache;
+
+	// Stream of the file and its name, used to read selected graphs by their byte ranges
+	private InputStream inStream;
+	private String inputName;
+
+	// Values of the graphNames and layouts Tunables
+	private String graphNames = "";
+	private ListSingleSelection<String> layouts = new ListSingleSelection<String>(
+			"No layout", "Force-directed", "Layered (directed graphs)");
 	
 	/**
 	 * Constructs a DotReaderTask object for importing a dot file
@@ -110,10 +180,19 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	 * gradients
 	 * @param rendEngMgr RenderingEngineManager that contains the default
 	 * VisualLexicon needed for gradient support
+	 * @param bendFact BendFactory needed to import edge splines
+	 * @param handleFact HandleFactory needed to import edge splines
+	 * @param eventHelper CyEventHelper used to batch view updates
+	 * @param discreteMappingFact VisualMappingFunctionFactory of discrete
+	 * mappings, null to import all values as bypasses
+	 * @param parseCache ParseCache of parsed files, null to always parse
+	 * @param inputName name of the input, the path of the file if it is one
 	 */
 	public DotReaderTask(InputStream inStream, CyNetworkViewFactory netViewFact,
 			CyNetworkFactory netFact, CyNetworkManager netMgr,
-			CyRootNetworkManager rootNetMgr, VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr) {
+			CyRootNetworkManager rootNetMgr, VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr,
+			BendFactory bendFact, HandleFactory handleFact, CyEventHelper eventHelper,
+			VisualMappingFunctionFactory discreteMappingFact, ParseCache parseCache, String inputName) {
 		
 		super(inStream, netViewFact, netFact, netMgr, rootNetMgr);
 		
@@ -123,12 +202,57 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 		this.vizStyleFact = vizStyleFact;
 		this.gradientListener = gradientListener;
 		this.rendEngMr = rendEngMgr;
+		this.bendFact = bendFact;
+		this.handleFact = handleFact;
+		this.eventHelper = eventHelper;
+		this.discreteMappingFact = discreteMappingFact;
+		this.parseCache = parseCache;
+		this.inStream = inStream;
+		this.inputName = inputName;
 		
 		graphMap = new HashMap<Graph, CyNetwork>();
 		nodeMap = new HashMap<Node, CyNode>();
 		edgeMap = new HashMap<Edge, CyEdge>();
 	}
 
+	/*
+	 * Tunable to prompt user for the graphs imported from a file holding
+	 * several. Only the byte ranges of those graphs are parsed. The Tunables
+	 * of this task are on getters, so that readers of formats the options do
+	 * not apply to can override the getters to hide them
+	 */
+	@Tunable(description = "Only import graphs with these names (comma-separated, empty imports all)")
+	public String getGraphNames() {
+		return graphNames;
+	}
+
+	public void setGraphNames(String graphNames) {
+		this.graphNames = graphNames;
+	}
+
+	/*
+	 * Tunable to prompt user for the layout of graphs whose nodes have no
+	 * positions. Graphs with positions keep them, undirected graphs are laid
+	 * out force-directed if the layered layout is picked
+	 */
+	@Tunable(description = "Lay out graphs without node positions")
+	public ListSingleSelection<String> getLayouts() {
+		return layouts;
+	}
+
+	public void setLayouts(ListSingleSelection<String> layouts) {
+		this.layouts = layouts;
+	}
+
+	/**
+	 * Returns the name of the input
+	 * 
+	 * @return name of the input, the path of the file if it is one
+	 */
+	protected String getInputName() {
+		return inputName;
+	}
+
 	/**
 	 * Returns Map of default attributes and their values for edges
 	 * 
@@ -174,6 +298,174 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 		return output;
 	}
 	
+	/**
+	 * Returns the names of all generic attributes read from a graph, the ones
+	 * a ParseCache entry has to keep
+	 * 
+	 * @return names of the generic attributes
+	 */
+	private static String[] getGenericAttributeNames() {
+		List<String> names = new ArrayList<String>();
+		names.addAll(Arrays.asList(COMMON_ATTRIBUTES));
+		names.addAll(Arrays.asList(NODE_ATTRIBUTES));
+		names.addAll(Arrays.asList(EDGE_ATTRIBUTES));
+		names.addAll(Arrays.asList(GRAPH_ATTRIBUTES));
+		return names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * Returns the graphs of a .dot file, from parseCache if the same contents
+	 * were imported before
+	 * 
+	 * @param text contents of the .dot file after its name header
+	 * @return List of the top-level Graphs of the file
+	 * @throws ParseException if the file does not comply to .dot syntax
+	 */
+	private ArrayList<Graph> readGraphs(String text) throws ParseException {
+		if (parseCache == null) {
+			return parseGraphs(text);
+		}
+
+		String cacheKey = ParseCache.hash(text);
+		String[] genericAttributes = getGenericAttributeNames();
+		ArrayList<Graph> graphList = parseCache.load(cacheKey, genericAttributes);
+		if (graphList != null) {
+			LOGGER.info("Read graphs from parse cache entry " + cacheKey);
+			return graphList;
+		}
+		graphList = parseGraphs(text);
+		text = null;
+		parseCache.store(cacheKey, graphList, genericAttributes);
+		return graphList;
+	}
+
+	/**
+	 * Parses the graphs of a file. Readers of other GraphViz output formats
+	 * override this to build the JPGD graphs themselves
+	 * 
+	 * @param text contents of the file after its name header
+	 * @return List of the top-level Graphs of the file
+	 * @throws ParseException if the file does not comply to .dot syntax
+	 */
+	protected ArrayList<Graph> parseGraphs(String text) throws ParseException {
+		// large files are tokenized on several threads
+		return ParallelLexer.parse(text);
+	}
+
+	/**
+	 * Returns the names entered in the graphNames Tunable
+	 * 
+	 * @return List of graph names, empty if all graphs are imported
+	 */
+	private List<String> getSelectedGraphNames() {
+		List<String> names = new ArrayList<String>();
+		for (String name : getGraphNames().split(",")) {
+			if (!name.trim().isEmpty()) {
+				names.add(name.trim());
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Reads the name header and the text of the selected graphs. The byte
+	 * ranges of the graphs come from the GraphIndex sidecar of the file. If
+	 * there is none, the whole file is read once to build and save it
+	 * 
+	 * @param names names of the graphs to import
+	 * @return text of the selected graphs
+	 * @throws IOException if the file cannot be read
+	 */
+	private String readSelectedGraphs(List<String> names) throws IOException {
+		// decoded like inStreamReader decodes the whole file
+		Charset charset = Charset.defaultCharset();
+		File source = GraphIndex.toFile(inputName);
+		GraphIndex index = (source != null) ? GraphIndex.readSidecar(source) : null;
+		byte[] data = null;
+		if (index == null) {
+			LOGGER.info("Indexing graphs of " + inputName);
+			ByteArrayOutputStream contents = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = inStream.read(buffer)) != -1) {
+				contents.write(buffer, 0, read);
+			}
+			data = contents.toByteArray();
+			contents = null;
+			index = GraphIndex.scan(data, data.length, source);
+			if (source != null) {
+				index.writeSidecar(source);
+			}
+		}
+
+		List<GraphIndex.Entry> selected = index.select(names);
+		if (selected.isEmpty()) {
+			List<String> available = new ArrayList<String>();
+			for (GraphIndex.Entry entry : index.getEntries()) {
+				available.add(entry.getName());
+			}
+			throw new RuntimeException(String.format("No graph named %s in file, graphs are %s", names, available));
+		}
+		LOGGER.info(String.format("Importing %d of %d graphs", selected.size(), index.getEntries().size()));
+
+		// the name header is in front of the first graph
+		long headerLength = index.getEntries().get(0).getOffset();
+		DataInputStream in = (data == null) ? new DataInputStream(inStream) : null;
+		byte[] header = (data == null) ? readBytes(in, headerLength) : Arrays.copyOf(data, (int) headerLength);
+		BufferedReader headerReader = new BufferedReader(new StringReader(new String(header, charset)));
+		skipByteOrderMark(headerReader);
+		nodeNames = NodeNameHeader.read(headerReader);
+
+		StringBuilder text = new StringBuilder();
+		long position = headerLength;
+		for (GraphIndex.Entry entry : selected) {
+			byte[] graph;
+			if (data == null) {
+				skipBytes(in, entry.getOffset() - position);
+				graph = readBytes(in, entry.getLength());
+			}
+			else {
+				graph = Arrays.copyOfRange(data, (int) entry.getOffset(), (int) (entry.getOffset() + entry.getLength()));
+			}
+			position = entry.getOffset() + entry.getLength();
+			text.append(new String(graph, charset)).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Skips the byte order mark some editors put at the start of UTF-8 files
+	 * 
+	 * @param input BufferedReader at the start of the file
+	 * @throws IOException if input cannot be read
+	 */
+	private static void skipByteOrderMark(BufferedReader input) throws IOException {
+		input.mark(1);
+		if (input.read() != BYTE_ORDER_MARK) {
+			input.reset();
+		}
+	}
+
+	private static byte[] readBytes(DataInputStream in, long length) throws IOException {
+		byte[] bytes = new byte[(int) length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void skipBytes(DataInputStream in, long count) throws IOException {
+		while (count > 0) {
+			long skipped = in.skip(count);
+			if (skipped <= 0) {
+				// skip() may refuse to skip, a read never does until the end
+				if (in.read() == -1) {
+					throw new EOFException("graph index does not match file");
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
 	/**
 	 * Retrieves the name of the graph from its Id Object
 	 * @param graph JPGD graph object containing the information
@@ -224,15 +516,30 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	
 	/**
 	 * Retrieves the name of the node from its Id object that will be inserted
-	 * into the CyNode table of the CyNetwork
+	 * into the CyNode table of the CyNetwork. Both "name§SUID" IDs and compact
+	 * IDs listed in a name header are recognized
 	 * @param node JPGD node object containing the information
 	 * @return name of the node
 	 */
 	private String getNodeName(Node node) {
+		return getNodeName(node, nodeNames);
+	}
+
+	/**
+	 * Retrieves the name of a node from its Id object
+	 * @param node JPGD node object containing the information
+	 * @param nodeNames names of compact node IDs read from the name header,
+	 * null if the file has none
+	 * @return name of the node
+	 */
+	static String getNodeName(Node node, Map<String, String> nodeNames) {
 		Id nodeId = node.getId();
 		String idString = nodeId.getId();
 		String labelString = nodeId.getLabel();
 		if (!idString.equals("")) {
+			if (nodeNames != null && nodeNames.containsKey(idString)) {
+				return nodeNames.get(idString);
+			}
 			return idString;
 		}
 		else if (!labelString.equals("")) {
@@ -242,69 +549,168 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 		return null;
 	}
 	/**
-	 * Adds edge into given cytoscape network, sets name and interaction table data.
-	 * Also adds edge to edgeMap
+	 * Returns the name of an edge as it is shown in the CyEdge table
 	 * 
-	 * @param edge Edge that is being added to network
-	 * @param network CyNetwork that edge is being added to
+	 * @param edge Edge whose name is being built
+	 * @return name in form "source (interaction) target"
 	 */
-	private void importEdge(Edge edge, CyNetwork network) {
+	private String getEdgeName(Edge edge) {
+		String sourceName = getNodeName(edge.getSource().getNode());
+		String targetName = getNodeName(edge.getTarget().getNode());
+		return String.format("%s (%s) %s", sourceName, getInteraction(edge), targetName);
+	}
 
-		// get the source and target Nodes from the edge
-		Node source = edge.getSource().getNode();
-		Node target = edge.getTarget().getNode();
-		
-		// get the name of both nodes
-		String sourceName = getNodeName(source);
-		String targetName = getNodeName(target);
-		
-		// get the CyNode of the source and target node from the hashmap
-		CyNode sourceCyNode = nodeMap.get(source);
-		CyNode targetCyNode = nodeMap.get(target);
-		
-		CyEdge cyEdge = null;
-		
-		// Interaction of the edge
-		String interaction;
-		/*
-		 * if getType returns 2, it's directed, else it's undirected
-		 * set the cyEdge and add the cyEdge into the network
-		 */
-		if (edge.getType() == DIRECTED) {
-			cyEdge = network.addEdge(sourceCyNode, targetCyNode, true);
-			interaction = "interaction";
+	/**
+	 * Returns the interaction of an edge, "interaction" if it is directed and
+	 * "undirected" otherwise
+	 * 
+	 * @param edge Edge being checked
+	 * @return interaction of edge
+	 */
+	private String getInteraction(Edge edge) {
+		// if getType returns 2, it's directed, else it's undirected
+		return (edge.getType() == DIRECTED) ? "interaction" : "undirected";
+	}
+
+	/**
+	 * Imports one graph of the file into its own CyNetwork. Everything read
+	 * from the JPGD graph is prepared first, including the layout of graphs
+	 * without positions, so that several graphs can be prepared at once. Only
+	 * the CyNetwork is built while holding modelLock
+	 */
+	private class GraphImport implements Callable<CySubNetwork> {
+
+		// graph being imported
+		private Graph graph;
+
+		// position of graph in the file
+		private int graphIndex;
+
+		// TaskMonitor progress is reported to
+		private TaskMonitor monitor;
+
+		GraphImport(Graph graph, int graphIndex, TaskMonitor monitor) {
+			this.graph = graph;
+			this.graphIndex = graphIndex;
+			this.monitor = monitor;
 		}
-		else {
-			cyEdge = network.addEdge(sourceCyNode, targetCyNode, false);
-			interaction = "undirected";
+
+		@Override
+		public CySubNetwork call() {
+			LOGGER.trace("Preparing graph " + graphIndex + "...");
+			ArrayList<Node> nodeList = graph.getNodes(true);
+			String[] nodeLabels = new String[nodeList.size()];
+			Map<Node, Integer> nodeIndices = new HashMap<Node, Integer>();
+			for (int i = 0; i < nodeLabels.length; i++) {
+				nodeLabels[i] = getNodeName(nodeList.get(i));
+				nodeIndices.put(nodeList.get(i), i);
+			}
+
+			// the ends of each edge are resolved to node indices, -1 if not a node of nodeList
+			ArrayList<Edge> edgeList = graph.getEdges();
+			String[] edgeLabels = new String[edgeList.size()];
+			int[] sources = new int[edgeList.size()];
+			int[] targets = new int[edgeList.size()];
+			for (int i = 0; i < edgeLabels.length; i++) {
+				Edge edge = edgeList.get(i);
+				edgeLabels[i] = getEdgeName(edge);
+				sources[i] = getNodeIndex(nodeIndices, edge.getSource().getNode());
+				targets[i] = getNodeIndex(nodeIndices, edge.getTarget().getNode());
+			}
+			reportProgress(monitor, graphIndex, 0.25);
+
+			// the layout only needs the indices, so it is computed outside the lock
+			if (!getLayouts().getSelectedValue().equals("No layout") && !hasPositions(graph)) {
+				graphLayouts.put(graph, computeLayout(nodeList.size(), sources, targets, isDirected(edgeList)));
+			}
+			reportProgress(monitor, graphIndex, 0.5);
+
+			// the model is built by one graph at a time
+			synchronized (modelLock) {
+				if (cancelled) {
+					return null;
+				}
+				CySubNetwork network;
+				if (rootNetwork != null) {
+					network = rootNetwork.addSubNetwork();
+				}
+				else {
+					network = (CySubNetwork)cyNetworkFactory.createNetwork();
+				}
+
+				// set the name for the network
+				String networkName = getGraphName(graph);
+				network.getRow(network).set(CyNetwork.NAME, networkName);
+
+				// add DOT_network Identifier to Network Table
+				LOGGER.trace("Writing DOT_network identifer to Network table...");
+				CyTable networkTable = network.getTable(CyNetwork.class, CyNetwork.HIDDEN_ATTRS);
+				CyTable edgeLocalTable = network.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS);
+				edgeLocalTable.createColumn("weight", Double.class, false, null);
+				networkTable.createColumn("DOT_network", Boolean.class, true);
+				networkTable.getRow(network.getSUID()).set("DOT_network", true);
+
+				// import nodes, add the node and the corresponding cyNode into a hashmap for later tracking
+				CyTable nodeTable = network.getDefaultNodeTable();
+				CyNode[] cyNodes = new CyNode[nodeLabels.length];
+				for (int i = 0; i < nodeLabels.length; i++) {
+					if (cancelled) {
+						return null;
+					}
+					CyNode cyNode = network.addNode();
+					nodeTable.getRow(cyNode.getSUID()).set(CyNetwork.NAME, nodeLabels[i]);
+					nodeMap.put(nodeList.get(i), cyNode);
+					cyNodes[i] = cyNode;
+				}
+				reportProgress(monitor, graphIndex, 0.75);
+
+				// import edges, set the interaction and name and add them to edgeMap
+				CyTable edgeTable = network.getDefaultEdgeTable();
+				for (int i = 0; i < edgeLabels.length; i++) {
+					if (cancelled) {
+						return null;
+					}
+					Edge edge = edgeList.get(i);
+					CyNode sourceCyNode = (sources[i] >= 0) ? cyNodes[sources[i]] : nodeMap.get(edge.getSource().getNode());
+					CyNode targetCyNode = (targets[i] >= 0) ? cyNodes[targets[i]] : nodeMap.get(edge.getTarget().getNode());
+					CyEdge cyEdge = network.addEdge(sourceCyNode, targetCyNode, edge.getType() == DIRECTED);
+					edgeTable.getRow(cyEdge.getSUID()).set(CyEdge.INTERACTION, getInteraction(edge));
+					edgeTable.getRow(cyEdge.getSUID()).set(CyNetwork.NAME, edgeLabels[i]);
+					edgeMap.put(edge, cyEdge);
+				}
+				LOGGER.trace("All elements imported");
+
+				//add the graph and the created CyNetwork based on that graph into the graphMap hashmap
+				graphMap.put(graph, network);
+				LOGGER.trace("Graph added to map");
+				reportProgress(monitor, graphIndex, 1.0);
+				return network;
+			}
 		}
-		
-		//set the interaction, a attribute of table, to be "interaction"
-		network.getDefaultEdgeTable().getRow(cyEdge.getSUID()).set(CyEdge.INTERACTION, interaction);
-		
-		//set the edge name
-		network.getDefaultEdgeTable().getRow(cyEdge.getSUID()).set(CyNetwork.NAME, String.format("%s (%s) %s", sourceName, interaction, targetName));
-		
-		edgeMap.put(edge, cyEdge);
 	}
-	
+
+	private static int getNodeIndex(Map<Node, Integer> nodeIndices, Node node) {
+		Integer index = nodeIndices.get(node);
+		return (index != null) ? index : -1;
+	}
+
 	/**
-	 * Adds node into given cytoscape network, sets name.
-	 * Also adds node to nodeMap
+	 * Records the progress of one graph and reports the progress of the whole
+	 * import, the mean of the progress of all graphs
 	 * 
-	 * @param node Node being added
-	 * @param network CyNetwork it is being added to
+	 * @param monitor TaskMonitor progress is reported to
+	 * @param graphIndex position of the graph in the file
+	 * @param progress progress of that graph, from 0 to 1
 	 */
-	private void importNode(Node node, CyNetwork network) {
-		// add cyNode and set name
-		CyNode cyNode = network.addNode();
-		String nodeName = getNodeName(node);
-		network.getDefaultNodeTable().getRow(cyNode.getSUID()).set(CyNetwork.NAME, nodeName);
-
-		// add the node and the corresponding cyNode into a hashmap for later tracking
-		nodeMap.put(node, cyNode);
+	private synchronized void reportProgress(TaskMonitor monitor, int graphIndex, double progress) {
+		graphProgress[graphIndex] = progress;
+		double total = 0;
+		for (double graphDone : graphProgress) {
+			total += graphDone;
+		}
+		monitor.setProgress(total / graphProgress.length);
 	}
-	
+
 	/**
 	 * build an instance of CyNetworkView based on the passed in CyNetwork instance
 	 * 
@@ -355,15 +761,33 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 		final CyNetworkView networkView = cyNetworkViewFactory.createNetworkView(network);
 		
 
-		// initialize readers and begin setting visual properties
-		NetworkReader networkReader = new NetworkReader(networkView, vizStyle, getGraphDefaultMap(graph), graph, rendEngMr);
-		networkReader.setProperties();
+		// the readers stage their values and apply them in one batch each, view
+		// events are held back until all are applied
+		if (eventHelper != null) {
+			eventHelper.silenceEventSource(networkView);
+		}
+		try {
+			// initialize readers and begin setting visual properties
+			NetworkReader networkReader = new NetworkReader(networkView, vizStyle, getGraphDefaultMap(graph), graph, rendEngMr);
+			networkReader.setProperties();
 
-		NodeReader nodeReader = new NodeReader(networkView, vizStyle, getNodeDefaultMap(graph), rendEngMr, nodeMap, gradientListener);
-		nodeReader.setProperties();
+			NodeReader nodeReader = new NodeReader(networkView, vizStyle, getNodeDefaultMap(graph), rendEngMr, nodeMap, gradientListener, discreteMappingFact);
+			nodeReader.setProperties();
+			GraphLayout layout = graphLayouts.get(graph);
+			if (layout != null) {
+				applyLayout(graph, layout, networkView);
+			}
 
-		EdgeReader edgeReader = new EdgeReader(networkView, vizStyle, getEdgeDefaultMap(graph), rendEngMr, edgeMap);
-		edgeReader.setProperties();
+			// node positions are applied first, edge bends are placed relative to them
+			EdgeReader edgeReader = new EdgeReader(networkView, vizStyle, getEdgeDefaultMap(graph), rendEngMr, edgeMap, bendFact, handleFact, discreteMappingFact);
+			edgeReader.setProperties();
+		}
+		finally {
+			if (eventHelper != null) {
+				eventHelper.unsilenceEventSource(networkView);
+				eventHelper.flushPayloadEvents();
+			}
+		}
 
 		//add the created visualStyle to VisualMappingManager
 		vizMapMgr.addVisualStyle(vizStyle);
@@ -372,6 +796,96 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 		return networkView;
 	}
 	
+	/**
+	 * Returns whether any node of a graph has a position
+	 * 
+	 * @param graph Graph being checked
+	 * @return true if a node has a pos attribute
+	 */
+	private boolean hasPositions(Graph graph) {
+		if (graph.getGenericNodeAttribute("pos") != null) {
+			return true;
+		}
+		for (Node node : graph.getNodes(true)) {
+			if (node.getAttribute("pos") != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether a graph is directed, which its edges tell
+	 * 
+	 * @param edgeList edges of the graph
+	 * @return true if an edge is directed
+	 */
+	private boolean isDirected(List<Edge> edgeList) {
+		for (Edge edge : edgeList) {
+			if (edge.getType() == DIRECTED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the layout selected in the layouts Tunable for a graph on
+	 * layoutPool. Edges with an end that is not a node are left out
+	 * 
+	 * @param nodeCount number of nodes of the graph
+	 * @param sources index of the source node of each edge, or -1
+	 * @param targets index of the target node of each edge, or -1
+	 * @param directed whether the graph is directed
+	 * @return computed GraphLayout
+	 */
+	private GraphLayout computeLayout(int nodeCount, int[] sources, int[] targets, boolean directed) {
+		int[] layoutSources = new int[sources.length];
+		int[] layoutTargets = new int[targets.length];
+		int edgeCount = 0;
+		for (int i = 0; i < sources.length; i++) {
+			if (sources[i] >= 0 && targets[i] >= 0) {
+				layoutSources[edgeCount] = sources[i];
+				layoutTargets[edgeCount] = targets[i];
+				edgeCount++;
+			}
+		}
+		layoutSources = Arrays.copyOf(layoutSources, edgeCount);
+		layoutTargets = Arrays.copyOf(layoutTargets, edgeCount);
+
+		GraphLayout layout;
+		if (getLayouts().getSelectedValue().equals("Layered (directed graphs)") && directed) {
+			LOGGER.info(String.format("Laying out %d nodes and %d edges in layers...", nodeCount, edgeCount));
+			layout = new LayeredLayout(nodeCount, layoutSources, layoutTargets);
+		}
+		else {
+			LOGGER.info(String.format("Laying out %d nodes and %d edges...", nodeCount, edgeCount));
+			layout = new ForceDirectedLayout(nodeCount, layoutSources, layoutTargets);
+		}
+		layout.run(layoutPool);
+		return layout;
+	}
+
+	/**
+	 * Sets the positions of the node views of a graph from its layout in one
+	 * pass
+	 * 
+	 * @param graph Graph that was laid out
+	 * @param layout GraphLayout computed for graph
+	 * @param networkView CyNetworkView of graph
+	 */
+	private void applyLayout(Graph graph, GraphLayout layout, CyNetworkView networkView) {
+		ArrayList<Node> nodeList = graph.getNodes(true);
+		for (int i = 0; i < nodeList.size(); i++) {
+			View<CyNode> nodeView = networkView.getNodeView(nodeMap.get(nodeList.get(i)));
+			if (nodeView != null) {
+				//Y coordinate is different between GraphViz and Java.
+				nodeView.setVisualProperty(NODE_X_LOCATION, layout.getX(i));
+				nodeView.setVisualProperty(NODE_Y_LOCATION, -layout.getY(i));
+			}
+		}
+	}
+
 	/**
 	 * Causes the task to stop execution.
 	 */
@@ -401,96 +915,61 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 	public void run(TaskMonitor monitor) {
 		LOGGER.trace("Running run() function...");
 		monitor.setProgress(0);
-		//Initialize the parser
-		Parser parser = new Parser();
-		
 		try {
 			
 		    LOGGER.trace("Begin parsing the input...");
 		    monitor.setStatusMessage("Retrieving graph from file...");
-			parser.parse(inStreamReader);
-			
-			// Get list of graphs
-			ArrayList<Graph> graphList = parser.getGraphs();
+			String text;
+			List<String> selectedNames = getSelectedGraphNames();
+			if (selectedNames.isEmpty()) {
+				BufferedReader input = new BufferedReader(inStreamReader);
+				skipByteOrderMark(input);
+				nodeNames = NodeNameHeader.read(input);
+				text = ParallelLexer.read(input);
+			}
+			else {
+				// only the selected graphs are read, the others are skipped
+				text = readSelectedGraphs(selectedNames);
+			}
+			if (nodeNames != null) {
+				LOGGER.info(String.format("Read name header of %d nodes", nodeNames.size()));
+			}
+			// Get list of graphs, parsed or from the parse cache
+			ArrayList<Graph> graphList = readGraphs(text);
+			text = null;
 			CyNetwork [] networks = new CyNetwork [graphList.size()];
+			graphProgress = new double[graphList.size()];
 			
 			// Get the root network
-			CyRootNetwork root = getRootNetwork();
+			rootNetwork = getRootNetwork();
 			
-			int networkCounter = 0;
-			for (Graph graph : graphList) {
-				
-				if(!cancelled){
-					LOGGER.trace("Iterating graph in graphList...");
-					CySubNetwork network;
-					if (root != null) {
-						network = root.addSubNetwork();
-					}
-					else {
-						network = (CySubNetwork)cyNetworkFactory.createNetwork();
-					}
-				
-					// set the name for the network
-					String networkName = getGraphName(graph);
-					network.getRow(network).set(CyNetwork.NAME, networkName);
-				
-					// add DOT_network Identifier to Network Table
-					monitor.setStatusMessage("Creating table columns...");
-					LOGGER.trace("Writing DOT_network identifer to Network table...");
-					CyTable networkTable = network.getTable(CyNetwork.class, CyNetwork.HIDDEN_ATTRS);
-					CyTable edgeLocalTable = network.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS);
-					edgeLocalTable.createColumn("weight", Double.class, false, null);
-					networkTable.createColumn("DOT_network", Boolean.class, true);
-					networkTable.getRow(network.getSUID()).set("DOT_network", true);
-					LOGGER.debug(
-						String.format("DOT_network identifier written. Result: %s",
-							networkTable.getRow(network.getSUID()).get("DOT_network", Boolean.class))
-					);
-	
-					// import nodes
-					ArrayList<Node> nodeList = graph.getNodes(true);
-					monitor.setStatusMessage("Importing nodes...");
-					for (Node node : nodeList) {
-						if(!cancelled) {
-							importNode(node, network);
-						}
-						else {
-							return;
-						}
-					}
-				
-					monitor.setProgress(0.5);
-					// import edges
-					ArrayList<Edge> edgeList = graph.getEdges();
-					monitor.setStatusMessage("Importing edges...");
-					for(Edge edge : edgeList) {
-						if(!cancelled) {
-							importEdge(edge, network);
-						}
-						else {
-							return;
-						}
-					}
-					
-					LOGGER.trace("All elements imported");
-				
-					//at the end of each graph iteration, add the created CyNetwork into the CyNetworks array
-					networks[networkCounter++] = network;
-					LOGGER.trace("Network added to array");
-				
-					//add the graph and the created CyNetwork based on that graph into the graphMap hashmap
-					graphMap.put(graph, network);
-					LOGGER.trace("Graph added to map");
+			// graphs are prepared in parallel, one thread per graph at most
+			int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), graphList.size()));
+			monitor.setStatusMessage(String.format("Importing %d graphs...", graphList.size()));
+			LOGGER.info(String.format("Importing %d graphs on %d threads...", graphList.size(), threadCount));
+			ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+			layoutPool = new ForkJoinPool();
+			try {
+				List<Future<CySubNetwork>> futures = new ArrayList<Future<CySubNetwork>>();
+				for (int i = 0; i < graphList.size(); i++) {
+					futures.add(pool.submit(new GraphImport(graphList.get(i), i, monitor)));
 				}
-				else {
+				for (int i = 0; i < futures.size(); i++) {
+					networks[i] = futures.get(i).get();
 					// cancel if needed
-					return;
+					if (networks[i] == null) {
+						return;
+					}
 				}
-				
-				monitor.setProgress(1.0);
-				this.networks = networks;
-				LOGGER.trace("CyNetwork objects successfully created");
 			}
+			finally {
+				pool.shutdownNow();
+				layoutPool.shutdown();
+			}
+			
+			monitor.setProgress(1.0);
+			this.networks = networks;
+			LOGGER.trace("CyNetwork objects successfully created");
 		}
 		catch(ParseException e){
 			//Invalid sequence of tokens found in file
@@ -503,11 +982,20 @@ public class DotReaderTask extends AbstractCyNetworkReader {
 			LOGGER.error(e.getMessage());
 			throw new RuntimeException("Sorry! File did not comply to dot language syntax");
 		}
+		catch (IOException e) {
+			LOGGER.error(e.getMessage());
+			throw new RuntimeException("Sorry! File could not be read");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Import was interrupted");
+		}
+		catch (ExecutionException e) {
+			LOGGER.error("Failed to import graph", e.getCause());
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
 	}	
 }
-
-
-
-
-
-
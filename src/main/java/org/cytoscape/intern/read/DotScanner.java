@@ -0,0 +1,533 @@
+package org.cytoscape.intern.read;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams a .dot file and splits the body of each top-level graph into its
+ * statements, without building JPGD objects. Only tokens are read, so a file
+ * of any size is scanned in constant memory. For each statement the scanner
+ * reports its kind, its text, the node IDs it refers to, the number of edges
+ * it declares and the attribute names it sets. Statements of subgraphs are
+ * part of the statement of their subgraph
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotScanner {
+
+	// kinds of statements
+	public static final int NODE_STATEMENT = 0;
+	public static final int EDGE_STATEMENT = 1;
+	public static final int DEFAULTS_STATEMENT = 2;
+	public static final int GRAPH_ATTRIBUTE_STATEMENT = 3;
+	public static final int SUBGRAPH_STATEMENT = 4;
+
+	// kinds of tokens, punctuation is its own character
+	private static final int EOF = -1;
+	private static final int ID = -2;
+	private static final int EDGE_OP = -3;
+	private static final int KEYWORD_GRAPH = -4;
+	private static final int KEYWORD_DIGRAPH = -5;
+	private static final int KEYWORD_SUBGRAPH = -6;
+	private static final int KEYWORD_NODE = -7;
+	private static final int KEYWORD_EDGE = -8;
+	private static final int KEYWORD_STRICT = -9;
+
+	/**
+	 * Receives the graphs and statements of a scanned file
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when the body of a top-level graph starts
+		 *
+		 * @param header text of the graph up to and including its "{"
+		 * @param directed whether the graph is a digraph
+		 */
+		void graphStarted(String header, boolean directed);
+
+		/**
+		 * Called for each statement of the body of a top-level graph
+		 *
+		 * @param statement statement that was read
+		 */
+		void statement(Statement statement);
+
+		/**
+		 * Called when the body of a top-level graph ends
+		 */
+		void graphEnded();
+	}
+
+	/**
+	 * Statement of the body of a top-level graph
+	 */
+	public static class Statement {
+
+		private int kind = NODE_STATEMENT;
+		private StringBuilder text = new StringBuilder();
+		private List<String> nodeIDs = new ArrayList<String>();
+		private List<String> attributeNames = new ArrayList<String>();
+		private int edgeCount = 0;
+
+		/**
+		 * @return kind of statement, eg. NODE_STATEMENT
+		 */
+		public int getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return text of the statement, its tokens separated by spaces
+		 */
+		public String getText() {
+			return text.toString();
+		}
+
+		/**
+		 * @return IDs of the nodes the statement refers to, unquoted
+		 */
+		public List<String> getNodeIDs() {
+			return nodeIDs;
+		}
+
+		/**
+		 * @return names of the attributes the statement sets
+		 */
+		public List<String> getAttributeNames() {
+			return attributeNames;
+		}
+
+		/**
+		 * @return number of edges the statement declares
+		 */
+		public int getEdgeCount() {
+			return edgeCount;
+		}
+	}
+
+	private PushbackReader input;
+	private Listener listener;
+
+	// text and unquoted value of the last token
+	private String tokenText;
+	private String tokenValue;
+
+	// whether the next character is the first of a line, where '#' starts a comment
+	private boolean atLineStart = true;
+
+	// header of the top-level graph being started
+	private StringBuilder header = new StringBuilder();
+	private boolean directed = false;
+
+	// statement being read, null between statements
+	private Statement current;
+
+	// brace depth, 1 in the body of a top-level graph
+	private int depth = 0;
+	private int bracketDepth = 0;
+	private int previousToken = EOF;
+
+	// what the next ID is
+	private boolean expectValue = false;
+	private boolean expectPort = false;
+	private boolean expectSubgraphName = false;
+
+	// whether the last token was the name of a subgraph, its body follows
+	private boolean subgraphNameRead = false;
+
+	// ID that is a node unless an "=" follows it
+	private String pendingID;
+
+	// per brace depth: size of the last edge operand, whether an edge operator follows it
+	// and number of nodes directly in the group
+	private int[] lastOperand = new int[16];
+	private boolean[] pendingEdge = new boolean[16];
+	private int[] groupSize = new int[16];
+
+	private DotScanner(Reader input, Listener listener) {
+		this.input = new PushbackReader(input, 2);
+		this.listener = listener;
+	}
+
+	/**
+	 * Scans a .dot file, reporting its graphs and statements to listener
+	 *
+	 * @param input Reader of the .dot file
+	 * @param listener Listener receiving graphs and statements
+	 * @throws IOException if input cannot be read
+	 */
+	public static void scan(Reader input, Listener listener) throws IOException {
+		new DotScanner(input, listener).scan();
+	}
+
+	private void scan() throws IOException {
+		int token;
+		while ((token = nextToken()) != EOF) {
+			if (depth == 0) {
+				if (token == '{') {
+					header.append('{');
+					listener.graphStarted(header.toString(), directed);
+					header.setLength(0);
+					directed = false;
+					enterGroup();
+				} else {
+					header.append(tokenText).append(' ');
+					if (token == KEYWORD_DIGRAPH) {
+						directed = true;
+					}
+				}
+				previousToken = token;
+				continue;
+			}
+			handleBodyToken(token);
+			previousToken = token;
+		}
+		if (current != null) {
+			endStatement();
+		}
+	}
+
+	/*
+	 * Handles a token in the body of a top-level graph
+	 */
+	private void handleBodyToken(int token) {
+		boolean afterSubgraphName = subgraphNameRead;
+		subgraphNameRead = false;
+
+		// an ID is a node unless it is the name of an attribute
+		if (pendingID != null) {
+			String id = pendingID;
+			pendingID = null;
+			if (token == '=') {
+				if (current != null) {
+					current.attributeNames.add(id);
+					if (depth == 1 && bracketDepth == 0 && current.kind == NODE_STATEMENT) {
+						current.kind = GRAPH_ATTRIBUTE_STATEMENT;
+					}
+				}
+			} else {
+				addOperand(id);
+			}
+		}
+
+		if (depth == 1 && bracketDepth == 0) {
+			if (token == '}') {
+				if (current != null) {
+					endStatement();
+				}
+				listener.graphEnded();
+				depth = 0;
+				return;
+			}
+			if (token == ';') {
+				if (current != null) {
+					current.text.append(';');
+					endStatement();
+				}
+				return;
+			}
+			// statements need not be separated, a new one starts with an ID after a complete one
+			boolean startsOperand = token == ID || token == '{' || token == KEYWORD_SUBGRAPH
+					|| token == KEYWORD_NODE || token == KEYWORD_EDGE || token == KEYWORD_GRAPH;
+			boolean afterOperand = previousToken == ID || previousToken == ']' || previousToken == '}';
+			boolean subgraphBody = token == '{' && afterSubgraphName;
+			if (current != null && startsOperand && afterOperand && !subgraphBody) {
+				endStatement();
+			}
+			if (current == null) {
+				current = new Statement();
+				if (token == KEYWORD_NODE || token == KEYWORD_EDGE || token == KEYWORD_GRAPH) {
+					current.kind = DEFAULTS_STATEMENT;
+				} else if (token == KEYWORD_SUBGRAPH || token == '{') {
+					current.kind = SUBGRAPH_STATEMENT;
+				}
+			}
+		}
+		if (current == null) {
+			return;
+		}
+		if (current.text.length() > 0) {
+			current.text.append(' ');
+		}
+		current.text.append(tokenText);
+
+		if (bracketDepth > 0) {
+			if (token == ']') {
+				bracketDepth--;
+			} else if (token == '[') {
+				bracketDepth++;
+			} else if (token == '=') {
+				expectValue = true;
+			} else if (token == ID) {
+				if (expectValue) {
+					expectValue = false;
+				} else {
+					// attribute names only, an "=" follows
+					current.attributeNames.add(tokenValue);
+				}
+			}
+			return;
+		}
+
+		switch (token) {
+		case '[':
+			bracketDepth++;
+			expectValue = false;
+			break;
+		case '{':
+			expectSubgraphName = false;
+			enterGroup();
+			break;
+		case '}':
+			int size = groupSize[depth];
+			depth--;
+			groupSize[depth] += size;
+			completeOperand(size);
+			break;
+		case EDGE_OP:
+			pendingEdge[depth] = true;
+			if (depth == 1) {
+				current.kind = EDGE_STATEMENT;
+			}
+			break;
+		case '=':
+			expectValue = true;
+			break;
+		case ':':
+			expectPort = true;
+			break;
+		case ';':
+			// end of a statement of a subgraph
+			lastOperand[depth] = 0;
+			pendingEdge[depth] = false;
+			break;
+		case KEYWORD_SUBGRAPH:
+			expectSubgraphName = true;
+			break;
+		case ID:
+			if (expectValue) {
+				expectValue = false;
+			} else if (expectPort) {
+				expectPort = false;
+			} else if (expectSubgraphName) {
+				expectSubgraphName = false;
+				subgraphNameRead = true;
+			} else {
+				pendingID = tokenValue;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void enterGroup() {
+		depth++;
+		if (depth >= lastOperand.length) {
+			lastOperand = Arrays.copyOf(lastOperand, depth * 2);
+			pendingEdge = Arrays.copyOf(pendingEdge, depth * 2);
+			groupSize = Arrays.copyOf(groupSize, depth * 2);
+		}
+		lastOperand[depth] = 0;
+		pendingEdge[depth] = false;
+		groupSize[depth] = 0;
+	}
+
+	private void addOperand(String id) {
+		if (current == null) {
+			return;
+		}
+		current.nodeIDs.add(id);
+		groupSize[depth]++;
+		completeOperand(1);
+	}
+
+	/*
+	 * Records an operand of size nodes, the ends of the edges of an edge operator before it
+	 */
+	private void completeOperand(int size) {
+		if (pendingEdge[depth] && current != null) {
+			current.edgeCount += lastOperand[depth] * size;
+			pendingEdge[depth] = false;
+		}
+		lastOperand[depth] = size;
+	}
+
+	private void endStatement() {
+		if (pendingID != null) {
+			addOperand(pendingID);
+			pendingID = null;
+		}
+		listener.statement(current);
+		current = null;
+		lastOperand[1] = 0;
+		pendingEdge[1] = false;
+		expectValue = false;
+		expectPort = false;
+		expectSubgraphName = false;
+	}
+
+	/*
+	 * Reads the next token, setting tokenText and tokenValue
+	 */
+	private int nextToken() throws IOException {
+		int c = skipSpaceAndComments();
+		if (c == -1) {
+			return EOF;
+		}
+		StringBuilder text = new StringBuilder();
+		text.append((char) c);
+
+		if (c == '"') {
+			StringBuilder value = new StringBuilder();
+			int next;
+			while ((next = input.read()) != -1) {
+				text.append((char) next);
+				if (next == '\\') {
+					int escaped = input.read();
+					if (escaped == -1) {
+						break;
+					}
+					text.append((char) escaped);
+					// escaped line breaks continue the string, other escapes are kept
+					if (escaped == '"') {
+						value.append('"');
+					} else if (escaped != '\n' && escaped != '\r') {
+						value.append('\\').append((char) escaped);
+					}
+				} else if (next == '"') {
+					break;
+				} else {
+					value.append((char) next);
+				}
+			}
+			return setToken(ID, text.toString(), value.toString());
+		}
+		if (c == '<') {
+			// HTML string, brackets nest
+			int nesting = 1;
+			int next;
+			while (nesting > 0 && (next = input.read()) != -1) {
+				text.append((char) next);
+				if (next == '<') {
+					nesting++;
+				} else if (next == '>') {
+					nesting--;
+				}
+			}
+			return setToken(ID, text.toString(), text.substring(1, Math.max(1, text.length() - 1)));
+		}
+		if (c == '-') {
+			int next = input.read();
+			if (next == '>' || next == '-') {
+				text.append((char) next);
+				return setToken(EDGE_OP, text.toString(), text.toString());
+			}
+			if (next != -1) {
+				input.unread(next);
+			}
+		}
+		if (isIDChar(c) || c == '-') {
+			int next;
+			while ((next = input.read()) != -1 && isIDChar(next)) {
+				text.append((char) next);
+			}
+			if (next != -1) {
+				input.unread(next);
+			}
+			String word = text.toString();
+			return setToken(keywordOf(word), word, word);
+		}
+		return setToken(c, text.toString(), text.toString());
+	}
+
+	private int setToken(int token, String text, String value) {
+		tokenText = text;
+		tokenValue = value;
+		atLineStart = false;
+		return token;
+	}
+
+	/*
+	 * Skips white space, comments and '#' lines, returns the first character after them
+	 */
+	private int skipSpaceAndComments() throws IOException {
+		while (true) {
+			int c = input.read();
+			if (c == -1) {
+				return -1;
+			}
+			if (c == '\n' || c == '\r') {
+				atLineStart = true;
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (c == '#' && atLineStart) {
+				skipLine();
+				continue;
+			}
+			if (c == '/') {
+				int next = input.read();
+				if (next == '/') {
+					skipLine();
+					continue;
+				}
+				if (next == '*') {
+					int previous = 0;
+					while ((next = input.read()) != -1 && !(previous == '*' && next == '/')) {
+						previous = next;
+					}
+					continue;
+				}
+				if (next != -1) {
+					input.unread(next);
+				}
+			}
+			return c;
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		while ((c = input.read()) != -1 && c != '\n' && c != '\r') {
+			// comment text is ignored
+		}
+		atLineStart = true;
+	}
+
+	private static int keywordOf(String word) {
+		if (word.equalsIgnoreCase("graph")) {
+			return KEYWORD_GRAPH;
+		}
+		if (word.equalsIgnoreCase("digraph")) {
+			return KEYWORD_DIGRAPH;
+		}
+		if (word.equalsIgnoreCase("subgraph")) {
+			return KEYWORD_SUBGRAPH;
+		}
+		if (word.equalsIgnoreCase("node")) {
+			return KEYWORD_NODE;
+		}
+		if (word.equalsIgnoreCase("edge")) {
+			return KEYWORD_EDGE;
+		}
+		if (word.equalsIgnoreCase("strict")) {
+			return KEYWORD_STRICT;
+		}
+		return ID;
+	}
+
+	private static boolean isIDChar(int c) {
+		return c == '_' || c == '.' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+				|| (c >= '0' && c <= '9') || c >= 0x80;
+	}
+}
@@ -0,0 +1,351 @@
+package org.cytoscape.intern.read;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Byte offsets of the top-level graphs of a .dot file, so that single graphs
+ * can be imported without parsing the others. The index is built by a scan
+ * that only follows quoted strings, comments and braces, and is saved next
+ * to the file in a sidecar "<file>.idx":
+ *
+ * # dotapp graph index
+ * <length of file> <last modified time of file>
+ * <offset> <length> <graph name>
+ * ...
+ *
+ * The scan works on bytes, so the file has to be in an encoding in which
+ * the characters of .dot syntax are single ASCII bytes, such as UTF-8
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class GraphIndex {
+
+	// first line of a sidecar
+	private static final String MARKER = "# dotapp graph index";
+
+	// extension added to the name of the indexed file
+	private static final String SIDECAR_EXTENSION = ".idx";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// keywords a top-level graph can start with
+	private static final String STRICT = "strict";
+	private static final String GRAPH = "graph";
+	private static final String DIGRAPH = "digraph";
+
+	// states of the scan
+	private static final int IN_CODE = 0;
+	private static final int IN_STRING = 1;
+	private static final int IN_COMMENT = 2;
+	private static final int IN_LINE_COMMENT = 3;
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(GraphIndex.class);
+
+	/**
+	 * Position of one top-level graph in the file
+	 */
+	public static class Entry {
+
+		private String name;
+		private long offset;
+		private long length;
+
+		Entry(String name, long offset, long length) {
+			this.name = name;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/**
+		 * @return name of the graph, "" if it has none
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return byte offset of the first keyword of the graph
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return number of bytes up to and including the closing brace
+		 */
+		public long getLength() {
+			return length;
+		}
+	}
+
+	// graphs in file order
+	private List<Entry> entries;
+
+	// size and modification time of the indexed file, to detect a stale sidecar
+	private long sourceLength;
+	private long sourceModified;
+
+	private GraphIndex(List<Entry> entries, long sourceLength, long sourceModified) {
+		this.entries = entries;
+		this.sourceLength = sourceLength;
+		this.sourceModified = sourceModified;
+	}
+
+	/**
+	 * @return entries of the graphs, in file order
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Returns the entries of the graphs whose names are in names, in file order
+	 *
+	 * @param names names of the graphs wanted
+	 * @return List of the matching entries
+	 */
+	public List<Entry> select(Collection<String> names) {
+		List<Entry> selected = new ArrayList<Entry>();
+		for (Entry entry : entries) {
+			if (names.contains(entry.getName())) {
+				selected.add(entry);
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Returns the file an import reads from, if its input name refers to one
+	 *
+	 * @param inputName name of the input, a path or a file: URI
+	 * @return existing File, or null
+	 */
+	public static File toFile(String inputName) {
+		if (inputName == null) {
+			return null;
+		}
+		File file = null;
+		try {
+			URI uri = new URI(inputName);
+			if ("file".equalsIgnoreCase(uri.getScheme())) {
+				file = new File(uri);
+			}
+		} catch (Exception e) {
+			// not a URI, tried as a path below
+		}
+		if (file == null) {
+			file = new File(inputName);
+		}
+		return (file.isFile()) ? file : null;
+	}
+
+	/**
+	 * Indexes the top-level graphs of a .dot file
+	 *
+	 * @param data contents of the file
+	 * @param length number of bytes of data used
+	 * @param source indexed file, null if the input is not a file
+	 * @return GraphIndex of data
+	 */
+	public static GraphIndex scan(byte[] data, int length, File source) {
+		List<Entry> entries = new ArrayList<Entry>();
+		int state = IN_CODE;
+		int depth = 0;
+		int graphStart = -1;
+		String graphName = null;
+		for (int i = 0; i < length; i++) {
+			byte c = data[i];
+			byte next = (i + 1 < length) ? data[i + 1] : 0;
+			switch (state) {
+			case IN_STRING:
+				if (c == '\\') {
+					i++;
+				} else if (c == '"') {
+					state = IN_CODE;
+				}
+				break;
+			case IN_COMMENT:
+				if (c == '*' && next == '/') {
+					state = IN_CODE;
+					i++;
+				}
+				break;
+			case IN_LINE_COMMENT:
+				if (c == '\n' || c == '\r') {
+					state = IN_CODE;
+				}
+				break;
+			default:
+				if (c == '/' && next == '*') {
+					state = IN_COMMENT;
+					i++;
+				} else if (c == '/' && next == '/') {
+					state = IN_LINE_COMMENT;
+					i++;
+				} else if (c == '#' && depth == 0 && graphStart < 0) {
+					// preprocessor output lines between graphs
+					state = IN_LINE_COMMENT;
+				} else if (c == '"') {
+					// the name of a top-level graph may be quoted
+					if (depth == 0 && graphStart >= 0 && graphName == null) {
+						int end = endOfString(data, i + 1, length);
+						graphName = new String(data, i + 1, end - i - 1, UTF_8);
+						i = end;
+					} else {
+						state = IN_STRING;
+					}
+				} else if (c == '{') {
+					depth++;
+				} else if (c == '}') {
+					depth--;
+					if (depth == 0 && graphStart >= 0) {
+						entries.add(new Entry((graphName == null) ? "" : graphName, graphStart, i + 1 - graphStart));
+						graphStart = -1;
+						graphName = null;
+					}
+				} else if (depth == 0 && isWordByte(c)) {
+					int end = i + 1;
+					while (end < length && isWordByte(data[end])) {
+						end++;
+					}
+					String word = new String(data, i, end - i, UTF_8);
+					if (graphStart < 0) {
+						if (word.equalsIgnoreCase(STRICT) || word.equalsIgnoreCase(GRAPH) || word.equalsIgnoreCase(DIGRAPH)) {
+							graphStart = i;
+						}
+					} else if (graphName == null && !word.equalsIgnoreCase(GRAPH) && !word.equalsIgnoreCase(DIGRAPH)) {
+						graphName = word;
+					}
+					i = end - 1;
+				}
+				break;
+			}
+		}
+		long sourceLength = (source != null) ? source.length() : length;
+		long sourceModified = (source != null) ? source.lastModified() : 0;
+		return new GraphIndex(entries, sourceLength, sourceModified);
+	}
+
+	/**
+	 * Reads the sidecar of a file, if it exists and was written for the
+	 * current contents of the file
+	 *
+	 * @param source indexed file
+	 * @return GraphIndex of source, or null
+	 */
+	public static GraphIndex readSidecar(File source) {
+		File sidecar = getSidecar(source);
+		if (!sidecar.isFile()) {
+			return null;
+		}
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(new InputStreamReader(new FileInputStream(sidecar), UTF_8));
+			if (!MARKER.equals(in.readLine())) {
+				return null;
+			}
+			String[] header = in.readLine().split(" ");
+			long sourceLength = Long.parseLong(header[0]);
+			long sourceModified = Long.parseLong(header[1]);
+			if (sourceLength != source.length() || sourceModified != source.lastModified()) {
+				LOGGER.info("Graph index is out of date: " + sidecar);
+				return null;
+			}
+			List<Entry> entries = new ArrayList<Entry>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				int offsetEnd = line.indexOf(' ');
+				int lengthEnd = line.indexOf(' ', offsetEnd + 1);
+				long offset = Long.parseLong(line.substring(0, offsetEnd));
+				long length = Long.parseLong(line.substring(offsetEnd + 1, lengthEnd));
+				entries.add(new Entry(line.substring(lengthEnd + 1), offset, length));
+			}
+			return new GraphIndex(entries, sourceLength, sourceModified);
+		} catch (IOException e) {
+			LOGGER.warn(String.format("Could not read graph index %s: %s", sidecar, e.getMessage()));
+			return null;
+		} catch (RuntimeException e) {
+			LOGGER.warn(String.format("Malformed graph index %s: %s", sidecar, e.getMessage()));
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					LOGGER.trace("Could not close graph index: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the index as the sidecar of source. Failing to write it is
+	 * logged, the import goes on without it
+	 *
+	 * @param source indexed file
+	 */
+	public void writeSidecar(File source) {
+		File sidecar = getSidecar(source);
+		Writer out = null;
+		try {
+			out = new OutputStreamWriter(new FileOutputStream(sidecar), UTF_8);
+			out.write(MARKER + "\n");
+			out.write(sourceLength + " " + sourceModified + "\n");
+			for (Entry entry : entries) {
+				// line breaks cannot be part of a name on a single line
+				String name = entry.getName().replace('\n', ' ').replace('\r', ' ');
+				out.write(entry.getOffset() + " " + entry.getLength() + " " + name + "\n");
+			}
+		} catch (IOException e) {
+			LOGGER.warn(String.format("Could not write graph index %s: %s", sidecar, e.getMessage()));
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					LOGGER.trace("Could not close graph index: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static File getSidecar(File source) {
+		return new File(source.getPath() + SIDECAR_EXTENSION);
+	}
+
+	/*
+	 * Returns the index of the quote that ends the string starting at start
+	 */
+	private static int endOfString(byte[] data, int start, int length) {
+		for (int i = start; i < length; i++) {
+			if (data[i] == '\\') {
+				i++;
+			} else if (data[i] == '"') {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private static boolean isWordByte(byte c) {
+		return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+}
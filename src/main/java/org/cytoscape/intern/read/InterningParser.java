@@ -0,0 +1,184 @@
+package org.cytoscape.intern.read;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.Parser;
+import com.alexmerz.graphviz.ParserTokenManager;
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Id;
+import com.alexmerz.graphviz.objects.Node;
+
+/**
+ * JPGD Parser that shares one String instance per distinct attribute key and
+ * low-cardinality attribute value for the whole import. The lexer creates a
+ * new String for every token, so without this a file with a million nodes
+ * holds a million copies of "shape" and "ellipse" until the import is done.
+ * Nodes are also looked up by name in a HashMap instead of the linear search
+ * of Parser, so each node name is kept once, by its Node
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class InterningParser extends Parser {
+
+	// attributes whose values are mostly distinct, interning them would only grow the table
+	private static final Set<String> DISTINCT_VALUE_KEYS = new HashSet<String>(Arrays.asList(
+		"pos", "lp", "xlp", "label", "xlabel", "headlabel", "taillabel", "tooltip", "comment", "id", "URL", "href"
+	));
+
+	// longest value that is interned, longer values are rarely repeated
+	private static final int MAX_INTERNED_VALUE_LENGTH = 64;
+
+	// number of distinct Strings after which values are only looked up, not added
+	private static final int MAX_INTERNED_VALUES = 1 << 16;
+
+	// canonical instance of each interned String
+	private Map<String, String> strings = new HashMap<String, String>();
+
+	// nodes by ID, by label (quoted IDs) and by ID and label, see Id.isEqual()
+	private Map<String, Node> nodesByID = new HashMap<String, Node>();
+	private Map<String, Node> nodesByLabel = new HashMap<String, Node>();
+	private Map<String, Node> nodesByIDAndLabel = new HashMap<String, Node>();
+
+	/**
+	 * Constructs an InterningParser reading from a Reader
+	 *
+	 * @param input Reader of the .dot file
+	 */
+	public InterningParser(Reader input) {
+		super(input);
+	}
+
+	/**
+	 * Constructs an InterningParser reading the tokens of a ParserTokenManager
+	 *
+	 * @param tokenManager source of the tokens of the .dot file
+	 */
+	public InterningParser(ParserTokenManager tokenManager) {
+		super(tokenManager);
+	}
+
+	/**
+	 * Returns the node with the given ID and label, creating it and adding it
+	 * to g if it does not exist yet. Matches Parser.createNode(), where a node
+	 * is found in any graph parsed before
+	 */
+	@Override
+	protected Node createNode(Graph g, String id, String label) {
+		Map<String, Node> nodes;
+		String key;
+		if (label.isEmpty()) {
+			nodes = nodesByID;
+			key = id;
+		} else if (id.isEmpty()) {
+			nodes = nodesByLabel;
+			key = label;
+		} else {
+			nodes = nodesByIDAndLabel;
+			key = id + '\0' + label;
+		}
+		Node node = nodes.get(key);
+		if (node != null) {
+			return node;
+		}
+
+		Id nodeID = new Id();
+		nodeID.setId(id);
+		nodeID.setLabel(label);
+		node = new Node();
+		node.setId(nodeID);
+		nodes.put(key, node);
+		g.addNode(node);
+		return node;
+	}
+
+	@Override
+	protected void addAttributes(Node node, Hashtable<String, String> attributes) {
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			String key = internKey(attribute.getKey());
+			node.setAttribute(key, internValue(key, attribute.getValue()));
+		}
+	}
+
+	/**
+	 * Parses all graphs of the input into graphs, like graphs(), and interns
+	 * the attributes of their edges. The edge production of Parser sets edge
+	 * attributes on the Edge directly instead of through addAttributes(), so
+	 * they are interned here, once the edges exist
+	 *
+	 * @param graphs list the parsed graphs are added to
+	 * @throws ParseException if the input is not valid .dot
+	 */
+	public void parseGraphs(ArrayList<Graph> graphs) throws ParseException {
+		graphs(graphs);
+		Map<String, String> scratch = new HashMap<String, String>();
+		for (Graph graph : graphs) {
+			internEdgeAttributes(graph, scratch);
+		}
+	}
+
+	/*
+	 * Replaces the attributes of the edges of g and its subgraphs by their
+	 * canonical instances. scratch is reused for every edge
+	 */
+	private void internEdgeAttributes(Graph g, Map<String, String> scratch) {
+		for (Edge edge : g.getEdges()) {
+			Hashtable<String, String> attributes = edge.getAttributes();
+			if (attributes.isEmpty()) {
+				continue;
+			}
+			scratch.clear();
+			scratch.putAll(attributes);
+			attributes.clear();
+			for (Map.Entry<String, String> attribute : scratch.entrySet()) {
+				String key = internKey(attribute.getKey());
+				attributes.put(key, internValue(key, attribute.getValue()));
+			}
+		}
+		for (Graph subgraph : g.getSubgraphs()) {
+			internEdgeAttributes(subgraph, scratch);
+		}
+	}
+
+	/*
+	 * Returns the canonical instance of an attribute key. Keys are always
+	 * interned, a file has only a few distinct ones
+	 */
+	private String internKey(String key) {
+		String canonical = strings.get(key);
+		if (canonical == null) {
+			strings.put(key, key);
+			canonical = key;
+		}
+		return canonical;
+	}
+
+	/*
+	 * Returns the canonical instance of an attribute value, or value itself
+	 * if values of key are not interned
+	 */
+	private String internValue(String key, String value) {
+		if (value == null || value.length() > MAX_INTERNED_VALUE_LENGTH
+				|| DISTINCT_VALUE_KEYS.contains(key)) {
+			return value;
+		}
+		String canonical = strings.get(value);
+		if (canonical != null) {
+			return canonical;
+		}
+		if (strings.size() < MAX_INTERNED_VALUES) {
+			strings.put(value, value);
+		}
+		return value;
+	}
+}
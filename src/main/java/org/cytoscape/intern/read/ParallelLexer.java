@@ -0,0 +1,362 @@
+package org.cytoscape.intern.read;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alexmerz.graphviz.JavaCharStream;
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.ParserConstants;
+import com.alexmerz.graphviz.ParserTokenManager;
+import com.alexmerz.graphviz.Token;
+import com.alexmerz.graphviz.TokenMgrError;
+import com.alexmerz.graphviz.objects.Graph;
+
+/**
+ * Parses .dot files with an InterningParser, tokenizing large files on several
+ * threads. A quick pre-scan splits the input into chunks at line breaks that
+ * are outside of quoted strings and comments, where no token can be cut in
+ * two. Chunks are tokenized by the JPGD ParserTokenManager on a thread pool
+ * and their tokens are handed to the Parser in order, while later chunks are
+ * still being tokenized
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ParallelLexer {
+
+	// number of characters a chunk should reach before it is cut at the next safe line break
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	// number of chunks tokenized ahead of the Parser per thread, bounds the number of tokens in memory
+	private static final int CHUNKS_AHEAD_PER_THREAD = 2;
+
+	// keyword after which "->" is allowed, the JPGD lexer keeps this state between graphs
+	private static final String DIGRAPH = "digraph";
+
+	// states of the pre-scan
+	private static final int IN_CODE = 0;
+	private static final int IN_STRING = 1;
+	private static final int IN_COMMENT = 2;
+	private static final int IN_LINE_COMMENT = 3;
+
+	// line number in the messages of TokenMgrErrors
+	private static final Pattern ERROR_LINE = Pattern.compile("(?i)(line )(\\d+)");
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelLexer.class);
+
+	/**
+	 * Reads all remaining characters of input
+	 *
+	 * @param input Reader of the .dot file
+	 * @return contents of the file
+	 * @throws IOException if input cannot be read
+	 */
+	public static String read(Reader input) throws IOException {
+		StringBuilder contents = new StringBuilder();
+		char[] buffer = new char[1 << 16];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			contents.append(buffer, 0, read);
+		}
+		return contents.toString();
+	}
+
+	/**
+	 * Returns the graphs of the contents of a .dot file. Like Parser.parse(),
+	 * leading and trailing white space is ignored
+	 *
+	 * @param text contents of the .dot file
+	 * @return List of the top-level Graphs of the file
+	 * @throws ParseException if the file does not comply to .dot syntax
+	 */
+	public static ArrayList<Graph> parse(String text) throws ParseException {
+		return parse(text, CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Returns the graphs of the contents of a .dot file, tokenized in chunks
+	 * of about chunkSize characters if there are at least two
+	 *
+	 * @param text contents of the .dot file
+	 * @param chunkSize number of characters a chunk should reach
+	 * @param threadCount number of threads tokenizing chunks
+	 * @return List of the top-level Graphs of the file
+	 * @throws ParseException if the file does not comply to .dot syntax
+	 */
+	static ArrayList<Graph> parse(String text, int chunkSize, int threadCount) throws ParseException {
+		// same trimming as String.trim(), without copying the text
+		int begin = 0;
+		int end = text.length();
+		while (begin < end && text.charAt(begin) <= ' ') {
+			begin++;
+		}
+		while (end > begin && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		if (threadCount < 2 || end - begin < 2 * chunkSize) {
+			new InterningParser(new StringReader(text.substring(begin, end))).parseGraphs(graphs);
+			return graphs;
+		}
+
+		List<Chunk> chunks = split(text, begin, end, chunkSize);
+		LOGGER.info(String.format("Tokenizing %d chunks on %d threads...", chunks.size(), threadCount));
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		try {
+			ChunkTokenManager tokenManager = new ChunkTokenManager(chunks, pool,
+					threadCount * CHUNKS_AHEAD_PER_THREAD);
+			new InterningParser(tokenManager).parseGraphs(graphs);
+		} finally {
+			pool.shutdownNow();
+		}
+		return graphs;
+	}
+
+	/**
+	 * Splits text[begin, end) into chunks of about chunkSize characters. A
+	 * chunk only starts right after a line break in code, so that it starts
+	 * with a new token, and records the line it starts on and whether a
+	 * digraph keyword came before it
+	 */
+	static List<Chunk> split(String text, int begin, int end, int chunkSize) {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		int chunkStart = begin;
+		int chunkLine = 1;
+		boolean chunkDigraph = false;
+
+		int state = IN_CODE;
+		int line = 1;
+		boolean digraph = false;
+		for (int i = begin; i < end; i++) {
+			char c = text.charAt(i);
+			char next = (i + 1 < end) ? text.charAt(i + 1) : '\0';
+			if (c == '\n' || (c == '\r' && next != '\n')) {
+				line++;
+			}
+			switch (state) {
+			case IN_STRING:
+				if (c == '\\') {
+					i++;
+					if (next == '\n' || (next == '\r' && (i + 1 >= end || text.charAt(i + 1) != '\n'))) {
+						line++;
+					}
+				} else if (c == '"') {
+					state = IN_CODE;
+				}
+				break;
+			case IN_COMMENT:
+				if (c == '*' && next == '/') {
+					state = IN_CODE;
+					i++;
+				}
+				break;
+			case IN_LINE_COMMENT:
+				if (c == '\r') {
+					state = IN_CODE;
+				}
+				// the line break ends the comment, a chunk may start after it
+				else if (c == '\n') {
+					state = IN_CODE;
+					if (i + 1 - chunkStart >= chunkSize && i + 1 < end) {
+						chunks.add(new Chunk(text, chunkStart, i + 1, chunkLine, chunkDigraph));
+						chunkStart = i + 1;
+						chunkLine = line;
+						chunkDigraph = digraph;
+					}
+				}
+				break;
+			default:
+				if (c == '"') {
+					state = IN_STRING;
+				} else if (c == '/' && next == '*') {
+					state = IN_COMMENT;
+					i++;
+				} else if (c == '/' && next == '/') {
+					state = IN_LINE_COMMENT;
+					i++;
+				} else if (c == '\n') {
+					if (i + 1 - chunkStart >= chunkSize && i + 1 < end) {
+						chunks.add(new Chunk(text, chunkStart, i + 1, chunkLine, chunkDigraph));
+						chunkStart = i + 1;
+						chunkLine = line;
+						chunkDigraph = digraph;
+					}
+				} else if (isWordChar(c)) {
+					int wordEnd = i + 1;
+					while (wordEnd < end && isWordChar(text.charAt(wordEnd))) {
+						wordEnd++;
+					}
+					// leading digits form a number, an ID or keyword may follow them
+					int wordStart = i;
+					while (wordStart < wordEnd && Character.isDigit(text.charAt(wordStart))) {
+						wordStart++;
+					}
+					if (wordEnd - wordStart == DIGRAPH.length()
+							&& text.regionMatches(true, wordStart, DIGRAPH, 0, DIGRAPH.length())) {
+						digraph = true;
+					}
+					i = wordEnd - 1;
+				}
+				break;
+			}
+		}
+		chunks.add(new Chunk(text, chunkStart, end, chunkLine, chunkDigraph));
+		return chunks;
+	}
+
+	private static boolean isWordChar(char c) {
+		return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+
+	/**
+	 * Part of the input that is tokenized on its own
+	 */
+	static class Chunk implements Callable<List<Token>> {
+
+		// whole input, the chunk is text[start, end)
+		private String text;
+		private int start;
+		private int end;
+
+		// line of the input the chunk starts on
+		private int firstLine;
+
+		// whether the lexer has seen a digraph keyword before the chunk
+		private boolean afterDigraph;
+
+		Chunk(String text, int start, int end, int firstLine, boolean afterDigraph) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			this.firstLine = firstLine;
+			this.afterDigraph = afterDigraph;
+		}
+
+		/*
+		 * Tokenizes the chunk. The EOF token at its end is kept
+		 */
+		@Override
+		public List<Token> call() {
+			// a lexer only learns that the graph is directed from the digraph keyword, so it is given one first
+			String prefix = (afterDigraph) ? DIGRAPH + "\n" : "";
+			int prefixLines = (afterDigraph) ? 1 : 0;
+			ParserTokenManager lexer = new ParserTokenManager(new JavaCharStream(new StringReader(prefix + text.substring(start, end))));
+
+			List<Token> tokens = new ArrayList<Token>();
+			int lineOffset = firstLine - 1 - prefixLines;
+			Token token;
+			do {
+				try {
+					token = lexer.getNextToken();
+				} catch (TokenMgrError e) {
+					throw offsetError(e, lineOffset);
+				}
+				token.beginLine += lineOffset;
+				token.endLine += lineOffset;
+				tokens.add(token);
+			} while (token.kind != ParserConstants.EOF);
+
+			// drop the digraph keyword and line break of the prefix
+			return (afterDigraph) ? tokens.subList(2, tokens.size()) : tokens;
+		}
+	}
+
+	/**
+	 * Returns a TokenMgrError whose message refers to lines of the whole input
+	 * instead of lines of a chunk
+	 */
+	private static TokenMgrError offsetError(TokenMgrError error, int lineOffset) {
+		String message = error.getMessage();
+		Matcher matcher = ERROR_LINE.matcher(message);
+		if (!matcher.find()) {
+			return error;
+		}
+		int line = Integer.parseInt(matcher.group(2)) + lineOffset;
+		message = message.substring(0, matcher.start(2)) + line + message.substring(matcher.end(2));
+		return new TokenMgrError(message, 0);
+	}
+
+	/**
+	 * Token manager that hands the Parser the tokens of each chunk in turn.
+	 * A fixed number of chunks is tokenized ahead of the Parser
+	 */
+	private static class ChunkTokenManager extends ParserTokenManager {
+
+		private List<Chunk> chunks;
+		private ExecutorService pool;
+
+		// tokens of chunks that were submitted, in chunk order
+		private List<Future<List<Token>>> pending = new ArrayList<Future<List<Token>>>();
+
+		// index of the next chunk to submit
+		private int nextChunk = 0;
+
+		// index of the chunk being read
+		private int currentChunk = -1;
+		private List<Token> currentTokens;
+		private int nextToken = 0;
+
+		ChunkTokenManager(List<Chunk> chunks, ExecutorService pool, int chunksAhead) {
+			super(new JavaCharStream(new StringReader("")));
+			this.chunks = chunks;
+			this.pool = pool;
+			while (nextChunk < chunks.size() && nextChunk < chunksAhead) {
+				pending.add(pool.submit(chunks.get(nextChunk++)));
+			}
+		}
+
+		@Override
+		public Token getNextToken() {
+			while (currentTokens == null || nextToken == currentTokens.size()) {
+				nextChunk();
+			}
+			Token token = currentTokens.get(nextToken++);
+			// only the last chunk ends the input
+			if (token.kind == ParserConstants.EOF && currentChunk < chunks.size() - 1) {
+				return getNextToken();
+			}
+			return token;
+		}
+
+		private void nextChunk() {
+			currentChunk++;
+			try {
+				currentTokens = pending.get(currentChunk).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Tokenizing was interrupted");
+			} catch (ExecutionException e) {
+				// TokenMgrErrors are passed on as they are
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+			pending.set(currentChunk, null);
+			chunks.set(currentChunk, null);
+			nextToken = 0;
+			if (nextChunk < chunks.size()) {
+				pending.add(pool.submit(chunks.get(nextChunk++)));
+			}
+		}
+	}
+}
@@ -0,0 +1,493 @@
+package org.cytoscape.intern.read;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Id;
+import com.alexmerz.graphviz.objects.Node;
+import com.alexmerz.graphviz.objects.PortNode;
+
+/**
+ * On-disk cache of parsed .dot files, keyed by a hash of the file contents.
+ * Each entry holds what DotReaderTask reads from the JPGD Graphs of a file in
+ * a compact binary form: all Strings are stored once in a table and referred
+ * to by index, and the nodes of each graph and the ends of its edges are
+ * stored as int arrays into a table of the nodes of the file. Reopening a
+ * cached file rebuilds the Graphs from the entry instead of parsing the text.
+ * When the entries take more than the maximum size, the least recently used
+ * ones are deleted
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ParseCache {
+
+	// first bytes of an entry, "DOTC"
+	private static final int MAGIC = 0x444F5443;
+
+	// version of the entry format, entries of other versions are ignored
+	private static final int FORMAT_VERSION = 1;
+
+	// extension of the entry files
+	private static final String ENTRY_EXTENSION = ".dotcache";
+
+	// index written for a null String
+	private static final int NULL_STRING = -1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParseCache.class);
+
+	// directory holding the entries
+	private File directory;
+
+	// total size in bytes the entries may take
+	private long maxSize;
+
+	/**
+	 * Constructs a ParseCache keeping its entries in directory. The directory
+	 * is created when the first entry is stored
+	 *
+	 * @param directory directory holding the entries
+	 * @param maxSize total size in bytes the entries may take
+	 */
+	public ParseCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the key of the entry of a file, a 128 bit hash of its contents
+	 * as hex digits
+	 *
+	 * @param text contents of the file
+	 * @return key of the entry
+	 */
+	public static String hash(CharSequence text) {
+		// two independent 64 bit hashes, FNV-1a and a polynomial hash
+		long fnv = 0xcbf29ce484222325L;
+		long polynomial = text.length();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			fnv = (fnv ^ c) * 0x100000001b3L;
+			polynomial = polynomial * 0x9E3779B97F4A7C15L + c;
+		}
+		return String.format("%016x%016x", fnv, polynomial);
+	}
+
+	/**
+	 * Returns the Graphs of a cached file, or null if the file is not cached.
+	 * Entries that cannot be read are deleted
+	 *
+	 * @param key key of the entry, see hash()
+	 * @param genericAttributes names of the generic attributes the Graphs need
+	 * @return List of the top-level Graphs of the file, or null
+	 */
+	public ArrayList<Graph> load(String key, String[] genericAttributes) {
+		File entry = new File(directory, key + ENTRY_EXTENSION);
+		if (!entry.isFile()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry), 1 << 16));
+			ArrayList<Graph> graphs = readEntry(in, genericAttributes);
+			if (graphs != null) {
+				// entries are evicted by last use
+				entry.setLastModified(System.currentTimeMillis());
+			}
+			return graphs;
+		} catch (IOException e) {
+			closeQuietly(in);
+			in = null;
+			discard(entry, e);
+			return null;
+		} catch (RuntimeException e) {
+			// eg. node indices out of range in a damaged entry
+			closeQuietly(in);
+			in = null;
+			discard(entry, e);
+			return null;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	private static void discard(File entry, Exception cause) {
+		LOGGER.warn(String.format("Deleting unreadable parse cache entry %s: %s", entry, cause.getMessage()));
+		entry.delete();
+	}
+
+	/**
+	 * Stores the Graphs of a file as its entry, then evicts the least
+	 * recently used entries until all fit in the maximum size. Failing to
+	 * store an entry is logged, the import goes on without it
+	 *
+	 * @param key key of the entry, see hash()
+	 * @param graphs top-level Graphs of the file
+	 * @param genericAttributes names of the generic attributes the Graphs need
+	 */
+	public void store(String key, List<Graph> graphs, String[] genericAttributes) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			LOGGER.warn("Could not create parse cache directory " + directory);
+			return;
+		}
+		File entry = new File(directory, key + ENTRY_EXTENSION);
+		File temp = null;
+		DataOutputStream out = null;
+		try {
+			// written under another name first, so that no half-written entry is ever read
+			temp = File.createTempFile(key, ".tmp", directory);
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+			writeEntry(out, graphs, genericAttributes);
+			out.close();
+			out = null;
+			if (!temp.renameTo(entry)) {
+				entry.delete();
+				if (!temp.renameTo(entry)) {
+					throw new IOException("could not rename " + temp);
+				}
+			}
+			temp = null;
+		} catch (IOException e) {
+			LOGGER.warn(String.format("Could not store parse cache entry %s: %s", entry, e.getMessage()));
+		} finally {
+			closeQuietly(out);
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+		evict();
+	}
+
+	/*
+	 * Deletes the least recently used entries until the entries fit in maxSize
+	 */
+	private void evict() {
+		File[] entries = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.getName().endsWith(ENTRY_EXTENSION);
+			}
+		});
+		if (entries == null) {
+			return;
+		}
+		long totalSize = 0;
+		for (File entry : entries) {
+			totalSize += entry.length();
+		}
+		if (totalSize <= maxSize) {
+			return;
+		}
+
+		// oldest first, loading an entry updates its modification time
+		Arrays.sort(entries, new Comparator<File>() {
+			@Override
+			public int compare(File first, File second) {
+				long firstUsed = first.lastModified();
+				long secondUsed = second.lastModified();
+				return (firstUsed < secondUsed) ? -1 : (firstUsed == secondUsed) ? 0 : 1;
+			}
+		});
+		for (int i = 0; i < entries.length && totalSize > maxSize; i++) {
+			long size = entries[i].length();
+			if (entries[i].delete()) {
+				LOGGER.info("Evicted parse cache entry " + entries[i]);
+				totalSize -= size;
+			}
+		}
+	}
+
+	/*
+	 * Writes the header, String table, node table and graphs of an entry
+	 */
+	private static void writeEntry(DataOutputStream out, List<Graph> graphs, String[] genericAttributes) throws IOException {
+		// collect the Strings and nodes of all graphs
+		Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+		List<String> strings = new ArrayList<String>();
+		Map<Node, Integer> nodeIndices = new IdentityHashMap<Node, Integer>();
+		List<Node> nodes = new ArrayList<Node>();
+		for (Graph graph : graphs) {
+			addString(graph.getId().getId(), stringIndices, strings);
+			addString(graph.getId().getLabel(), stringIndices, strings);
+			addStrings(graph.getAttributes(), stringIndices, strings);
+			for (String name : genericAttributes) {
+				addString(graph.getGenericNodeAttribute(name), stringIndices, strings);
+				addString(graph.getGenericEdgeAttribute(name), stringIndices, strings);
+				addString(graph.getGenericGraphAttribute(name), stringIndices, strings);
+			}
+			for (Node node : graph.getNodes(true)) {
+				addNode(node, nodeIndices, nodes, stringIndices, strings);
+			}
+			for (Edge edge : graph.getEdges()) {
+				addNode(edge.getSource().getNode(), nodeIndices, nodes, stringIndices, strings);
+				addNode(edge.getTarget().getNode(), nodeIndices, nodes, stringIndices, strings);
+				addString(edge.getSource().getPort(), stringIndices, strings);
+				addString(edge.getTarget().getPort(), stringIndices, strings);
+				addStrings(edge.getAttributes(), stringIndices, strings);
+			}
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(genericAttributes.length);
+		for (String name : genericAttributes) {
+			out.writeUTF(name);
+		}
+
+		out.writeInt(strings.size());
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		out.writeInt(nodes.size());
+		for (Node node : nodes) {
+			writeString(out, node.getId().getId(), stringIndices);
+			writeString(out, node.getId().getLabel(), stringIndices);
+			out.writeBoolean(node.isSubgraph());
+			writeAttributes(out, node.getAttributes(), stringIndices);
+		}
+
+		out.writeInt(graphs.size());
+		for (Graph graph : graphs) {
+			writeString(out, graph.getId().getId(), stringIndices);
+			writeString(out, graph.getId().getLabel(), stringIndices);
+			out.writeInt(graph.getType());
+			out.writeBoolean(graph.isStrict());
+			writeAttributes(out, graph.getAttributes(), stringIndices);
+			for (String name : genericAttributes) {
+				writeString(out, graph.getGenericNodeAttribute(name), stringIndices);
+				writeString(out, graph.getGenericEdgeAttribute(name), stringIndices);
+				writeString(out, graph.getGenericGraphAttribute(name), stringIndices);
+			}
+
+			ArrayList<Node> graphNodes = graph.getNodes(true);
+			out.writeInt(graphNodes.size());
+			for (Node node : graphNodes) {
+				out.writeInt(nodeIndices.get(node));
+			}
+
+			ArrayList<Edge> edges = graph.getEdges();
+			out.writeInt(edges.size());
+			for (Edge edge : edges) {
+				out.writeInt(nodeIndices.get(edge.getSource().getNode()));
+				out.writeInt(nodeIndices.get(edge.getTarget().getNode()));
+			}
+			for (Edge edge : edges) {
+				out.writeInt(edge.getType());
+				writeString(out, edge.getSource().getPort(), stringIndices);
+				writeString(out, edge.getTarget().getPort(), stringIndices);
+				writeAttributes(out, edge.getAttributes(), stringIndices);
+			}
+		}
+	}
+
+	/*
+	 * Reads an entry written by writeEntry(), returns null if it was written
+	 * by another format version or for other generic attributes
+	 */
+	private static ArrayList<Graph> readEntry(DataInputStream in, String[] genericAttributes) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("not a parse cache entry");
+		}
+		if (in.readInt() != FORMAT_VERSION) {
+			return null;
+		}
+		int genericCount = in.readInt();
+		if (genericCount != genericAttributes.length) {
+			return null;
+		}
+		for (String name : genericAttributes) {
+			if (!name.equals(in.readUTF())) {
+				return null;
+			}
+		}
+
+		String[] strings = new String[in.readInt()];
+		byte[] buffer = new byte[256];
+		for (int i = 0; i < strings.length; i++) {
+			int length = in.readInt();
+			if (length > buffer.length) {
+				buffer = new byte[Math.max(length, buffer.length * 2)];
+			}
+			in.readFully(buffer, 0, length);
+			strings[i] = new String(buffer, 0, length, UTF_8);
+		}
+
+		Node[] nodes = new Node[in.readInt()];
+		for (int i = 0; i < nodes.length; i++) {
+			Node node = new Node();
+			node.setId(readId(in, strings));
+			node.representsSubgraph(in.readBoolean());
+			int attributeCount = in.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				node.setAttribute(readString(in, strings), readString(in, strings));
+			}
+			nodes[i] = node;
+		}
+
+		int graphCount = in.readInt();
+		ArrayList<Graph> graphs = new ArrayList<Graph>(graphCount);
+		for (int i = 0; i < graphCount; i++) {
+			Graph graph = new Graph();
+			graph.setId(readId(in, strings));
+			graph.setType(in.readInt());
+			graph.setStrict(in.readBoolean());
+			int attributeCount = in.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				graph.addAttribute(readString(in, strings), readString(in, strings));
+			}
+			for (String name : genericAttributes) {
+				String nodeValue = readString(in, strings);
+				String edgeValue = readString(in, strings);
+				String graphValue = readString(in, strings);
+				if (nodeValue != null) {
+					graph.addGenericNodeAttribute(name, nodeValue);
+				}
+				if (edgeValue != null) {
+					graph.addGenericEdgeAttribute(name, edgeValue);
+				}
+				if (graphValue != null) {
+					graph.addGenericGraphAttribute(name, graphValue);
+				}
+			}
+
+			int[] graphNodes = readInts(in);
+			for (int node : graphNodes) {
+				graph.addNode(nodes[node]);
+			}
+
+			int edgeCount = in.readInt();
+			int[] ends = new int[2 * edgeCount];
+			for (int j = 0; j < ends.length; j++) {
+				ends[j] = in.readInt();
+			}
+			for (int j = 0; j < edgeCount; j++) {
+				int type = in.readInt();
+				PortNode source = readPortNode(in, strings, nodes[ends[2 * j]]);
+				PortNode target = readPortNode(in, strings, nodes[ends[2 * j + 1]]);
+				Edge edge = new Edge(source, target, type);
+				int edgeAttributeCount = in.readInt();
+				for (int k = 0; k < edgeAttributeCount; k++) {
+					edge.setAttribute(readString(in, strings), readString(in, strings));
+				}
+				graph.addEdge(edge);
+			}
+			graphs.add(graph);
+		}
+		return graphs;
+	}
+
+	private static void addNode(Node node, Map<Node, Integer> nodeIndices, List<Node> nodes,
+			Map<String, Integer> stringIndices, List<String> strings) {
+		if (nodeIndices.containsKey(node)) {
+			return;
+		}
+		nodeIndices.put(node, nodes.size());
+		nodes.add(node);
+		addString(node.getId().getId(), stringIndices, strings);
+		addString(node.getId().getLabel(), stringIndices, strings);
+		addStrings(node.getAttributes(), stringIndices, strings);
+	}
+
+	private static void addStrings(Map<String, String> attributes, Map<String, Integer> stringIndices, List<String> strings) {
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			addString(attribute.getKey(), stringIndices, strings);
+			addString(attribute.getValue(), stringIndices, strings);
+		}
+	}
+
+	private static void addString(String string, Map<String, Integer> stringIndices, List<String> strings) {
+		if (string != null && !stringIndices.containsKey(string)) {
+			stringIndices.put(string, strings.size());
+			strings.add(string);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string, Map<String, Integer> stringIndices) throws IOException {
+		out.writeInt((string == null) ? NULL_STRING : stringIndices.get(string));
+	}
+
+	private static void writeAttributes(DataOutputStream out, Map<String, String> attributes,
+			Map<String, Integer> stringIndices) throws IOException {
+		// sorted by key, so that the same attributes always give the same bytes
+		Map<String, String> sorted = new TreeMap<String, String>(attributes);
+		out.writeInt(sorted.size());
+		for (Map.Entry<String, String> attribute : sorted.entrySet()) {
+			writeString(out, attribute.getKey(), stringIndices);
+			writeString(out, attribute.getValue(), stringIndices);
+		}
+	}
+
+	private static String readString(DataInputStream in, String[] strings) throws IOException {
+		int index = in.readInt();
+		if (index == NULL_STRING) {
+			return null;
+		}
+		if (index < 0 || index >= strings.length) {
+			throw new IOException("bad string index " + index);
+		}
+		return strings[index];
+	}
+
+	private static Id readId(DataInputStream in, String[] strings) throws IOException {
+		Id id = new Id();
+		id.setId(readString(in, strings));
+		id.setLabel(readString(in, strings));
+		return id;
+	}
+
+	private static PortNode readPortNode(DataInputStream in, String[] strings, Node node) throws IOException {
+		PortNode portNode = new PortNode(node);
+		String port = readString(in, strings);
+		if (port != null) {
+			portNode.setPort(port);
+		}
+		return portNode;
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException {
+		int[] values = new int[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	private static void closeQuietly(Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				LOGGER.trace("Could not close parse cache stream: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package org.cytoscape.intern.read;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Id;
+import com.alexmerz.graphviz.objects.Node;
+import com.alexmerz.graphviz.objects.PortNode;
+
+/**
+ * Builds JPGD graphs from GraphViz "plain" and "plain-ext" output, the
+ * line based formats written by dot -Tplain and -Tplain-ext:
+ *
+ * graph scale width height
+ * node name x y width height label style shape color fillcolor
+ * edge tail head n x1 y1 ... xn yn [label xl yl] style color
+ * stop
+ *
+ * The lines are split on white space, keeping quoted strings and HTML
+ * labels whole, so the .dot parser is not needed. Coordinates are in
+ * inches and are converted to the points used by the pos attribute of .dot
+ * files, widths and heights stay in inches like the width and height
+ * attributes. plain-ext adds ports to the ends of edges as "name:port"
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class PlainFormatParser {
+
+	// JPGD way of representing directed graphs
+	private static final int DIRECTED = 2;
+
+	// points per inch
+	private static final double POINTS_PER_INCH = 72.0;
+
+	// number of fields of a node line
+	private static final int NODE_FIELDS = 11;
+
+	// fields of an edge line in front of its control points
+	private static final int EDGE_HEADER_FIELDS = 4;
+
+	/**
+	 * Parses plain or plain-ext output. Each graph ... stop block becomes a
+	 * Graph, the first named graphName and the following ones numbered
+	 *
+	 * @param text contents of the file
+	 * @param graphName name given to the graphs, the format has none
+	 * @return List of the Graphs of the file
+	 * @throws ParseException if a line is not a plain statement
+	 */
+	public static ArrayList<Graph> parse(String text, String graphName) throws ParseException {
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		Graph graph = null;
+		Map<String, Node> nodes = null;
+		int lineNumber = 0;
+		for (List<String> fields : splitLines(text)) {
+			lineNumber++;
+			if (fields.isEmpty()) {
+				continue;
+			}
+			String keyword = fields.get(0);
+			if (graph == null) {
+				if (!keyword.equals("graph")) {
+					throw error(lineNumber, "expected graph statement");
+				}
+				graph = new Graph();
+				Id graphId = new Id();
+				graphId.setId((graphs.isEmpty()) ? graphName : String.format("%s %d", graphName, graphs.size() + 1));
+				graph.setId(graphId);
+				// the format does not say whether the graph was directed
+				graph.setType(DIRECTED);
+				nodes = new HashMap<String, Node>();
+				continue;
+			}
+			switch (keyword) {
+				case "node":
+					readNode(graph, nodes, fields, lineNumber);
+					break;
+				case "edge":
+					readEdge(graph, nodes, fields, lineNumber);
+					break;
+				case "stop":
+					graphs.add(graph);
+					graph = null;
+					nodes = null;
+					break;
+				default:
+					throw error(lineNumber, "unknown statement " + keyword);
+			}
+		}
+		if (graph != null) {
+			// output that was cut off keeps the statements read so far
+			graphs.add(graph);
+		}
+		return graphs;
+	}
+
+	/*
+	 * Adds the node of a node line to graph
+	 */
+	private static void readNode(Graph graph, Map<String, Node> nodes, List<String> fields, int lineNumber)
+			throws ParseException {
+
+		if (fields.size() != NODE_FIELDS) {
+			throw error(lineNumber, String.format("node has %d fields instead of %d", fields.size(), NODE_FIELDS));
+		}
+		Node node = getNode(graph, nodes, fields.get(1));
+		node.setAttribute("pos", toPoint(fields.get(2), fields.get(3), lineNumber));
+		node.setAttribute("width", fields.get(4));
+		node.setAttribute("height", fields.get(5));
+		node.setAttribute("label", unquote(fields.get(6)));
+		node.setAttribute("style", unquote(fields.get(7)));
+		node.setAttribute("shape", unquote(fields.get(8)));
+		node.setAttribute("color", unquote(fields.get(9)));
+		node.setAttribute("fillcolor", unquote(fields.get(10)));
+	}
+
+	/*
+	 * Adds the edge of an edge line to graph, its control points become the
+	 * pos attribute
+	 */
+	private static void readEdge(Graph graph, Map<String, Node> nodes, List<String> fields, int lineNumber)
+			throws ParseException {
+
+		if (fields.size() < EDGE_HEADER_FIELDS) {
+			throw error(lineNumber, "edge is missing its control points");
+		}
+		int pointCount = toInt(fields.get(3), lineNumber);
+		int rest = fields.size() - EDGE_HEADER_FIELDS - 2 * pointCount;
+		// style and color, with label xl yl in front of them if labelled
+		if (pointCount < 0 || (rest != 2 && rest != 5)) {
+			throw error(lineNumber, "edge has the wrong number of fields");
+		}
+
+		Edge edge = new Edge(getPortNode(graph, nodes, fields.get(1)), getPortNode(graph, nodes, fields.get(2)), DIRECTED);
+		StringBuilder spline = new StringBuilder();
+		for (int i = 0; i < pointCount; i++) {
+			int x = EDGE_HEADER_FIELDS + 2 * i;
+			if (i > 0) {
+				spline.append(' ');
+			}
+			spline.append(toPoint(fields.get(x), fields.get(x + 1), lineNumber));
+		}
+		edge.setAttribute("pos", spline.toString());
+
+		int next = EDGE_HEADER_FIELDS + 2 * pointCount;
+		if (rest == 5) {
+			edge.setAttribute("label", unquote(fields.get(next)));
+			edge.setAttribute("lp", toPoint(fields.get(next + 1), fields.get(next + 2), lineNumber));
+			next += 3;
+		}
+		edge.setAttribute("style", unquote(fields.get(next)));
+		edge.setAttribute("color", unquote(fields.get(next + 1)));
+		graph.addEdge(edge);
+	}
+
+	/*
+	 * Returns the end of an edge, plain-ext adds its port after a colon
+	 */
+	private static PortNode getPortNode(Graph graph, Map<String, Node> nodes, String field) {
+		String name = field;
+		String port = null;
+		int colon = (field.startsWith("\"")) ? field.indexOf(':', endOfQuote(field) + 1) : field.indexOf(':');
+		if (colon > 0) {
+			name = field.substring(0, colon);
+			port = field.substring(colon + 1);
+		}
+		PortNode portNode = new PortNode(getNode(graph, nodes, name));
+		if (port != null) {
+			portNode.setPort(unquote(port));
+		}
+		return portNode;
+	}
+
+	/*
+	 * Returns the node named by field, adding it to graph the first time it
+	 * is named. Quoted names are stored like the .dot parser stores them, as
+	 * the label of the Id. A name quoted or not is the same node, as in .dot
+	 */
+	private static Node getNode(Graph graph, Map<String, Node> nodes, String field) {
+		String name = unquote(field);
+		Node node = nodes.get(name);
+		if (node == null) {
+			Id nodeId = new Id();
+			if (field.startsWith("\"")) {
+				nodeId.setLabel(unquote(field));
+			}
+			else {
+				nodeId.setId(field);
+			}
+			node = new Node();
+			node.setId(nodeId);
+			graph.addNode(node);
+			nodes.put(name, node);
+		}
+		return node;
+	}
+
+	/*
+	 * Returns "x,y" in points for a position in inches
+	 */
+	private static String toPoint(String x, String y, int lineNumber) throws ParseException {
+		try {
+			double xPoints = Double.parseDouble(x) * POINTS_PER_INCH;
+			double yPoints = Double.parseDouble(y) * POINTS_PER_INCH;
+			return String.format(Locale.US, "%.2f,%.2f", xPoints, yPoints);
+		}
+		catch (NumberFormatException e) {
+			throw error(lineNumber, String.format("%s,%s is not a position", x, y));
+		}
+	}
+
+	private static int toInt(String field, int lineNumber) throws ParseException {
+		try {
+			return Integer.parseInt(field);
+		}
+		catch (NumberFormatException e) {
+			throw error(lineNumber, field + " is not a number of points");
+		}
+	}
+
+	/*
+	 * Removes the quotes around a field. Escape sequences are kept, as the
+	 * .dot parser keeps them
+	 */
+	private static String unquote(String field) {
+		if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+			return field.substring(1, field.length() - 1);
+		}
+		return field;
+	}
+
+	/*
+	 * Returns the index of the quote closing the string opened at index 0
+	 */
+	private static int endOfQuote(String field) {
+		for (int i = 1; i < field.length(); i++) {
+			if (field.charAt(i) == '\\') {
+				i++;
+			}
+			else if (field.charAt(i) == '"') {
+				return i;
+			}
+		}
+		return field.length();
+	}
+
+	/*
+	 * Splits text into lines of fields. Quoted strings and <...> labels are
+	 * single fields, line breaks inside them do not end the line
+	 */
+	private static List<List<String>> splitLines(String text) {
+		List<List<String>> lines = new ArrayList<List<String>>();
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		int htmlDepth = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				field.append(c);
+				if (c == '\\' && i + 1 < text.length()) {
+					field.append(text.charAt(++i));
+				}
+				else if (c == '"') {
+					quoted = false;
+				}
+			}
+			else if (htmlDepth > 0) {
+				field.append(c);
+				if (c == '<') {
+					htmlDepth++;
+				}
+				else if (c == '>') {
+					htmlDepth--;
+				}
+			}
+			else if (c == '"') {
+				field.append(c);
+				quoted = true;
+			}
+			else if (c == '<' && field.length() == 0) {
+				field.append(c);
+				htmlDepth = 1;
+			}
+			else if (c == '\n' || c == '\r' || c == ' ' || c == '\t') {
+				if (field.length() > 0) {
+					fields.add(field.toString());
+					field.setLength(0);
+				}
+				if (c == '\n') {
+					lines.add(fields);
+					fields = new ArrayList<String>();
+				}
+			}
+			else {
+				field.append(c);
+			}
+		}
+		if (field.length() > 0) {
+			fields.add(field.toString());
+		}
+		lines.add(fields);
+		return lines;
+	}
+
+	private static ParseException error(int lineNumber, String message) {
+		return new ParseException(String.format("Line %d of plain file: %s", lineNumber, message));
+	}
+}
@@ -0,0 +1,107 @@
+package org.cytoscape.intern.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.intern.GradientListener;
+import org.cytoscape.io.CyFileFilter;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualStyleFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allows the input stream to be set for readers of GraphViz plain and
+ * plain-ext output. It is registered as a second reader next to the
+ * DotReaderFactory, which applies the VisualStyles of both
+ * 
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class PlainReaderFactory extends DotReaderFactory {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(PlainReaderFactory.class);
+
+	/**
+	 * Sets the PlainReaderFactory with associate fileFilter
+	 * 
+	 * @param fileFilter CyFileFilter associated with this factory
+	 * @param netViewFact CyNetworkViewFactory needed for PlainReaderTask
+	 * @param netFact CyNetworkFactory needed for PlainReaderTask
+	 * @param netMgr CyNetworkManager needed for PlainReaderTask
+	 * @param rootNetMgr CyRootNetworkManager needed for PlainReaderTask
+	 * @param vizMapMgr VisualMappingManager needed for PlainReaderTask
+	 * @param vizStyleFact VisualStyleFactory needed for PlainReaderTask
+	 * @param gradientListener GradientListener needed for PlainReaderTask
+	 * @param rendEngMgr RenderingEngineManager that contains the default
+	 * VisualLexicon needed for gradient support
+	 * @param bendFact BendFactory needed for PlainReaderTask
+	 * @param handleFact HandleFactory needed for PlainReaderTask
+	 * @param eventHelper CyEventHelper needed for PlainReaderTask
+	 * @param discreteMappingFact discrete VisualMappingFunctionFactory needed for PlainReaderTask
+	 */
+	public PlainReaderFactory(CyFileFilter fileFilter, CyNetworkViewFactory netViewFact,
+			CyNetworkFactory netFact, CyNetworkManager netMgr, CyRootNetworkManager rootNetMgr,
+			VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr,
+			BendFactory bendFact, HandleFactory handleFact, CyEventHelper eventHelper,
+			VisualMappingFunctionFactory discreteMappingFact) {
+
+		super(fileFilter, netViewFact, netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact, gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact, null);
+	}
+
+	/**
+	 * Returns a PlainReaderTask reading from an input stream
+	 * 
+	 * @param inStream The InputStream to be read
+	 * @param inputName The name of the input
+	 * 
+	 * @return PlainReaderTask reading inStream
+	 */
+	@Override
+	public DotReaderTask createReaderTask(InputStream inStream, String inputName) {
+		return new PlainReaderTask(inStream, netViewFact, netFact, netMgr, rootNetMgr, vizMapMgr,
+				vizStyleFact, gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact, inputName);
+	}
+
+	/**
+	 * Returns true if the factory is ready to produce a TaskIterator and false otherwise.
+	 * Inputs named *.plain or *.plain-ext are accepted, others if their first
+	 * line is a plain graph statement
+	 * 
+	 * @param inStream The InputStream to be read
+	 * @param inputName The name of the input
+	 * 
+	 * @return Boolean indicating the factory is ready to produce a TaskIterator
+	 */
+	@Override
+	public boolean isReady(InputStream inStream, String inputName) {
+		if (inStream == null) {
+			return false;
+		}
+		if (inputName != null && DotFormatSniffer.getExtension(inputName).matches("(?i)plain|plain-ext")) {
+			LOGGER.info("plain|plain-ext extension is matched");
+			return true;
+		}
+		try {
+			if (DotFormatSniffer.looksLikePlain(inStream)) {
+				LOGGER.info("GraphViz plain header is found in input");
+				return true;
+			}
+		}
+		catch (IOException e) {
+			LOGGER.warn("Could not check content of input: " + e.getMessage());
+		}
+		return false;
+	}
+}
@@ -0,0 +1,127 @@
+package org.cytoscape.intern.read;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.intern.GradientListener;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualStyleFactory;
+import org.cytoscape.work.util.ListSingleSelection;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.objects.Graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task object that reads GraphViz plain or plain-ext output into a network/
+ * network view. The file is split into lines by PlainFormatParser instead of
+ * being parsed as .dot, the graphs are then imported like those of a .dot file
+ * 
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class PlainReaderTask extends DotReaderTask {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(PlainReaderTask.class);
+
+	// the only layout choice, plain output always has node positions
+	private ListSingleSelection<String> noLayout = new ListSingleSelection<String>("No layout");
+
+	/**
+	 * Constructs a PlainReaderTask object for importing a plain file
+	 * 
+	 * @param inStream the stream to be read from
+	 * @param netViewFact instance of CyNetworkViewFactory
+	 * @param netFact instance of CyNetworkFactory
+	 * @param netMgr instance of CyNetworkManager
+	 * @param rootNetMgr instance of CyRootNetworkManager
+	 * @param vizMapMgr instance of VisualMappingManager
+	 * @param vizStyleFact instance of VisualStyleFactory
+	 * @param gradientListener GradientListener needed in order to create
+	 * gradients
+	 * @param rendEngMgr RenderingEngineManager that contains the default
+	 * VisualLexicon needed for gradient support
+	 * @param bendFact BendFactory needed to import edge splines
+	 * @param handleFact HandleFactory needed to import edge splines
+	 * @param eventHelper CyEventHelper used to batch view updates
+	 * @param discreteMappingFact VisualMappingFunctionFactory of discrete
+	 * mappings, null to import all values as bypasses
+	 * @param inputName name of the input, the path of the file if it is one
+	 */
+	public PlainReaderTask(InputStream inStream, CyNetworkViewFactory netViewFact,
+			CyNetworkFactory netFact, CyNetworkManager netMgr,
+			CyRootNetworkManager rootNetMgr, VisualMappingManager vizMapMgr, VisualStyleFactory vizStyleFact, GradientListener gradientListener, RenderingEngineManager rendEngMgr,
+			BendFactory bendFact, HandleFactory handleFact, CyEventHelper eventHelper,
+			VisualMappingFunctionFactory discreteMappingFact, String inputName) {
+
+		// splitting lines is cheaper than reading a cache entry
+		super(inStream, netViewFact, netFact, netMgr, rootNetMgr, vizMapMgr, vizStyleFact,
+				gradientListener, rendEngMgr, bendFact, handleFact, eventHelper, discreteMappingFact, null, inputName);
+	}
+
+	/**
+	 * Plain output has no graph names to select by, so all graphs are
+	 * imported. Overriding the getter hides the Tunable
+	 * 
+	 * @return empty String
+	 */
+	@Override
+	public String getGraphNames() {
+		return "";
+	}
+
+	/**
+	 * Plain output always has node positions, so graphs are not laid out.
+	 * Overriding the getter hides the Tunable
+	 * 
+	 * @return selection holding only "No layout"
+	 */
+	@Override
+	public ListSingleSelection<String> getLayouts() {
+		return noLayout;
+	}
+
+	/**
+	 * Builds the graphs of plain or plain-ext output
+	 * 
+	 * @param text contents of the file
+	 * @return List of the Graphs of the file
+	 * @throws ParseException if a line is not a plain statement
+	 */
+	@Override
+	protected ArrayList<Graph> parseGraphs(String text) throws ParseException {
+		LOGGER.info("Reading plain output...");
+		return PlainFormatParser.parse(text, getBaseName(getInputName()));
+	}
+
+	/**
+	 * Returns the file name of the input without its directory and extension
+	 * 
+	 * @param inputName name of the input, a path or a URI
+	 * @return base name of the input, "plain" if there is none
+	 */
+	private static String getBaseName(String inputName) {
+		if (inputName == null) {
+			return "plain";
+		}
+		String name = inputName.substring(Math.max(inputName.lastIndexOf('/'), inputName.lastIndexOf('\\')) + 1);
+		String extension = DotFormatSniffer.getExtension(name);
+		if (!extension.isEmpty()) {
+			name = name.substring(0, name.length() - extension.length() - 1);
+		}
+		return (name.isEmpty()) ? "plain" : name;
+	}
+}
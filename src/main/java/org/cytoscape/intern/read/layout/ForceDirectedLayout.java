@@ -0,0 +1,372 @@
+package org.cytoscape.intern.read.layout;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Force-directed (Fruchterman-Reingold) layout for graphs imported without
+ * node positions. Repulsion between all nodes is approximated with a
+ * Barnes-Hut quadtree, so an iteration takes O(n log n) instead of O(n^2).
+ * Nodes, edges and the quadtree are held in primitive arrays, and the
+ * forces on the nodes of each iteration are computed in parallel by a
+ * ForkJoinPool. Coordinates are in the points used by the pos attribute
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ForceDirectedLayout implements GraphLayout {
+
+	// ideal distance between neighboring nodes, in points
+	private static final double IDEAL_DISTANCE = 80.0;
+
+	// cells smaller than opening angle * distance are treated as one body
+	private static final double OPENING_ANGLE = 1.0;
+
+	// pull towards the center, keeps unconnected parts of the graph together
+	private static final double GRAVITY = 0.02;
+
+	// number of iterations for small graphs, large ones get fewer
+	private static final int MAX_ITERATIONS = 200;
+	private static final int MIN_ITERATIONS = 50;
+	private static final long ITERATION_BUDGET = 5000000L;
+
+	// nodes per fork-join task
+	private static final int TASK_SIZE = 512;
+
+	// cells are not split below this half size, nodes in them are merged
+	private static final double MIN_HALF_SIZE = 1e-3;
+
+	// distances below this are treated as this
+	private static final double MIN_DISTANCE = 0.01;
+
+	// deepest quadtree traversal stack needed, 3 cells are pushed per level
+	private static final int STACK_SIZE = 4 * 64;
+
+	private int nodeCount;
+
+	// neighbors of node i are adjacency[adjacencyStart[i], adjacencyStart[i + 1])
+	private int[] adjacencyStart;
+	private int[] adjacency;
+
+	// positions and displacements of the nodes
+	private double[] x;
+	private double[] y;
+	private double[] dispX;
+	private double[] dispY;
+
+	// quadtree cells: center, half size, mass, mass-weighted position sum,
+	// index of the first of 4 children (-1 for leaves) and body of leaves
+	private double[] cellX;
+	private double[] cellY;
+	private double[] cellHalf;
+	private double[] cellMass;
+	private double[] cellSumX;
+	private double[] cellSumY;
+	private int[] cellChild;
+	private int[] cellBody;
+	private int cellCount;
+
+	// center of the graph, the target of gravity
+	private double centerX;
+	private double centerY;
+
+	/**
+	 * Constructs the layout of a graph. Edges are undirected for the layout,
+	 * self loops are ignored
+	 *
+	 * @param nodeCount number of nodes, numbered from 0
+	 * @param sources source node of each edge
+	 * @param targets target node of each edge
+	 */
+	public ForceDirectedLayout(int nodeCount, int[] sources, int[] targets) {
+		this.nodeCount = nodeCount;
+
+		// compressed adjacency lists, both ends of each edge know the other
+		adjacencyStart = new int[nodeCount + 1];
+		for (int e = 0; e < sources.length; e++) {
+			if (sources[e] != targets[e]) {
+				adjacencyStart[sources[e] + 1]++;
+				adjacencyStart[targets[e] + 1]++;
+			}
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			adjacencyStart[i + 1] += adjacencyStart[i];
+		}
+		adjacency = new int[adjacencyStart[nodeCount]];
+		int[] fill = new int[nodeCount];
+		for (int e = 0; e < sources.length; e++) {
+			int source = sources[e];
+			int target = targets[e];
+			if (source != target) {
+				adjacency[adjacencyStart[source] + fill[source]++] = target;
+				adjacency[adjacencyStart[target] + fill[target]++] = source;
+			}
+		}
+
+		x = new double[nodeCount];
+		y = new double[nodeCount];
+		dispX = new double[nodeCount];
+		dispY = new double[nodeCount];
+		// each body splits at most one leaf per level, in practice ~2n cells
+		int capacity = 4 * nodeCount + 1;
+		cellX = new double[capacity];
+		cellY = new double[capacity];
+		cellHalf = new double[capacity];
+		cellMass = new double[capacity];
+		cellSumX = new double[capacity];
+		cellSumY = new double[capacity];
+		cellChild = new int[capacity];
+		cellBody = new int[capacity];
+	}
+
+	/**
+	 * Computes the positions of the nodes
+	 *
+	 * @param pool ForkJoinPool the forces are computed on
+	 */
+	@Override
+	public void run(ForkJoinPool pool) {
+		if (nodeCount == 0) {
+			return;
+		}
+		// nodes start at random places in a square that fits them all
+		Random random = new Random(nodeCount);
+		double side = IDEAL_DISTANCE * Math.sqrt(nodeCount);
+		double[] startX = new double[nodeCount];
+		double[] startY = new double[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			startX[i] = random.nextDouble() * side;
+			startY[i] = random.nextDouble() * side;
+		}
+		run(pool, startX, startY);
+	}
+
+	/**
+	 * Computes the positions of the nodes from the given start positions
+	 *
+	 * @param pool ForkJoinPool the forces are computed on
+	 * @param startX start x coordinate of each node
+	 * @param startY start y coordinate of each node
+	 */
+	void run(ForkJoinPool pool, double[] startX, double[] startY) {
+		System.arraycopy(startX, 0, x, 0, nodeCount);
+		System.arraycopy(startY, 0, y, 0, nodeCount);
+		double side = IDEAL_DISTANCE * Math.sqrt(nodeCount);
+		centerX = side / 2;
+		centerY = side / 2;
+
+		int iterations = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, ITERATION_BUDGET / nodeCount));
+		double startTemperature = side / 10;
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			// the largest step a node may take shrinks linearly to 0
+			double temperature = startTemperature * (1.0 - (double) iteration / iterations);
+			buildQuadtree();
+			pool.invoke(new ForceTask(0, nodeCount));
+			for (int i = 0; i < nodeCount; i++) {
+				double length = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+				if (length > 0) {
+					double step = Math.min(length, temperature);
+					x[i] += dispX[i] / length * step;
+					y[i] += dispY[i] / length * step;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node index of the node
+	 * @return x coordinate of the node in points
+	 */
+	@Override
+	public double getX(int node) {
+		return x[node];
+	}
+
+	/**
+	 * @param node index of the node
+	 * @return y coordinate of the node in points, increasing upwards like
+	 * GraphViz coordinates
+	 */
+	@Override
+	public double getY(int node) {
+		return y[node];
+	}
+
+	/*
+	 * Builds the quadtree of the current node positions
+	 */
+	private void buildQuadtree() {
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < nodeCount; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		cellCount = 0;
+		newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1);
+		for (int i = 0; i < nodeCount; i++) {
+			insert(i);
+		}
+	}
+
+	private int newCell(double centerX, double centerY, double half) {
+		int cell = cellCount++;
+		if (cell == cellChild.length) {
+			growCells();
+		}
+		cellX[cell] = centerX;
+		cellY[cell] = centerY;
+		cellHalf[cell] = half;
+		cellMass[cell] = 0;
+		cellSumX[cell] = 0;
+		cellSumY[cell] = 0;
+		cellChild[cell] = -1;
+		cellBody[cell] = -1;
+		return cell;
+	}
+
+	private void growCells() {
+		int capacity = 2 * cellChild.length;
+		cellX = Arrays.copyOf(cellX, capacity);
+		cellY = Arrays.copyOf(cellY, capacity);
+		cellHalf = Arrays.copyOf(cellHalf, capacity);
+		cellMass = Arrays.copyOf(cellMass, capacity);
+		cellSumX = Arrays.copyOf(cellSumX, capacity);
+		cellSumY = Arrays.copyOf(cellSumY, capacity);
+		cellChild = Arrays.copyOf(cellChild, capacity);
+		cellBody = Arrays.copyOf(cellBody, capacity);
+	}
+
+	/*
+	 * Adds node body to the quadtree
+	 */
+	private void insert(int body) {
+		int cell = 0;
+		while (true) {
+			if (cellChild[cell] < 0) {
+				if (cellMass[cell] == 0) {
+					cellBody[cell] = body;
+					addMass(cell, body);
+					return;
+				}
+				if (cellHalf[cell] < MIN_HALF_SIZE) {
+					// nodes at the same place are merged into one body
+					cellBody[cell] = -1;
+					addMass(cell, body);
+					return;
+				}
+				// split the leaf and move its body into a child
+				int old = cellBody[cell];
+				double half = cellHalf[cell] / 2;
+				int first = newCell(cellX[cell] - half, cellY[cell] - half, half);
+				newCell(cellX[cell] + half, cellY[cell] - half, half);
+				newCell(cellX[cell] - half, cellY[cell] + half, half);
+				newCell(cellX[cell] + half, cellY[cell] + half, half);
+				cellChild[cell] = first;
+				cellBody[cell] = -1;
+				int child = first + quadrant(cell, x[old], y[old]);
+				cellBody[child] = old;
+				cellMass[child] = cellMass[cell];
+				cellSumX[child] = cellSumX[cell];
+				cellSumY[child] = cellSumY[cell];
+			}
+			addMass(cell, body);
+			cell = cellChild[cell] + quadrant(cell, x[body], y[body]);
+		}
+	}
+
+	private void addMass(int cell, int body) {
+		cellMass[cell] += 1;
+		cellSumX[cell] += x[body];
+		cellSumY[cell] += y[body];
+	}
+
+	private int quadrant(int cell, double bodyX, double bodyY) {
+		return ((bodyX >= cellX[cell]) ? 1 : 0) + ((bodyY >= cellY[cell]) ? 2 : 0);
+	}
+
+	/*
+	 * Computes the displacement of the nodes in [start, end), splitting the
+	 * range until it is at most TASK_SIZE nodes
+	 */
+	private class ForceTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int start;
+		private int end;
+
+		ForceTask(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > TASK_SIZE) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new ForceTask(start, middle), new ForceTask(middle, end));
+				return;
+			}
+			int[] stack = new int[STACK_SIZE];
+			double squaredDistance = IDEAL_DISTANCE * IDEAL_DISTANCE;
+			for (int i = start; i < end; i++) {
+				double forceX = 0;
+				double forceY = 0;
+
+				// repulsion from all other nodes, distant cells as one body
+				int top = 0;
+				stack[top++] = 0;
+				while (top > 0) {
+					int cell = stack[--top];
+					if (cellMass[cell] == 0 || cellBody[cell] == i) {
+						continue;
+					}
+					double dx = x[i] - cellSumX[cell] / cellMass[cell];
+					double dy = y[i] - cellSumY[cell] / cellMass[cell];
+					double distance = Math.sqrt(dx * dx + dy * dy);
+					if (cellChild[cell] >= 0 && 2 * cellHalf[cell] >= OPENING_ANGLE * distance) {
+						int child = cellChild[cell];
+						stack[top++] = child;
+						stack[top++] = child + 1;
+						stack[top++] = child + 2;
+						stack[top++] = child + 3;
+						continue;
+					}
+					if (distance < MIN_DISTANCE) {
+						// push coinciding nodes apart in a direction fixed per node
+						dx = Math.cos(i);
+						dy = Math.sin(i);
+						distance = MIN_DISTANCE;
+					}
+					double force = squaredDistance * cellMass[cell] / distance;
+					forceX += dx / distance * force;
+					forceY += dy / distance * force;
+				}
+
+				// attraction along edges
+				for (int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+					int neighbor = adjacency[a];
+					double dx = x[i] - x[neighbor];
+					double dy = y[i] - y[neighbor];
+					double distance = Math.max(MIN_DISTANCE, Math.sqrt(dx * dx + dy * dy));
+					double force = distance * distance / IDEAL_DISTANCE;
+					forceX -= dx / distance * force;
+					forceY -= dy / distance * force;
+				}
+
+				forceX -= GRAVITY * (x[i] - centerX);
+				forceY -= GRAVITY * (y[i] - centerY);
+				dispX[i] = forceX;
+				dispY[i] = forceY;
+			}
+		}
+	}
+}
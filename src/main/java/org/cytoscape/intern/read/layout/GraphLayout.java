@@ -0,0 +1,34 @@
+package org.cytoscape.intern.read.layout;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Layout computed for a graph imported without node positions. Nodes are
+ * numbered from 0 and coordinates are in the points used by the pos attribute
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public interface GraphLayout {
+
+	/**
+	 * Computes the positions of the nodes
+	 *
+	 * @param pool ForkJoinPool the work is split on
+	 */
+	public void run(ForkJoinPool pool);
+
+	/**
+	 * @param node index of the node
+	 * @return x coordinate of the node in points
+	 */
+	public double getX(int node);
+
+	/**
+	 * @param node index of the node
+	 * @return y coordinate of the node in points, increasing upwards like
+	 * GraphViz coordinates
+	 */
+	public double getY(int node);
+}
@@ -0,0 +1,507 @@
+package org.cytoscape.intern.read.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Layered (Sugiyama-style) layout for directed graphs imported without node
+ * positions, drawn top to bottom like GraphViz dot:
+ *
+ * 1. cycles are broken by reversing the back edges of a depth-first search
+ * 2. nodes are layered by the longest path from a source
+ * 3. edges spanning several layers get a dummy node in each layer between.
+ *    The longest edges are left out of the ordering if they would add more
+ *    than DUMMY_BUDGET dummy nodes per edge
+ * 4. crossings are reduced by barycenter sweeps. Odd and even layers are
+ *    reordered in turn, all layers of one parity in parallel, since each
+ *    layer is ordered by its neighbors in the layers of the other parity
+ * 5. nodes are placed at the mean x of their neighbors, keeping their order
+ *    and spacing
+ *
+ * All steps work on primitive arrays
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class LayeredLayout implements GraphLayout {
+
+	// distance between the centers of nodes in a layer, in points
+	private static final double NODE_SPACING = 90.0;
+
+	// distance between layers, in points
+	private static final double LAYER_SPACING = 100.0;
+
+	// number of barycenter sweeps, each reorders all layers once
+	private static final int SWEEPS = 12;
+
+	// most dummy nodes added per edge of the graph
+	private static final int DUMMY_BUDGET = 4;
+
+	// number of passes that move nodes towards their neighbors
+	private static final int PLACEMENT_PASSES = 4;
+
+	// DFS colors
+	private static final byte WHITE = 0;
+	private static final byte GRAY = 1;
+	private static final byte BLACK = 2;
+
+	private int nodeCount;
+	private int[] sources;
+	private int[] targets;
+
+	// layer and position of real and dummy nodes, real nodes come first
+	private int[] layer;
+	private double[] x;
+
+	// neighbors of node v in the layer above are up[upStart[v], upStart[v + 1]),
+	// in the layer below down[downStart[v], downStart[v + 1])
+	private int[] upStart;
+	private int[] up;
+	private int[] downStart;
+	private int[] down;
+
+	// nodes of layer l in order are layerNodes[layerStart[l], layerStart[l + 1])
+	private int[] layerStart;
+	private int[] layerNodes;
+
+	// index of each node in its layer
+	private int[] order;
+
+	// barycenter of each node, the sort key of the sweeps
+	private double[] barycenters;
+
+	private int layerCount;
+
+	/**
+	 * Constructs the layout of a graph. Edges point from source to target,
+	 * self loops are ignored
+	 *
+	 * @param nodeCount number of nodes, numbered from 0
+	 * @param sources source node of each edge
+	 * @param targets target node of each edge
+	 */
+	public LayeredLayout(int nodeCount, int[] sources, int[] targets) {
+		this.nodeCount = nodeCount;
+		this.sources = sources;
+		this.targets = targets;
+	}
+
+	/**
+	 * Computes the positions of the nodes
+	 *
+	 * @param pool ForkJoinPool the layers are reordered on
+	 */
+	@Override
+	public void run(ForkJoinPool pool) {
+		if (nodeCount == 0) {
+			return;
+		}
+		boolean[] reversed = breakCycles();
+		int[] realLayers = assignLayers(reversed);
+		buildLayeredGraph(realLayers, reversed);
+		for (int sweep = 0; sweep < SWEEPS; sweep++) {
+			pool.invoke(new OrderTask(1));
+			pool.invoke(new OrderTask(0));
+		}
+		placeNodes();
+	}
+
+	/**
+	 * @param node index of the node
+	 * @return x coordinate of the node in points
+	 */
+	@Override
+	public double getX(int node) {
+		return x[node];
+	}
+
+	/**
+	 * @param node index of the node
+	 * @return y coordinate of the node in points, increasing upwards like
+	 * GraphViz coordinates
+	 */
+	@Override
+	public double getY(int node) {
+		return (layerCount - 1 - layer[node]) * LAYER_SPACING;
+	}
+
+	/*
+	 * Returns compressed adjacency lists of the edges leaving each node, as
+	 * {start, edges}. Edges in reversed point the other way
+	 */
+	private int[][] outEdges(boolean[] reversed) {
+		int[] start = new int[nodeCount + 1];
+		for (int e = 0; e < sources.length; e++) {
+			if (sources[e] != targets[e]) {
+				start[tail(e, reversed) + 1]++;
+			}
+		}
+		for (int v = 0; v < nodeCount; v++) {
+			start[v + 1] += start[v];
+		}
+		int[] edges = new int[start[nodeCount]];
+		int[] fill = new int[nodeCount];
+		for (int e = 0; e < sources.length; e++) {
+			if (sources[e] != targets[e]) {
+				int tail = tail(e, reversed);
+				edges[start[tail] + fill[tail]++] = e;
+			}
+		}
+		return new int[][] {start, edges};
+	}
+
+	private int tail(int edge, boolean[] reversed) {
+		return (reversed != null && reversed[edge]) ? targets[edge] : sources[edge];
+	}
+
+	private int head(int edge, boolean[] reversed) {
+		return (reversed != null && reversed[edge]) ? sources[edge] : targets[edge];
+	}
+
+	/*
+	 * Marks the edges that close a cycle in an iterative depth-first search,
+	 * reversing them makes the graph acyclic
+	 */
+	private boolean[] breakCycles() {
+		boolean[] reversed = new boolean[sources.length];
+		int[][] out = outEdges(null);
+		int[] start = out[0];
+		int[] edges = out[1];
+		byte[] color = new byte[nodeCount];
+		int[] stack = new int[nodeCount];
+		// next out edge to follow of each node on the stack
+		int[] next = new int[nodeCount];
+		for (int root = 0; root < nodeCount; root++) {
+			if (color[root] != WHITE) {
+				continue;
+			}
+			int top = 0;
+			stack[top++] = root;
+			color[root] = GRAY;
+			next[root] = start[root];
+			while (top > 0) {
+				int v = stack[top - 1];
+				if (next[v] == start[v + 1]) {
+					color[v] = BLACK;
+					top--;
+					continue;
+				}
+				int e = edges[next[v]++];
+				int w = targets[e];
+				if (color[w] == GRAY) {
+					reversed[e] = true;
+				}
+				else if (color[w] == WHITE) {
+					color[w] = GRAY;
+					next[w] = start[w];
+					stack[top++] = w;
+				}
+			}
+		}
+		return reversed;
+	}
+
+	/*
+	 * Returns the layer of each node, the length of the longest path from a
+	 * source to it
+	 */
+	private int[] assignLayers(boolean[] reversed) {
+		int[][] out = outEdges(reversed);
+		int[] start = out[0];
+		int[] edges = out[1];
+		int[] inDegree = new int[nodeCount];
+		for (int e : edges) {
+			inDegree[head(e, reversed)]++;
+		}
+		int[] queue = new int[nodeCount];
+		int tail = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			if (inDegree[v] == 0) {
+				queue[tail++] = v;
+			}
+		}
+		int[] layers = new int[nodeCount];
+		for (int headIndex = 0; headIndex < tail; headIndex++) {
+			int v = queue[headIndex];
+			for (int i = start[v]; i < start[v + 1]; i++) {
+				int w = head(edges[i], reversed);
+				layers[w] = Math.max(layers[w], layers[v] + 1);
+				if (--inDegree[w] == 0) {
+					queue[tail++] = w;
+				}
+			}
+		}
+		return layers;
+	}
+
+	/*
+	 * Splits edges into segments between neighboring layers, adding dummy
+	 * nodes, and builds the layers in their first order
+	 */
+	private void buildLayeredGraph(int[] realLayers, boolean[] reversed) {
+		int maxSpan = getMaxSpan(realLayers);
+
+		// count the dummy nodes first, so the arrays are allocated once
+		int dummyCount = 0;
+		int segmentCount = 0;
+		for (int e = 0; e < sources.length; e++) {
+			int span = Math.abs(realLayers[targets[e]] - realLayers[sources[e]]);
+			if (sources[e] != targets[e] && span <= maxSpan) {
+				dummyCount += span - 1;
+				segmentCount += span;
+			}
+		}
+		int totalCount = nodeCount + dummyCount;
+		layer = new int[totalCount];
+		System.arraycopy(realLayers, 0, layer, 0, nodeCount);
+		int[] segmentUpper = new int[segmentCount];
+		int[] segmentLower = new int[segmentCount];
+		int segment = 0;
+		int dummy = nodeCount;
+		for (int e = 0; e < sources.length; e++) {
+			if (sources[e] == targets[e] || Math.abs(realLayers[targets[e]] - realLayers[sources[e]]) > maxSpan) {
+				continue;
+			}
+			int upper = tail(e, reversed);
+			int lower = head(e, reversed);
+			for (int l = layer[upper] + 1; l < layer[lower]; l++) {
+				layer[dummy] = l;
+				segmentUpper[segment] = upper;
+				segmentLower[segment] = dummy;
+				segment++;
+				upper = dummy++;
+			}
+			segmentUpper[segment] = upper;
+			segmentLower[segment] = lower;
+			segment++;
+		}
+
+		upStart = new int[totalCount + 1];
+		downStart = new int[totalCount + 1];
+		for (int s = 0; s < segmentCount; s++) {
+			upStart[segmentLower[s] + 1]++;
+			downStart[segmentUpper[s] + 1]++;
+		}
+		for (int v = 0; v < totalCount; v++) {
+			upStart[v + 1] += upStart[v];
+			downStart[v + 1] += downStart[v];
+		}
+		up = new int[segmentCount];
+		down = new int[segmentCount];
+		int[] upFill = new int[totalCount];
+		int[] downFill = new int[totalCount];
+		for (int s = 0; s < segmentCount; s++) {
+			up[upStart[segmentLower[s]] + upFill[segmentLower[s]]++] = segmentUpper[s];
+			down[downStart[segmentUpper[s]] + downFill[segmentUpper[s]]++] = segmentLower[s];
+		}
+
+		// layers start in node order
+		layerCount = 0;
+		for (int v = 0; v < totalCount; v++) {
+			layerCount = Math.max(layerCount, layer[v] + 1);
+		}
+		layerStart = new int[layerCount + 1];
+		for (int v = 0; v < totalCount; v++) {
+			layerStart[layer[v] + 1]++;
+		}
+		for (int l = 0; l < layerCount; l++) {
+			layerStart[l + 1] += layerStart[l];
+		}
+		layerNodes = new int[totalCount];
+		order = new int[totalCount];
+		int[] fill = new int[layerCount];
+		for (int v = 0; v < totalCount; v++) {
+			int index = fill[layer[v]]++;
+			layerNodes[layerStart[layer[v]] + index] = v;
+			order[v] = index;
+		}
+		barycenters = new double[totalCount];
+		x = new double[totalCount];
+	}
+
+	/*
+	 * Returns the longest span of the edges that get dummy nodes, the largest
+	 * one for which the dummy nodes stay within DUMMY_BUDGET per edge
+	 */
+	private int getMaxSpan(int[] realLayers) {
+		int[] spanCounts = new int[nodeCount + 1];
+		for (int e = 0; e < sources.length; e++) {
+			spanCounts[Math.abs(realLayers[targets[e]] - realLayers[sources[e]])]++;
+		}
+		long budget = (long) DUMMY_BUDGET * sources.length;
+		long dummyCount = 0;
+		for (int span = 2; span <= nodeCount; span++) {
+			dummyCount += (long) spanCounts[span] * (span - 1);
+			if (dummyCount > budget) {
+				return span - 1;
+			}
+		}
+		return nodeCount;
+	}
+
+	/*
+	 * Reorders the layers of one parity by the barycenters of their nodes,
+	 * one task per layer
+	 */
+	private class OrderTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int parity;
+
+		OrderTask(int parity) {
+			this.parity = parity;
+		}
+
+		@Override
+		protected void compute() {
+			List<LayerTask> tasks = new ArrayList<LayerTask>();
+			for (int l = parity; l < layerCount; l += 2) {
+				tasks.add(new LayerTask(l));
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	private class LayerTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int layerIndex;
+
+		LayerTask(int layerIndex) {
+			this.layerIndex = layerIndex;
+		}
+
+		@Override
+		protected void compute() {
+			orderLayer(layerIndex);
+		}
+	}
+
+	/*
+	 * Sorts a layer by the mean relative position of the neighbors of its
+	 * nodes in the layers above and below. Only those layers are read, so
+	 * layers of the same parity can be ordered at the same time
+	 */
+	private void orderLayer(int l) {
+		int first = layerStart[l];
+		int end = layerStart[l + 1];
+		int size = end - first;
+		for (int i = first; i < end; i++) {
+			int v = layerNodes[i];
+			double sum = 0;
+			int count = 0;
+			for (int a = upStart[v]; a < upStart[v + 1]; a++) {
+				sum += relativeOrder(up[a]);
+				count++;
+			}
+			for (int a = downStart[v]; a < downStart[v + 1]; a++) {
+				sum += relativeOrder(down[a]);
+				count++;
+			}
+			// nodes without neighbors keep their place
+			barycenters[v] = (count > 0) ? sum / count : (order[v] + 0.5) / size;
+		}
+		sortByBarycenter(first, end, new int[size]);
+		for (int i = first; i < end; i++) {
+			order[layerNodes[i]] = i - first;
+		}
+	}
+
+	/*
+	 * Returns the position of a node in its layer, from 0 to 1, so layers of
+	 * different sizes can be compared
+	 */
+	private double relativeOrder(int v) {
+		int size = layerStart[layer[v] + 1] - layerStart[layer[v]];
+		return (order[v] + 0.5) / size;
+	}
+
+	/*
+	 * Stable merge sort of layerNodes[first, end) by barycenter
+	 */
+	private void sortByBarycenter(int first, int end, int[] buffer) {
+		if (end - first < 2) {
+			return;
+		}
+		int middle = (first + end) >>> 1;
+		sortByBarycenter(first, middle, buffer);
+		sortByBarycenter(middle, end, buffer);
+		int left = first;
+		int right = middle;
+		int out = 0;
+		while (left < middle && right < end) {
+			if (barycenters[layerNodes[right]] < barycenters[layerNodes[left]]) {
+				buffer[out++] = layerNodes[right++];
+			}
+			else {
+				buffer[out++] = layerNodes[left++];
+			}
+		}
+		while (left < middle) {
+			buffer[out++] = layerNodes[left++];
+		}
+		while (right < end) {
+			buffer[out++] = layerNodes[right++];
+		}
+		System.arraycopy(buffer, 0, layerNodes, first, out);
+	}
+
+	/*
+	 * Sets x of all nodes. Layers start centered, then each pass moves the
+	 * nodes of a layer to the mean x of their neighbors in the layer placed
+	 * before it, keeping order and spacing
+	 */
+	private void placeNodes() {
+		for (int l = 0; l < layerCount; l++) {
+			int size = layerStart[l + 1] - layerStart[l];
+			for (int i = layerStart[l]; i < layerStart[l + 1]; i++) {
+				x[layerNodes[i]] = (i - layerStart[l] - (size - 1) / 2.0) * NODE_SPACING;
+			}
+		}
+		for (int pass = 0; pass < PLACEMENT_PASSES; pass++) {
+			boolean downwards = pass % 2 == 0;
+			for (int step = 1; step < layerCount; step++) {
+				int l = (downwards) ? step : layerCount - 1 - step;
+				placeLayer(l, downwards);
+			}
+		}
+	}
+
+	private void placeLayer(int l, boolean fromAbove) {
+		int first = layerStart[l];
+		int end = layerStart[l + 1];
+		double[] wanted = new double[end - first];
+		double wantedSum = 0;
+		for (int i = first; i < end; i++) {
+			int v = layerNodes[i];
+			int[] neighbors = (fromAbove) ? up : down;
+			int from = (fromAbove) ? upStart[v] : downStart[v];
+			int to = (fromAbove) ? upStart[v + 1] : downStart[v + 1];
+			double sum = 0;
+			for (int a = from; a < to; a++) {
+				sum += x[neighbors[a]];
+			}
+			wanted[i - first] = (to > from) ? sum / (to - from) : x[v];
+			wantedSum += wanted[i - first];
+		}
+		// left to right, each node as close to its wish as spacing allows
+		double placedSum = 0;
+		double previous = -Double.MAX_VALUE;
+		for (int i = first; i < end; i++) {
+			double placed = Math.max(wanted[i - first], previous + NODE_SPACING);
+			x[layerNodes[i]] = placed;
+			placedSum += placed;
+			previous = placed;
+		}
+		// spacing pushes nodes right, the layer is moved back by the mean shift
+		double shift = (wantedSum - placedSum) / (end - first);
+		for (int i = first; i < end; i++) {
+			x[layerNodes[i]] += shift;
+		}
+	}
+}
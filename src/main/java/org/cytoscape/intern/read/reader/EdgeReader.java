@@ -1,5 +1,6 @@
 package org.cytoscape.intern.read.reader;
 
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_BEND;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_COLOR;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_FONT_FACE;
@@ -17,6 +18,7 @@ import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_W
 
 import java.awt.Color;
 import java.awt.Font;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +36,11 @@ import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.RenderingEngineManager;
 import org.cytoscape.view.presentation.property.ArrowShapeVisualProperty;
 import org.cytoscape.view.presentation.property.values.ArrowShape;
+import org.cytoscape.view.presentation.property.values.Bend;
+import org.cytoscape.view.presentation.property.values.BendFactory;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
 import org.cytoscape.view.presentation.property.values.LineType;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualStyle;
 
 import com.alexmerz.graphviz.objects.Edge;
@@ -79,8 +85,22 @@ public class EdgeReader extends Reader{
 		DOT_TO_CYTOSCAPE.put("arrowtail", EDGE_SOURCE_ARROW_SHAPE);
 		DOT_TO_CYTOSCAPE.put("tooltip", EDGE_TOOLTIP);
 	}
+	// distance in points from the chord under which a spline segment is drawn straight
+	private static final double FLATNESS = 1.0;
+
 	// reference default CyEdge table for network from networkView
 	CyTable edgeTable;
+
+	// create the bends that keep the routing of edges with a pos spline
+	private BendFactory bendFact;
+	private HandleFactory handleFact;
+
+	// edges with a pos spline and their pos values, bent once all are read
+	private List<View<CyEdge>> splineEdgeViews;
+	private List<String> splines;
+
+	// x and y of the control points of the spline being read, reused for every edge
+	private double[] splineCoords = new double[32];
 	
 	/**
 	 * Constructs an object of type Reader.
@@ -93,12 +113,22 @@ public class EdgeReader extends Reader{
 	 * VisualLexicon needed for gradient support
 	 * @param elementMap Map where keys are JPGD node objects and Values 
 	 * are corresponding Cytoscape CyNodes
+	 * @param bendFact BendFactory used to create edge bends from pos splines
+	 * @param handleFact HandleFactory used to create the handles of the bends
+	 * @param discreteMappingFact VisualMappingFunctionFactory of discrete
+	 * mappings used for values shared by many edges, null to bypass all values
 	 */
 	public EdgeReader(CyNetworkView networkView, VisualStyle vizStyle, Map<String, String> defaultAttrs, 
-			RenderingEngineManager rendEngMgr, Map<Edge, CyEdge> elementMap) {
+			RenderingEngineManager rendEngMgr, Map<Edge, CyEdge> elementMap, BendFactory bendFact,
+			HandleFactory handleFact, VisualMappingFunctionFactory discreteMappingFact) {
 		
 		super(networkView, vizStyle, defaultAttrs, rendEngMgr);
 		this.elementMap = elementMap;
+		this.bendFact = bendFact;
+		this.handleFact = handleFact;
+		this.discreteMappingFact = discreteMappingFact;
+		splineEdgeViews = new ArrayList<View<CyEdge>>();
+		splines = new ArrayList<String>();
 		
 		edgeTable = networkView.getModel().getDefaultEdgeTable();
 
@@ -116,7 +146,7 @@ public class EdgeReader extends Reader{
 		//get the current row and put the weight into the row
 		LOGGER.trace("Setting weight attribute for edge");
 		CyRow currentRow = edgeTable.getRow(elementView.getModel().getSUID());
-		currentRow.set("weight", new Double(Double.parseDouble(weight)));
+		currentRow.set("weight", ValueScanner.parseDouble(weight));
 	}
 
 	/**
@@ -150,7 +180,7 @@ public class EdgeReader extends Reader{
 				break;
 			}
 			case "penwidth": {
-				retrievedVal = Double.parseDouble(val);
+				retrievedVal = ValueScanner.parseDouble(val);
 				break;
 			}
 			case "fontname": {
@@ -207,6 +237,12 @@ public class EdgeReader extends Reader{
 					setWeight(attrVal, elementView);
 					continue;
 				}
+				if (attrKey.equals("pos")) {
+					// bends are made after all edges are read
+					splineEdgeViews.add(elementView);
+					splines.add(attrVal);
+					continue;
+				}
 				if (attrKey.equals("color") || attrKey.equals("fillcolor")
 						|| attrKey.equals("fontcolor")) {
 					switch (attrKey) {
@@ -244,9 +280,142 @@ public class EdgeReader extends Reader{
 				}
 				LOGGER.trace("Updating Visual Style...");
 				LOGGER.debug(String.format("Setting Visual Property %S...", vizProp));
-				elementView.setLockedValue(vizProp, val);
+				stageLockedValue(elementView, vizProp, val);
+			}
+		}
+		setBends();
+	}
+
+	/**
+	 * Turns the pos splines of the edges read by setBypasses() into edge
+	 * bends. Node positions must already be set, since handles are placed
+	 * relative to the ends of their edge
+	 */
+	private void setBends() {
+		if (splines.isEmpty()) {
+			return;
+		}
+		if (bendFact == null || handleFact == null) {
+			LOGGER.warn("Edge bends are not available, edge routing is not imported");
+			return;
+		}
+		LOGGER.info(String.format("Setting bends of %d edges...", splines.size()));
+		double[] handles = new double[32];
+		for (int i = 0; i < splines.size(); i++) {
+			int pointCount;
+			try {
+				pointCount = scanSpline(splines.get(i));
+			}
+			catch (NumberFormatException e) {
+				LOGGER.warn(String.format("Could not read edge pos \"%s\"", splines.get(i)));
+				continue;
+			}
+			// a cubic B-spline has 3n + 1 control points
+			if (pointCount < 4) {
+				continue;
+			}
+			int segmentCount = (pointCount - 1) / 3;
+			if (handles.length < 4 * segmentCount) {
+				handles = new double[4 * segmentCount];
+			}
+
+			// each segment is bent at its middle, unless it is flat, and
+			// segments are joined at their shared end points
+			int handleCoords = 0;
+			for (int segment = 0; segment < segmentCount; segment++) {
+				int p = 6 * segment;
+				double x0 = splineCoords[p], y0 = splineCoords[p + 1];
+				double x1 = splineCoords[p + 2], y1 = splineCoords[p + 3];
+				double x2 = splineCoords[p + 4], y2 = splineCoords[p + 5];
+				double x3 = splineCoords[p + 6], y3 = splineCoords[p + 7];
+				if (!isFlat(x0, y0, x1, y1, x2, y2, x3, y3)) {
+					handles[handleCoords++] = (x0 + 3 * x1 + 3 * x2 + x3) / 8;
+					handles[handleCoords++] = (y0 + 3 * y1 + 3 * y2 + y3) / 8;
+				}
+				if (segment < segmentCount - 1) {
+					handles[handleCoords++] = x3;
+					handles[handleCoords++] = y3;
+				}
+			}
+			if (handleCoords == 0) {
+				continue;
+			}
+
+			View<CyEdge> elementView = splineEdgeViews.get(i);
+			Bend bend = bendFact.createBend();
+			for (int h = 0; h < handleCoords; h += 2) {
+				//Y coordinate is different between GraphViz and Java.
+				bend.insertHandleAt(h / 2, handleFact.createHandle(networkView, elementView, handles[h], -handles[h + 1]));
+			}
+			stageLockedValue(elementView, EDGE_BEND, bend);
+		}
+	}
+
+	/*
+	 * Returns whether both inner control points of a cubic segment are within
+	 * FLATNESS of the line between its ends
+	 */
+	private static boolean isFlat(double x0, double y0, double x1, double y1,
+			double x2, double y2, double x3, double y3) {
+		double dx = x3 - x0;
+		double dy = y3 - y0;
+		double length = Math.sqrt(dx * dx + dy * dy);
+		if (length == 0) {
+			return Math.abs(x1 - x0) + Math.abs(y1 - y0) + Math.abs(x2 - x0) + Math.abs(y2 - y0) <= FLATNESS;
+		}
+		double distance1 = Math.abs((x1 - x0) * dy - (y1 - y0) * dx) / length;
+		double distance2 = Math.abs((x2 - x0) * dy - (y2 - y0) * dx) / length;
+		return distance1 <= FLATNESS && distance2 <= FLATNESS;
+	}
+
+	/**
+	 * Reads the control points of an edge pos into splineCoords. pos is
+	 * "[e,x,y] [s,x,y] x1,y1 x2,y2 ...", the arrow end points are skipped and
+	 * only the first spline of a ';' separated list is read
+	 * 
+	 * @param pos value of the pos attribute
+	 * @return number of control points read
+	 * @throws NumberFormatException if a coordinate is not a number
+	 */
+	private int scanSpline(String pos) {
+		int length = pos.indexOf(';');
+		if (length < 0) {
+			length = pos.length();
+		}
+		int pointCount = 0;
+		int i = 0;
+		while (i < length) {
+			char c = pos.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+			int pointEnd = i;
+			while (pointEnd < length && !Character.isWhitespace(pos.charAt(pointEnd))) {
+				pointEnd++;
+			}
+			if ((c == 'e' || c == 's') && i + 1 < pointEnd && pos.charAt(i + 1) == ',') {
+				// arrow end point
+				i = pointEnd;
+				continue;
+			}
+			int comma = pos.indexOf(',', i);
+			if (comma < 0 || comma >= pointEnd) {
+				throw new NumberFormatException("point without y: " + pos.substring(i, pointEnd));
+			}
+			if (splineCoords.length < 2 * pointCount + 2) {
+				double[] grown = new double[2 * splineCoords.length];
+				System.arraycopy(splineCoords, 0, grown, 0, splineCoords.length);
+				splineCoords = grown;
 			}
+			splineCoords[2 * pointCount] = ValueScanner.parseDouble(pos, i, comma);
+			// a third coordinate, as in "x,y,z", is ignored
+			int yEnd = Math.min(ValueScanner.endOfListNumber(pos, comma + 1), pointEnd);
+			splineCoords[2 * pointCount + 1] = ValueScanner.parseDouble(pos, comma + 1, yEnd);
+			pointCount++;
+			i = pointEnd;
 		}
+		return pointCount;
 	}
 
 	/**
@@ -281,13 +450,13 @@ public class EdgeReader extends Reader{
 
 		switch (attr) {
 			case COLOR: {
-				elementView.setLockedValue(EDGE_UNSELECTED_PAINT, color);
-				elementView.setLockedValue(EDGE_TRANSPARENCY, transparency);
+				stageLockedValue(elementView, EDGE_UNSELECTED_PAINT, color);
+				stageLockedValue(elementView, EDGE_TRANSPARENCY, transparency);
 				break;
 			}
 			case FONTCOLOR: {
-				elementView.setLockedValue(EDGE_LABEL_COLOR, color);
-				elementView.setLockedValue(EDGE_LABEL_TRANSPARENCY, transparency);
+				stageLockedValue(elementView, EDGE_LABEL_COLOR, color);
+				stageLockedValue(elementView, EDGE_LABEL_TRANSPARENCY, transparency);
 				break;
 			}
 			default: {
@@ -389,18 +558,18 @@ public class EdgeReader extends Reader{
 			
 			// set line type if defined
 			if (lineType != null) {
-				elementView.setLockedValue(EDGE_LINE_TYPE, lineType);
+				stageLockedValue(elementView, EDGE_LINE_TYPE, lineType);
 			}
 		}
 		// check if invisible is enabled
 		if( attrVal.contains("invis") ) {
 			if (isVisibleDefault) {
-				elementView.setLockedValue(EDGE_VISIBLE, false);
+				stageLockedValue(elementView, EDGE_VISIBLE, false);
 			}
 		}
 		else {
 			if (!isVisibleDefault) {
-				elementView.setLockedValue(EDGE_VISIBLE, true);
+				stageLockedValue(elementView, EDGE_VISIBLE, true);
 			}
 		}
 	}
@@ -41,6 +41,7 @@ import org.cytoscape.view.presentation.customgraphics.CyCustomGraphics2Factory;
 import org.cytoscape.view.presentation.property.NodeShapeVisualProperty;
 import org.cytoscape.view.presentation.property.values.LineType;
 import org.cytoscape.view.presentation.property.values.NodeShape;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualStyle;
 
 import com.alexmerz.graphviz.objects.Node;
@@ -105,11 +106,15 @@ public class NodeReader extends Reader{
 	 * VisualLexicon needed for gradient support
 	 * @param elementMap Map where keys are JPGD node objects and Values are corresponding Cytoscape CyNodes
 	 * @param gradientListener ServiceListener used to get Gradient Factories
+	 * @param discreteMappingFact VisualMappingFunctionFactory of discrete
+	 * mappings used for values shared by many nodes, null to bypass all values
 	 */
-	public NodeReader(CyNetworkView networkView, VisualStyle vizStyle, Map<String, String> defaultAttrs, RenderingEngineManager rendEngMgr, Map<Node, CyNode> elementMap, GradientListener gradientListener) {
+	public NodeReader(CyNetworkView networkView, VisualStyle vizStyle, Map<String, String> defaultAttrs, RenderingEngineManager rendEngMgr, Map<Node, CyNode> elementMap, GradientListener gradientListener,
+			VisualMappingFunctionFactory discreteMappingFact) {
 		super(networkView, vizStyle, defaultAttrs, rendEngMgr);
 		this.elementMap = elementMap;
 		this.gradientListener = gradientListener;
+		this.discreteMappingFact = discreteMappingFact;
 	}
 	
 	/**
@@ -207,7 +212,7 @@ public class NodeReader extends Reader{
 			gradientProps.put("cy_center", point);
 		}
 
-		elementView.setLockedValue(nodeGradientProp, factory.getInstance(gradientProps));
+		stageLockedValue(elementView, nodeGradientProp, factory.getInstance(gradientProps));
 	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
@@ -299,15 +304,17 @@ public class NodeReader extends Reader{
 	 * @param elementView 
 	 */
 	private void setPositions(String attrVal, View<CyNode> elementView) {
-		String[] coords = attrVal.split(",");
-		Double x = Double.parseDouble(coords[0]);
+		// pos is "x,y", optionally followed by ",z" and/or "!" for pinned nodes
+		int xEnd = ValueScanner.endOfListNumber(attrVal, 0);
+		int yEnd = ValueScanner.endOfListNumber(attrVal, xEnd + 1);
+		Double x = ValueScanner.parseDouble(attrVal, 0, xEnd);
 		
 		//Y coordinate is different between GraphViz and Java.
-		Double y = -1 * Double.parseDouble(coords[1]);
+		Double y = -1 * ValueScanner.parseDouble(attrVal, xEnd + 1, yEnd);
 
 		//Position attributes are not set with bypasses.
-		elementView.setVisualProperty(NODE_X_LOCATION, x);
-		elementView.setVisualProperty(NODE_Y_LOCATION, y);
+		stageVisualProperty(elementView, NODE_X_LOCATION, x);
+		stageVisualProperty(elementView, NODE_Y_LOCATION, y);
 	}
 
 	/**
@@ -340,14 +347,14 @@ public class NodeReader extends Reader{
 				break;
 			}
 			case "penwidth": {
-				retrievedVal = Double.parseDouble(val);
+				retrievedVal = ValueScanner.parseDouble(val);
 				break;
 			}
 			case "width": {
 				//Fall through to height case
 			}
 			case "height": {
-				retrievedVal = Double.parseDouble(val) * 72.0;
+				retrievedVal = ValueScanner.parseDouble(val) * 72.0;
 				break;
 			}
 			case "shape": {
@@ -450,7 +457,7 @@ public class NodeReader extends Reader{
 				}
 				LOGGER.trace("Updating Visual Style...");
 				LOGGER.debug(String.format("Setting Visual Property %s...", vizProp));
-				elementView.setLockedValue(vizProp, val);
+				stageLockedValue(elementView, vizProp, val);
 			}
 			
 			//Handle gradient creation and color setting now
@@ -559,8 +566,8 @@ public class NodeReader extends Reader{
 
 		switch (attr) {
 			case COLOR: {
-				elementView.setLockedValue(NODE_BORDER_PAINT, color);
-				elementView.setLockedValue(NODE_BORDER_TRANSPARENCY, transparency);
+				stageLockedValue(elementView, NODE_BORDER_PAINT, color);
+				stageLockedValue(elementView, NODE_BORDER_TRANSPARENCY, transparency);
 
 				//fillcolor has already been applied, should not redo
 				//with color attribute
@@ -575,13 +582,13 @@ public class NodeReader extends Reader{
 			 */
 			}
 			case FILLCOLOR: {
-				elementView.setLockedValue(NODE_FILL_COLOR, color);
-				elementView.setLockedValue(NODE_TRANSPARENCY, transparency);
+				stageLockedValue(elementView, NODE_FILL_COLOR, color);
+				stageLockedValue(elementView, NODE_TRANSPARENCY, transparency);
 				break;
 			}
 			case FONTCOLOR: {
-				elementView.setLockedValue(NODE_LABEL_COLOR, color);
-				elementView.setLockedValue(NODE_LABEL_TRANSPARENCY, transparency);
+				stageLockedValue(elementView, NODE_LABEL_COLOR, color);
+				stageLockedValue(elementView, NODE_LABEL_TRANSPARENCY, transparency);
 				break;
 			}
 			default: {
@@ -708,33 +715,33 @@ public class NodeReader extends Reader{
 
 			LineType lineType = LINE_TYPE_MAP.get(styleAttr);
 			if (lineType != null && !lineType.equals(defaultLineType)) {
-				elementView.setLockedValue(NODE_BORDER_LINE_TYPE, lineType);
+				stageLockedValue(elementView, NODE_BORDER_LINE_TYPE, lineType);
 			}
 		}
 		
 		// check if rounded rectangle and set
-		NodeShape elementShape = elementView.getVisualProperty(NODE_SHAPE);
+		NodeShape elementShape = getStagedValue(elementView, NODE_SHAPE);
 		NodeShape defaultShape = vizStyle.getDefaultValue(NODE_SHAPE);
 		if (attrVal.contains("rounded") && 
 				elementShape.equals(NodeShapeVisualProperty.RECTANGLE)) {
 			if (!elementShape.equals(defaultShape)) {
-				elementView.setLockedValue(NODE_SHAPE, NodeShapeVisualProperty.ROUND_RECTANGLE);
+				stageLockedValue(elementView, NODE_SHAPE, NodeShapeVisualProperty.ROUND_RECTANGLE);
 			}
 		}
 		// check if invisible is enabled
 		if( attrVal.contains("invis") ) {
 			if (isVisibleDefault) {
-				elementView.setLockedValue(NODE_VISIBLE, false);
+				stageLockedValue(elementView, NODE_VISIBLE, false);
 			}
 		}
 		else {
 			if (!isVisibleDefault) {
-				elementView.setLockedValue(NODE_VISIBLE, true);
+				stageLockedValue(elementView, NODE_VISIBLE, true);
 			}
 		}
 		// if node is not filled
 		if(!attrVal.contains("filled")) {
-			elementView.setLockedValue(NODE_TRANSPARENCY, 0);
+			stageLockedValue(elementView, NODE_TRANSPARENCY, 0);
 		}
 	}
 
@@ -1,27 +1,35 @@
 package org.cytoscape.intern.read.reader;
 
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Z_LOCATION;
 import static org.cytoscape.view.presentation.property.LineTypeVisualProperty.DOT;
 import static org.cytoscape.view.presentation.property.LineTypeVisualProperty.EQUAL_DASH;
 import static org.cytoscape.view.presentation.property.LineTypeVisualProperty.SOLID;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
 import org.cytoscape.view.model.VisualLexicon;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.RenderingEngineManager;
 import org.cytoscape.view.presentation.property.values.LineType;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualStyle;
+import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
 
 import com.alexmerz.graphviz.objects.Edge;
 import com.alexmerz.graphviz.objects.Node;
@@ -47,16 +55,19 @@ public abstract class Reader {
 		COLOR, FILLCOLOR, FONTCOLOR, BGCOLOR
 	}
 
-	//Regex patterns for DOT color strings
-	private static final String RGB_REGEX = "^#[0-9A-Fa-f]{6}$";
-	private static final String RGBA_REGEX = "^#(?<RED>[0-9A-Fa-f]{2})"
-						   + "(?<GREEN>[0-9A-Fa-f]{2})"
-						   + "(?<BLUE>[0-9A-Fa-f]{2})"
-						   + "(?<ALPHA>[0-9A-Fa-f]{2})$";
-	private static final String HSB_REGEX = "^(?<HUE>1(?:\\.0+)?|0*(?:\\.[0-9]+))(?:,|\\s)+"
-						 + "(?<SAT>1(?:\\.0+)?|0*(?:\\.[0-9]+))(?:,|\\s)+"
-						 + "(?<VAL>1(?:\\.0+)?|0*(?:\\.[0-9]+))$";
+	// Color names of the svg and x11 schemes, read once when first needed
+	private static class ColorNames {
+		static final StringColor COLORS = new StringColor("svg_colors.txt", "x11_colors.txt");
+	}
+
+	// most distinct values of a VisualProperty that are mapped instead of bypassed
+	private static final int MAX_MAPPED_VALUES = 16;
+
+	// values are only mapped if each is used by this many elements on average
+	private static final int MIN_USES_PER_VALUE = 4;
 
+	// prefix of the columns holding the keys of mapped values
+	private static final String MAPPED_COLUMN_PREFIX = "DOT_";
 
 	// Maps lineStyle attribute values to Cytoscape values
 	protected static final Map<String, LineType> LINE_TYPE_MAP = new HashMap<String, LineType>();
@@ -90,6 +101,22 @@ public abstract class Reader {
 	 */
 	protected Map<? extends Object, ? extends CyIdentifiable> elementMap;
 
+	/*
+	 * Values staged for element views by setBypasses(), applied in one batch
+	 * by applyStagedValues(). Values of bit i of unlockedValues are set as
+	 * visual properties, the others as bypasses
+	 */
+	private List<View<?>> stagedViews = new ArrayList<View<?>>();
+	private List<VisualProperty<?>> stagedProps = new ArrayList<VisualProperty<?>>();
+	private List<Object> stagedValues = new ArrayList<Object>();
+	private BitSet unlockedValues = new BitSet();
+
+	/*
+	 * Creates the discrete mappings that replace bypasses with few distinct
+	 * values. Is null for NetworkReader, or if all values are bypassed
+	 */
+	protected VisualMappingFunctionFactory discreteMappingFact;
+
 	/**
 	 * Constructs an object of type Reader.
 	 * 
@@ -199,44 +226,18 @@ public abstract class Reader {
 		LOGGER.info("Converting DOT color string to Java Color...");
 		LOGGER.debug("Color string: " + color);
 
-		// Remove trailing/leading whitespace
-		color = color.trim();
-
-		// Test color string against RGB regex
-		LOGGER.trace("Comparing DOT color string to #FFFFFF format");
-		Matcher matcher = Pattern.compile(RGB_REGEX).matcher(color);
-		if (matcher.matches()) {
-			return Color.decode(color);
+		// Scan color string for #FFFFFF, #FFFFFFFF and H S V formats
+		LOGGER.trace("Scanning DOT color string for numeric formats");
+		Color scanned = ValueScanner.parseColor(color);
+		if (scanned != null) {
+			return scanned;
 		}
-
-		// Test color string against RGBA regex
-		LOGGER.trace("Comparing DOT color string to #FFFFFFFF format");
-		matcher.usePattern(Pattern.compile(RGBA_REGEX));
-		if (matcher.matches()) {
-			Integer red = Integer.valueOf(matcher.group("RED"), 16);
-			Integer green = Integer.valueOf(matcher.group("GREEN"), 16);
-			Integer blue = Integer.valueOf(matcher.group("BLUE"), 16);
-			Integer alpha = Integer.valueOf(matcher.group("ALPHA"), 16);
-			return new Color(red, green, blue, alpha);
-		}
-
-		// Test color string against HSB regex
-		LOGGER.trace("Comparing DOT color string to H S V format");
-		matcher.usePattern(Pattern.compile(HSB_REGEX));
-		if (matcher.matches()) {
-			Float hue = Float.valueOf(matcher.group("HUE"));
-			Float saturation = Float.valueOf(matcher.group("SAT"));
-			Float value = Float.valueOf(matcher.group("VAL"));
-			return Color.getHSBColor(hue, saturation, value);
-		}
-		// String didn't match the regexes, so test if it is a color name
-		// Read in color name files and find it in there
+		// String is not numeric, so test if it is a color name
 		LOGGER.trace("Checking if DOT color string is a valid color name");
-		StringColor stringColor = new StringColor("svg_colors.txt", "x11_colors.txt");
 		
 		//String color names are case-insensitive
-		color = color.toLowerCase();
-		Color output = stringColor.getColor(colorScheme, color);
+		color = color.trim().toLowerCase();
+		Color output = ColorNames.COLORS.getColor(colorScheme, color);
 
 		if(output != null) {
 			return output;
@@ -379,6 +380,175 @@ public abstract class Reader {
 		LOGGER.info("Setting the properties for Visual Style...");
 		setDefaults();
 		setBypasses();
+		applyStagedValues();
+	}
+
+	/**
+	 * Stages a bypass value for a View, it is locked by applyStagedValues()
+	 * 
+	 * @param elementView View the value is for
+	 * @param vizProp VisualProperty being bypassed
+	 * @param value value of vizProp
+	 */
+	protected void stageLockedValue(View<?> elementView, VisualProperty<?> vizProp, Object value) {
+		stagedViews.add(elementView);
+		stagedProps.add(vizProp);
+		stagedValues.add(value);
+	}
+
+	/**
+	 * Stages a visual property value for a View, eg. a position that is not a
+	 * bypass. It is set by applyStagedValues()
+	 * 
+	 * @param elementView View the value is for
+	 * @param vizProp VisualProperty being set
+	 * @param value value of vizProp
+	 */
+	protected void stageVisualProperty(View<?> elementView, VisualProperty<?> vizProp, Object value) {
+		unlockedValues.set(stagedViews.size());
+		stageLockedValue(elementView, vizProp, value);
+	}
+
+	/**
+	 * Returns the value a View will have for a VisualProperty once staged
+	 * values are applied. Values of the element being read are staged last,
+	 * so only those are searched
+	 * 
+	 * @param elementView View whose value is returned
+	 * @param vizProp VisualProperty whose value is returned
+	 * @return last staged value, or the current value of the View
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> T getStagedValue(View<?> elementView, VisualProperty<T> vizProp) {
+		for (int i = stagedViews.size() - 1; i >= 0 && stagedViews.get(i) == elementView; i--) {
+			if (stagedProps.get(i) == vizProp) {
+				return (T) stagedValues.get(i);
+			}
+		}
+		return elementView.getVisualProperty(vizProp);
+	}
+
+	/**
+	 * Applies all staged values in one pass, in the order they were staged.
+	 * Bypasses of VisualProperties with only a few distinct values are turned
+	 * into discrete mappings instead. The caller may silence events of the
+	 * network view around it, so that renderers get a single update
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void applyStagedValues() {
+		LOGGER.info(String.format("Applying %d staged values...", stagedViews.size()));
+		Set<VisualProperty<?>> mappedProps = mapUniformValues();
+		for (int i = 0; i < stagedViews.size(); i++) {
+			View elementView = stagedViews.get(i);
+			VisualProperty vizProp = stagedProps.get(i);
+			if (!unlockedValues.get(i) && mappedProps.contains(vizProp)) {
+				continue;
+			}
+			if (unlockedValues.get(i)) {
+				elementView.setVisualProperty(vizProp, stagedValues.get(i));
+			}
+			else {
+				elementView.setLockedValue(vizProp, stagedValues.get(i));
+			}
+		}
+		stagedViews.clear();
+		stagedProps.clear();
+		stagedValues.clear();
+		unlockedValues.clear();
+	}
+
+	/**
+	 * Replaces the staged bypasses of each VisualProperty that has at most
+	 * MAX_MAPPED_VALUES distinct values, each used MIN_USES_PER_VALUE times
+	 * on average, by a discrete mapping. The key of the value of each element
+	 * is written to a "DOT_<VisualProperty id>" column of its table
+	 * 
+	 * @return VisualProperties whose bypasses were replaced
+	 */
+	private Set<VisualProperty<?>> mapUniformValues() {
+		Set<VisualProperty<?>> mappedProps = new HashSet<VisualProperty<?>>();
+		if (discreteMappingFact == null) {
+			return mappedProps;
+		}
+
+		// the last bypass staged for each view wins, as when they are applied
+		Map<VisualProperty<?>, Map<View<?>, Object>> bypasses = new LinkedHashMap<VisualProperty<?>, Map<View<?>, Object>>();
+		for (int i = 0; i < stagedViews.size(); i++) {
+			if (unlockedValues.get(i)) {
+				continue;
+			}
+			Map<View<?>, Object> values = bypasses.get(stagedProps.get(i));
+			if (values == null) {
+				values = new HashMap<View<?>, Object>();
+				bypasses.put(stagedProps.get(i), values);
+			}
+			values.put(stagedViews.get(i), stagedValues.get(i));
+		}
+
+		for (Entry<VisualProperty<?>, Map<View<?>, Object>> entry : bypasses.entrySet()) {
+			if (mapValues(entry.getKey(), entry.getValue())) {
+				mappedProps.add(entry.getKey());
+			}
+		}
+		return mappedProps;
+	}
+
+	/**
+	 * Maps the values of one VisualProperty if they are few enough
+	 * 
+	 * @param vizProp VisualProperty being mapped
+	 * @param values value of each View that has a bypass
+	 * @return true if a discrete mapping was added to vizStyle
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private boolean mapValues(VisualProperty vizProp, Map<View<?>, Object> values) {
+		// positions belong to the layout, not the style
+		if (vizProp == NODE_X_LOCATION || vizProp == NODE_Y_LOCATION || vizProp == NODE_Z_LOCATION) {
+			return false;
+		}
+		Set<Object> distinct = new HashSet<Object>();
+		for (Object value : values.values()) {
+			if (value == null || (distinct.add(value) && distinct.size() > MAX_MAPPED_VALUES)) {
+				return false;
+			}
+		}
+		if (values.size() < MIN_USES_PER_VALUE * distinct.size()
+				|| vizStyle.getVisualMappingFunction(vizProp) != null) {
+			return false;
+		}
+
+		// each value is keyed by its serialized form, which must tell them apart
+		Map<Object, String> keys = new HashMap<Object, String>();
+		Map<String, Object> mappedValues = new HashMap<String, Object>();
+		for (Object value : distinct) {
+			String key = vizProp.toSerializableString(value);
+			if (key == null || mappedValues.containsKey(key)) {
+				return false;
+			}
+			keys.put(value, key);
+			mappedValues.put(key, value);
+		}
+
+		String columnName = MAPPED_COLUMN_PREFIX + vizProp.getIdString();
+		CyIdentifiable firstElement = (CyIdentifiable) values.keySet().iterator().next().getModel();
+		CyTable table = networkView.getModel().getRow(firstElement).getTable();
+		if (table.getColumn(columnName) == null) {
+			table.createColumn(columnName, String.class, false);
+		}
+		else if (table.getColumn(columnName).getType() != String.class) {
+			return false;
+		}
+		for (Entry<View<?>, Object> entry : values.entrySet()) {
+			CyIdentifiable element = (CyIdentifiable) entry.getKey().getModel();
+			networkView.getModel().getRow(element).set(columnName, keys.get(entry.getValue()));
+		}
+
+		DiscreteMapping<String, Object> mapping = (DiscreteMapping<String, Object>) discreteMappingFact
+				.createVisualMappingFunction(columnName, String.class, vizProp);
+		mapping.putAll(mappedValues);
+		vizStyle.addVisualMappingFunction(mapping);
+		LOGGER.info(String.format("Mapped %d values of %s to %d elements", distinct.size(), vizProp.getIdString(), values.size()));
+		return true;
 	}
 }
 
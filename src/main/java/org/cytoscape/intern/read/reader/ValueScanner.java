@@ -0,0 +1,207 @@
+package org.cytoscape.intern.read.reader;
+
+import java.awt.Color;
+
+/**
+ * Parses numbers and colors straight from attribute value Strings. Values are
+ * scanned in place between two offsets, so no trimmed copies, split arrays or
+ * regex Matchers are created for the millions of values of a large file
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ValueScanner {
+
+	// powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	// largest mantissa whose double value is exact
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * Parses a whole String as a double, ignoring surrounding white space
+	 *
+	 * @param text String holding the number
+	 * @return value of the number
+	 * @throws NumberFormatException if text is not a number
+	 */
+	public static double parseDouble(String text) {
+		return parseDouble(text, 0, text.length());
+	}
+
+	/**
+	 * Parses text[start, end) as a double, ignoring surrounding white space.
+	 * Plain decimals of up to 15 digits, the numbers .dot files hold, are
+	 * computed with a single correctly rounded division. Anything else is
+	 * handed to Double.parseDouble()
+	 *
+	 * @param text String holding the number
+	 * @param start index of the first character of the number
+	 * @param end index after the last character of the number
+	 * @return value of the number
+	 * @throws NumberFormatException if text[start, end) is not a number
+	 */
+	public static double parseDouble(String text, int start, int end) {
+		while (start < end && Character.isWhitespace(text.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		if (start >= end) {
+			throw new NumberFormatException("empty number");
+		}
+
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean inFraction = false;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (inFraction) {
+					fractionDigits++;
+				}
+			} else if (c == '.' && !inFraction) {
+				inFraction = true;
+			} else {
+				break;
+			}
+		}
+		// exponents, long mantissas and malformed numbers take the slow path
+		if (i < end || digits == 0 || digits > 15 || mantissa >= MAX_EXACT_MANTISSA
+				|| fractionDigits >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(text.substring(start, end));
+		}
+		double value = mantissa / POWERS_OF_TEN[fractionDigits];
+		return (negative) ? -value : value;
+	}
+
+	/**
+	 * Returns the index after the first number of a list of numbers
+	 * separated by commas, eg. the x of a "x,y" position
+	 *
+	 * @param text String holding the list
+	 * @param start index of the first character of the number
+	 * @return index of the ',' or '!' after the number, or text.length()
+	 */
+	public static int endOfListNumber(String text, int start) {
+		for (int i = start; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ',' || c == '!') {
+				return i;
+			}
+		}
+		return text.length();
+	}
+
+	/**
+	 * Parses a GraphViz color in form #RRGGBB, #RRGGBBAA or "H S V" (components
+	 * from 0 to 1 separated by commas and/or white space). Surrounding white
+	 * space is ignored
+	 *
+	 * @param color GraphViz color string
+	 * @return Color, or null if color is in neither form, eg. a color name
+	 */
+	public static Color parseColor(String color) {
+		int start = 0;
+		int end = color.length();
+		while (start < end && Character.isWhitespace(color.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(color.charAt(end - 1))) {
+			end--;
+		}
+		if (start == end) {
+			return null;
+		}
+
+		if (color.charAt(start) == '#') {
+			int length = end - start - 1;
+			if (length != 6 && length != 8) {
+				return null;
+			}
+			int red = parseHexByte(color, start + 1);
+			int green = parseHexByte(color, start + 3);
+			int blue = parseHexByte(color, start + 5);
+			int alpha = (length == 8) ? parseHexByte(color, start + 7) : 255;
+			if (red < 0 || green < 0 || blue < 0 || alpha < 0) {
+				return null;
+			}
+			return new Color(red, green, blue, alpha);
+		}
+
+		// H S V: three numbers from 0 to 1
+		float[] hsv = new float[3];
+		int i = start;
+		for (int component = 0; component < 3; component++) {
+			int numberStart = i;
+			while (i < end && ((color.charAt(i) >= '0' && color.charAt(i) <= '9') || color.charAt(i) == '.')) {
+				i++;
+			}
+			if (i == numberStart) {
+				return null;
+			}
+			double value;
+			try {
+				value = parseDouble(color, numberStart, i);
+			} catch (NumberFormatException exception) {
+				return null;
+			}
+			if (value > 1.0) {
+				return null;
+			}
+			hsv[component] = (float) value;
+
+			int separatorStart = i;
+			while (i < end && (color.charAt(i) == ',' || Character.isWhitespace(color.charAt(i)))) {
+				i++;
+			}
+			if (component < 2 && i == separatorStart) {
+				return null;
+			}
+		}
+		if (i < end) {
+			return null;
+		}
+		return Color.getHSBColor(hsv[0], hsv[1], hsv[2]);
+	}
+
+	/*
+	 * Returns the value of the two hex digits at text[start], or -1 if they
+	 * are not hex digits
+	 */
+	private static int parseHexByte(String text, int start) {
+		int high = hexDigit(text.charAt(start));
+		int low = hexDigit(text.charAt(start + 1));
+		if (high < 0 || low < 0) {
+			return -1;
+		}
+		return high * 16 + low;
+	}
+
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,157 @@
+package org.cytoscape.intern.write;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the nodes of a network into parts made of whole connected components.
+ * Components are found with a union-find over the dense node indices of a
+ * NodeStateIndex. Components that are large enough get a part of their own,
+ * smaller ones are packed together so that no part is needlessly tiny
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ComponentPartitioner {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(ComponentPartitioner.class);
+
+	// parent of each node index in the union-find forest
+	private int[] parent;
+
+	// number of nodes under each root
+	private int[] componentSize;
+
+	private ComponentPartitioner(int nodeCount) {
+		parent = new int[nodeCount];
+		componentSize = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			parent[i] = i;
+			componentSize[i] = 1;
+		}
+	}
+
+	private int find(int node) {
+		while (parent[node] != node) {
+			// path halving
+			parent[node] = parent[parent[node]];
+			node = parent[node];
+		}
+		return node;
+	}
+
+	private void union(int first, int second) {
+		int firstRoot = find(first);
+		int secondRoot = find(second);
+		if (firstRoot == secondRoot) {
+			return;
+		}
+		// union by size
+		if (componentSize[firstRoot] < componentSize[secondRoot]) {
+			int swap = firstRoot;
+			firstRoot = secondRoot;
+			secondRoot = swap;
+		}
+		parent[secondRoot] = firstRoot;
+		componentSize[firstRoot] += componentSize[secondRoot];
+	}
+
+	/**
+	 * Partitions the nodes of a network into whole connected components.
+	 * Components with at least minPartSize nodes form their own part, smaller
+	 * components are packed into parts of about minPartSize nodes. Parts are
+	 * returned largest first
+	 *
+	 * @param network CyNetwork being partitioned
+	 * @param nodeStates NodeStateIndex of network
+	 * @param nodeSubset indices of nodes being partitioned, null for all nodes
+	 * @param minPartSize number of nodes a part should reach
+	 * @return List of BitSets over node indices, one per part
+	 */
+	public static List<BitSet> partition(CyNetwork network, NodeStateIndex nodeStates,
+			BitSet nodeSubset, int minPartSize) {
+		int nodeCount = nodeStates.size();
+		if (nodeSubset == null) {
+			nodeSubset = new BitSet(nodeCount);
+			nodeSubset.set(0, nodeCount);
+		}
+
+		ComponentPartitioner partitioner = new ComponentPartitioner(nodeCount);
+		for (CyEdge edge : network.getEdgeList()) {
+			int source = nodeStates.indexOf(edge.getSource());
+			int target = nodeStates.indexOf(edge.getTarget());
+			if (source >= 0 && target >= 0 && nodeSubset.get(source) && nodeSubset.get(target)) {
+				partitioner.union(source, target);
+			}
+		}
+
+		// number the components and count their nodes
+		int[] componentOfRoot = new int[nodeCount];
+		Arrays.fill(componentOfRoot, -1);
+		final int[] componentSizes = new int[nodeCount];
+		int componentCount = 0;
+		for (int node = nodeSubset.nextSetBit(0); node >= 0; node = nodeSubset.nextSetBit(node + 1)) {
+			int root = partitioner.find(node);
+			if (componentOfRoot[root] < 0) {
+				componentOfRoot[root] = componentCount++;
+			}
+			componentSizes[componentOfRoot[root]]++;
+		}
+		LOGGER.info("Found " + componentCount + " connected components");
+
+		Integer[] componentOrder = new Integer[componentCount];
+		for (int i = 0; i < componentCount; i++) {
+			componentOrder[i] = i;
+		}
+		Arrays.sort(componentOrder, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return componentSizes[second] - componentSizes[first];
+			}
+		});
+
+		// components are sorted largest first, so small ones are packed together at the end
+		int[] partOfComponent = new int[componentCount];
+		int partCount = 0;
+		int openPart = -1;
+		int openPartSize = 0;
+		for (int component : componentOrder) {
+			int size = componentSizes[component];
+			if (size >= minPartSize) {
+				partOfComponent[component] = partCount++;
+				continue;
+			}
+			if (openPart < 0) {
+				openPart = partCount++;
+				openPartSize = 0;
+			}
+			partOfComponent[component] = openPart;
+			openPartSize += size;
+			if (openPartSize >= minPartSize) {
+				openPart = -1;
+			}
+		}
+
+		List<BitSet> parts = new ArrayList<BitSet>(partCount);
+		for (int i = 0; i < partCount; i++) {
+			parts.add(new BitSet());
+		}
+		for (int node = nodeSubset.nextSetBit(0); node >= 0; node = nodeSubset.nextSetBit(node + 1)) {
+			int component = componentOfRoot[partitioner.find(node)];
+			parts.get(partOfComponent[component]).set(node);
+		}
+		LOGGER.info("Packed components into " + parts.size() + " parts");
+		return parts;
+	}
+}
@@ -0,0 +1,304 @@
+package org.cytoscape.intern.write;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.ListMultipleSelection;
+import org.cytoscape.work.util.ListSingleSelection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task that exports several network views to GraphViz files in one go. Each
+ * view is written to its own file in the chosen directory by its own
+ * DotWriterTask, and the writers run in parallel on a bounded thread pool
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotBatchExportTask extends AbstractTask {
+
+	// extension given to exported files
+	private static final String FILE_EXTENSION = ".dot";
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(DotBatchExportTask.class);
+
+	// contains references to VisualStyles applied to the views
+	private VisualMappingManager vizMapMgr;
+
+	// views that can be exported, keyed by the label shown to the user
+	private Map<String, CyNetworkView> viewsByLabel = new LinkedHashMap<String, CyNetworkView>();
+
+	// writers of the running export, kept so they can be cancelled
+	private List<DotWriterTask> writers = new CopyOnWriteArrayList<DotWriterTask>();
+
+	/*
+	 * Tunable to prompt user for the views being exported
+	 */
+	@Tunable(description = "Network views to export")
+	public ListMultipleSelection<String> viewLabels;
+
+	/*
+	 * Tunable to prompt user for the directory files are written to. If a file
+	 * is picked, its directory is used
+	 */
+	@Tunable(description = "Output directory", params = "input=false")
+	public File outputDirectory;
+
+	/*
+	 * Tunable to prompt user for edge style curved, normal (segments) or
+	 * splines (route around nodes)
+	 */
+	@Tunable(description = "Pick edge style")
+	public ListSingleSelection<String> typer = new ListSingleSelection<String>(
+			"Straight segments", "Curved segments",
+			"Curved segments routed around nodes");
+
+	/*
+	 * Tunable to prompt user for where to put node labels top, bottom, center
+	 * or external
+	 */
+	@Tunable(description = "Pick node label location")
+	public ListSingleSelection<String> labelLocations = new ListSingleSelection<String>(
+			"Center", "Top", "Bottom", "External");
+
+	/*
+	 * Tunable to prompt user for where to put network labels top, bottom, or
+	 * none at all
+	 */
+	@Tunable(description = "Pick network label location")
+	public ListSingleSelection<String> networkLabelLocations = new ListSingleSelection<String>(
+			"No network label", "Top", "Bottom");
+
+	/**
+	 * Constructs a DotBatchExportTask offering every view in the session
+	 *
+	 * @param viewMgr CyNetworkViewManager containing the views of the session
+	 * @param vizMapMgr VisualMappingManager containing the styles of the views
+	 */
+	public DotBatchExportTask(CyNetworkViewManager viewMgr, VisualMappingManager vizMapMgr) {
+		this.vizMapMgr = vizMapMgr;
+
+		for (CyNetworkView view : viewMgr.getNetworkViewSet()) {
+			CyNetwork network = view.getModel();
+			String name = network.getRow(network).get(CyNetwork.NAME, String.class);
+			viewsByLabel.put(String.format("%s (%d)", name, view.getSUID()), view);
+		}
+		List<String> labels = new ArrayList<String>(viewsByLabel.keySet());
+		viewLabels = new ListMultipleSelection<String>(labels);
+		viewLabels.setSelectedValues(labels);
+
+		LOGGER.info("DotBatchExportTask constructed");
+	}
+
+	/**
+	 * Returns a file name based on a network name that is unique among names
+	 * already used by this export
+	 *
+	 * @param networkName name of the network being exported
+	 * @param usedNames file names already taken
+	 * @return file name ending in .dot
+	 */
+	private static String buildFileName(String networkName, Set<String> usedNames) {
+		String baseName = (networkName == null) ? "network" : networkName.replaceAll("[^A-Za-z0-9._-]", "_");
+		String fileName = baseName + FILE_EXTENSION;
+		for (int i = 2; usedNames.contains(fileName); i++) {
+			fileName = baseName + "_" + i + FILE_EXTENSION;
+		}
+		usedNames.add(fileName);
+		return fileName;
+	}
+
+	/**
+	 * Copies the label and edge settings chosen for the batch to a writer
+	 *
+	 * @param writer DotWriterTask of one view
+	 */
+	private void copySettings(DotWriterTask writer) {
+		writer.typer.setSelectedValue(typer.getSelectedValue());
+		writer.labelLocations.setSelectedValue(labelLocations.getSelectedValue());
+		writer.networkLabelLocations.setSelectedValue(networkLabelLocations.getSelectedValue());
+	}
+
+	/**
+	 * Causes the task to stop execution.
+	 */
+	@Override
+	public void cancel() {
+		super.cancel();
+		for (DotWriterTask writer : writers) {
+			writer.cancel();
+		}
+	}
+
+	/**
+	 * Causes the task to begin execution.
+	 *
+	 * @param taskMonitor The TaskMonitor provided by TaskManager to allow the Task to
+	 * modify its user interface.
+	 */
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		taskMonitor.setTitle("Export network views as GraphViz files");
+		taskMonitor.setProgress(0.0);
+
+		List<String> selectedLabels = viewLabels.getSelectedValues();
+		if (selectedLabels == null || selectedLabels.isEmpty()) {
+			taskMonitor.showMessage(TaskMonitor.Level.WARN, "No network views selected");
+			return;
+		}
+		if (outputDirectory == null) {
+			throw new IOException("No output directory selected");
+		}
+		File directory = (outputDirectory.isDirectory()) ? outputDirectory : outputDirectory.getParentFile();
+		if (directory == null || (!directory.isDirectory() && !directory.mkdirs())) {
+			throw new IOException("Cannot create output directory " + outputDirectory);
+		}
+
+		int viewCount = selectedLabels.size();
+		int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), viewCount));
+		LOGGER.info(String.format("Exporting %d views on %d threads...", viewCount, threadCount));
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		CompletionService<String> completion = new ExecutorCompletionService<String>(pool);
+		List<String> warnings = Collections.synchronizedList(new ArrayList<String>());
+		int submitted = 0;
+		int failed = 0;
+		try {
+			Set<String> usedNames = new HashSet<String>();
+			for (String label : selectedLabels) {
+				if (cancelled) {
+					break;
+				}
+				CyNetworkView view = viewsByLabel.get(label);
+				CyNetwork network = view.getModel();
+				String fileName = buildFileName(network.getRow(network).get(CyNetwork.NAME, String.class), usedNames);
+				completion.submit(new ExportJob(view, new File(directory, fileName), warnings));
+				submitted++;
+			}
+
+			// report progress as writers finish, in whatever order they finish
+			for (int done = 0; done < submitted; done++) {
+				try {
+					String fileName = completion.take().get();
+					if (fileName != null) {
+						LOGGER.info("Exported " + fileName);
+					}
+				} catch (ExecutionException e) {
+					failed++;
+					LOGGER.error("Export of a network view failed", e.getCause());
+				}
+				taskMonitor.setProgress((done + 1) / (double) viewCount);
+				taskMonitor.setStatusMessage(String.format("Exported %d of %d network views", done + 1, viewCount));
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (String warning : warnings) {
+			taskMonitor.showMessage(TaskMonitor.Level.WARN, warning);
+		}
+		if (failed > 0) {
+			taskMonitor.showMessage(TaskMonitor.Level.ERROR,
+					String.format("%d of %d network views could not be exported", failed, viewCount));
+		}
+		taskMonitor.setProgress(1.0);
+	}
+
+	/**
+	 * Writes one view on a pool thread and collects the warnings of its
+	 * DotWriterTask, since only the thread running the batch reports to the
+	 * user. The output file is only opened once the job runs
+	 */
+	private class ExportJob implements Callable<String>, TaskMonitor {
+
+		// view being exported
+		private CyNetworkView view;
+
+		// file the view is written to
+		private File file;
+
+		// warnings of all jobs of the batch
+		private List<String> warnings;
+
+		ExportJob(CyNetworkView view, File file, List<String> warnings) {
+			this.view = view;
+			this.file = file;
+			this.warnings = warnings;
+		}
+
+		/**
+		 * Writes the view to its file
+		 *
+		 * @return name of the written file, null if the batch was cancelled
+		 * before the job started
+		 * @throws Exception if the file cannot be written, a partially written
+		 * file is deleted
+		 */
+		@Override
+		public String call() throws Exception {
+			if (cancelled) {
+				return null;
+			}
+			FileOutputStream output = new FileOutputStream(file);
+			boolean written = false;
+			try {
+				DotWriterTask writer = new DotWriterTask(output, view, vizMapMgr, false);
+				copySettings(writer);
+				writers.add(writer);
+				// the batch may have been cancelled before the writer was registered
+				if (cancelled) {
+					writer.cancel();
+				}
+				writer.run(this);
+				written = true;
+			} finally {
+				output.close();
+				if (!written && !file.delete()) {
+					LOGGER.warn("Could not delete partially written file " + file);
+				}
+			}
+			return file.getName();
+		}
+
+		@Override
+		public void setTitle(String title) {
+		}
+
+		@Override
+		public void setProgress(double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(String statusMessage) {
+		}
+
+		@Override
+		public void showMessage(TaskMonitor.Level level, String message) {
+			warnings.add(file.getName() + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.cytoscape.intern.write;
+
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.work.AbstractTaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task factory that creates the task exporting several network views to
+ * GraphViz files at once
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class DotBatchExportTaskFactory extends AbstractTaskFactory {
+
+	// contains the views of the session
+	private CyNetworkViewManager viewMgr;
+
+	// contains references to created VisualStyles
+	private VisualMappingManager vizMapMgr;
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(DotBatchExportTaskFactory.class);
+
+	/**
+	 * Constructs a DotBatchExportTaskFactory object
+	 *
+	 * @param viewMgr CyNetworkViewManager containing the views that can be exported
+	 * @param vizMapMgr VisualMappingManager containing the styles of those views
+	 */
+	public DotBatchExportTaskFactory(CyNetworkViewManager viewMgr, VisualMappingManager vizMapMgr) {
+		this.viewMgr = viewMgr;
+		this.vizMapMgr = vizMapMgr;
+	}
+
+	/**
+	 * Returns a TaskIterator containing the batch export task
+	 *
+	 * @return TaskIterator with one DotBatchExportTask
+	 */
+	@Override
+	public TaskIterator createTaskIterator() {
+		LOGGER.trace("createTaskIterator called");
+		return new TaskIterator(new DotBatchExportTask(viewMgr, vizMapMgr));
+	}
+
+	/**
+	 * Returns whether there is at least one network view to export
+	 *
+	 * @return true if the session contains a network view
+	 */
+	@Override
+	public boolean isReady() {
+		return !viewMgr.getNetworkViewSet().isEmpty();
+	}
+}
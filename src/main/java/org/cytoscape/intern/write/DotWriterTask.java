@@ -1,16 +1,36 @@
 package org.cytoscape.intern.write;
 
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_HEIGHT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
+
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.cytoscape.intern.NodeNameHeader;
 import org.cytoscape.intern.Notifier;
 import org.cytoscape.intern.write.mapper.EdgePropertyMapper;
+import org.cytoscape.intern.write.mapper.EncodingCache;
 import org.cytoscape.intern.write.mapper.Mapper;
 import org.cytoscape.intern.write.mapper.NetworkPropertyMapper;
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
 import org.cytoscape.intern.write.mapper.NodePropertyMapper;
+import org.cytoscape.intern.write.mapper.ViewSnapshot;
 import org.cytoscape.io.write.CyWriter;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
@@ -36,7 +56,7 @@ import org.slf4j.LoggerFactory;
 public class DotWriterTask implements CyWriter {
 
 	// whether task is cancelled or not
-	private boolean cancelled = false;
+	private volatile boolean cancelled = false;
 	// handles mapping from CS to .dot of respective elements
 	private NetworkPropertyMapper networkMapper;
 
@@ -55,6 +75,9 @@ public class DotWriterTask implements CyWriter {
 	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
 	private static final Logger LOGGER = LoggerFactory.getLogger(DotWriterTask.class);
 
+	// Pixel per inch scaling factor
+	private static final double PPI = 72;
+
 	// whether or not the network view is directed
 	private boolean directed = false;
 
@@ -83,9 +106,95 @@ public class DotWriterTask implements CyWriter {
 	public ListSingleSelection<String> networkLabelLocations = new ListSingleSelection<String>(
 			"No network label", "Top", "Bottom");
 
+	/*
+	 * Tunable to prompt user for the nodes to export. Edges are exported when
+	 * both of their nodes are
+	 */
+	@Tunable(description = "Pick nodes to export (edges between them are included)")
+	public ListSingleSelection<String> subsetModes = new ListSingleSelection<String>(
+			"All nodes", "Selected nodes", "Nodes matching column filter");
+
+	// Tunable to prompt user for the node column used by the filter
+	@Tunable(description = "Filter column", dependsOn = "subsetModes=Nodes matching column filter")
+	public String filterColumn = CyNetwork.NAME;
+
+	// Tunable to prompt user for the value that node column must have
+	@Tunable(description = "Filter value", dependsOn = "subsetModes=Nodes matching column filter")
+	public String filterValue = "";
+
+	// Tunable to prompt user whether only the nodes in the current viewport are written
+	@Tunable(description = "Only write nodes inside the current viewport")
+	public boolean viewportOnly = false;
+
+	// Tunable to prompt user for the number of highest-degree nodes kept
+	@Tunable(description = "Only write this many highest-degree nodes (0 writes all)")
+	public int topDegreeCount = 0;
+
+	/*
+	 * Tunable to prompt user whether only node positions are written, eg. to
+	 * save a layout. Edges and all other attributes are left out
+	 */
+	@Tunable(description = "Only write node positions")
+	public boolean positionsOnly = false;
+
+	// Tunable to prompt user whether node sizes are written with positions
+	@Tunable(description = "Include node width and height", dependsOn = "positionsOnly=true")
+	public boolean positionsWithSizes = false;
+
+	/*
+	 * Tunable to prompt user whether node positions are pinned so that
+	 * "neato -n2" renders the file without running a layout. Spline routing
+	 * is turned off, since it would dominate rendering time
+	 */
+	@Tunable(description = "Pin node positions (render with neato -n2)")
+	public boolean pinPositions = false;
+
+	// Tunable to prompt user whether connected components go to separate files
+	@Tunable(description = "Write connected components to separate files")
+	public boolean splitComponents = false;
+
+	// Tunable to prompt user for the size below which components share a file
+	@Tunable(description = "Group components with fewer nodes than", dependsOn = "splitComponents=true")
+	public int minPartSize = 1000;
+
+	/*
+	 * Tunable to prompt user for where the other components are written. The
+	 * largest part goes to the export file, part i goes to <name>_i.gv
+	 */
+	@Tunable(description = "File name for the other components", params = "input=false",
+			dependsOn = "splitComponents=true")
+	public File partFile;
+
+	/*
+	 * Tunable to prompt user whether the view is copied before writing. The
+	 * view is only read while the copy is taken, so it can be edited while the
+	 * file is written and the file still matches the view at export time
+	 */
+	@Tunable(description = "Copy view before writing (releases the view sooner)")
+	public boolean snapshotView = false;
+
+	/*
+	 * Tunable to prompt user whether nodes get short IDs instead of
+	 * "name§SUID" IDs. Names are then written in a comment header that the
+	 * reader maps back
+	 */
+	@Tunable(description = "Use short node IDs (names are kept in a file header)")
+	public boolean compactIDs = false;
+
+	/*
+	 * Tunable to prompt user whether edges without attributes are grouped by
+	 * source node into statements like a -> {b c d}, so that the ID of a hub
+	 * is written once instead of once per edge
+	 */
+	@Tunable(description = "Group edges without attributes by source node")
+	public boolean groupEdges = false;
+
 	// whether or not a name had to be modified
 	private boolean nameModified = false;
 
+	// whether messages are shown in dialogs (true) or only reported to the TaskMonitor (false)
+	private boolean interactive = true;
+
 	// value of splines attribute
 	private String splinesVal;
 
@@ -98,6 +207,29 @@ public class DotWriterTask implements CyWriter {
 	// VisualStyle applied to network view
 	private VisualStyle vizStyle;
 
+	// .dot encodings of colors, shapes, line types and fonts shared by all mappers
+	private EncodingCache encodingCache = new EncodingCache();
+
+	// node IDs and visibility, built once before nodes and edges are written
+	private NodeStateIndex nodeStates;
+
+	// indices of the nodes being exported, null if all nodes are
+	private BitSet nodeSubset;
+
+	// writers of the other components when components are split into files
+	private List<DotWriterTask> partWriters = new CopyOnWriteArrayList<DotWriterTask>();
+
+	// copy of the node and edge views being written, null if the live view is read
+	private ViewSnapshot viewSnapshot;
+
+	// network properties, built ahead of writing when the view is copied
+	private String networkProps;
+
+	// node indices of the edges without attributes, written grouped by source
+	private int[] groupedSources = new int[0];
+	private int[] groupedTargets = new int[0];
+	private int groupedCount = 0;
+
 	/**
 	 * 
 	 * Constructs a DotWriterTask object for exporting network only
@@ -135,14 +267,57 @@ public class DotWriterTask implements CyWriter {
 		LOGGER.info("DotWriterTask constructed");
 	}
 
-	private String buildNodeID(CyNode node) {
-		Long nodeSUID = node.getSUID();
-		CyNetwork networkModel = networkView.getModel();
-		String nodeID = networkModel.getRow(node).get(CyNetwork.NAME,
-				String.class);
-		nodeID = String.format("\"%s§%s\"", nodeID, nodeSUID);
-		nodeID = Mapper.modifyElementID(nodeID);
-		return nodeID;
+	/**
+	 * Constructs a DotWriterTask object for exporting network view
+	 * 
+	 * @param output
+	 *            OutputStream that is being written to
+	 * @param networkView
+	 *            CyNetworkView that is being exported
+	 * @param vizMapMgr
+	 * @param interactive
+	 *            false if warnings should go to the TaskMonitor instead of
+	 *            dialogs, eg. when many views are exported at once
+	 */
+	public DotWriterTask(OutputStream output, CyNetworkView networkView,
+			VisualMappingManager vizMapMgr, boolean interactive) {
+		this(output, networkView, vizMapMgr);
+		this.interactive = interactive;
+	}
+
+	/**
+	 * Constructs a DotWriterTask that writes one part of the export of another
+	 * DotWriterTask, reusing its settings and node index. Its file is opened
+	 * by writePart()
+	 * 
+	 * @param parent
+	 *            DotWriterTask whose export is being split
+	 * @param partNodes
+	 *            indices of the nodes of this part
+	 */
+	private DotWriterTask(DotWriterTask parent, BitSet partNodes) {
+		networkView = parent.networkView;
+		network = parent.network;
+		vizStyle = parent.vizStyle;
+		directed = parent.directed;
+		splinesVal = parent.splinesVal;
+		nodeLabelLoc = parent.nodeLabelLoc;
+		networkLabelLoc = parent.networkLabelLoc;
+		nodeStates = parent.nodeStates;
+		nodeSubset = partNodes;
+		positionsOnly = parent.positionsOnly;
+		positionsWithSizes = parent.positionsWithSizes;
+		pinPositions = parent.pinPositions;
+		encodingCache.setPinPositions(pinPositions);
+		viewSnapshot = parent.viewSnapshot;
+		networkProps = parent.networkProps;
+		compactIDs = parent.compactIDs;
+		groupEdges = parent.groupEdges;
+		if (networkView != null) {
+			networkMapper = new NetworkPropertyMapper(networkView,
+					directed, splinesVal, networkLabelLoc, nodeLabelLoc,
+					vizStyle, encodingCache);
+		}
 	}
 
 	/**
@@ -169,6 +344,11 @@ public class DotWriterTask implements CyWriter {
 			splinesVal = "true";
 			break;
 		}
+		// pinned layouts are rendered with straight edges
+		if (pinPositions) {
+			splinesVal = "false";
+		}
+		encodingCache.setPinPositions(pinPositions);
 		LOGGER.info("Converted splinesVal: " + splinesVal);
 
 		// set nodeLabelLocation
@@ -207,40 +387,158 @@ public class DotWriterTask implements CyWriter {
 		LOGGER.info("Converted networkLabelLoc: " + networkLabelLoc);
 	}
 
+	/**
+	 * Writes the .dot declaration of one edge to file
+	 * 
+	 * @param edge
+	 *            CyEdge being written
+	 * @param edgeView
+	 *            View of edge, null if only the network is exported
+	 * @throws IOException
+	 *             if the write fails
+	 */
+	private void writeEdge(CyEdge edge, View<CyEdge> edgeView) throws IOException {
+		String attributes = null;
+		if (edgeView != null) {
+			edgeMapper = new EdgePropertyMapper(edgeView, vizStyle,
+					networkView, encodingCache, nodeStates);
+			attributes = edgeMapper.getElementString();
+		}
+		// edges without attributes are written later, grouped by source
+		if (groupEdges && (attributes == null || attributes.isEmpty())) {
+			deferEdge(nodeStates.indexOf(edge.getSource()), nodeStates.indexOf(edge.getTarget()));
+			return;
+		}
+
+		// Retrieve source+target node names
+		String sourceID = nodeStates.getNodeID(edge.getSource());
+		String targetID = nodeStates.getNodeID(edge.getTarget());
+
+		if (edgeView != null) {
+			String edgeType = (directed) ? "->" : "--";
+			String edgeName = String.format("%s %s %s", sourceID,
+					edgeType, targetID);
+			String declaration = String.format("%s %s\n", edgeName,
+					attributes);
+
+			outputWriter.write(declaration);
+		} else {
+			String edgeName = String.format("%s %s %s", sourceID,
+					"--", targetID);
+			String declaration = String.format("%s\n", edgeName);
+
+			outputWriter.write(declaration);
+		}
+	}
+
+	/**
+	 * Records an edge without attributes to be written by writeEdgeGroups()
+	 * 
+	 * @param source
+	 *            node index of the edge source
+	 * @param target
+	 *            node index of the edge target
+	 */
+	private void deferEdge(int source, int target) {
+		if (groupedCount == groupedSources.length) {
+			int capacity = Math.max(16, groupedCount * 2);
+			groupedSources = Arrays.copyOf(groupedSources, capacity);
+			groupedTargets = Arrays.copyOf(groupedTargets, capacity);
+		}
+		groupedSources[groupedCount] = source;
+		groupedTargets[groupedCount] = target;
+		groupedCount++;
+	}
+
+	/**
+	 * Writes the deferred edges as one statement per source node, in form
+	 * source -> {target1 target2 ...}. Targets are bucketed by source with a
+	 * counting sort, so the edges are never compared. GraphViz reads a target
+	 * repeated in a group as one edge, so each parallel edge after the first
+	 * is written as its own source -> target statement
+	 */
+	private void writeEdgeGroups() {
+		LOGGER.info("Writing " + groupedCount + " grouped edges...");
+		int nodeCount = nodeStates.size();
+
+		// targets of source i are groupTargets[groupStart[i]] .. groupTargets[groupStart[i + 1] - 1]
+		int[] groupStart = new int[nodeCount + 1];
+		for (int i = 0; i < groupedCount; i++) {
+			groupStart[groupedSources[i] + 1]++;
+		}
+		for (int source = 0; source < nodeCount; source++) {
+			groupStart[source + 1] += groupStart[source];
+		}
+		int[] groupTargets = new int[groupedCount];
+		int[] groupFill = Arrays.copyOf(groupStart, nodeCount);
+		for (int i = 0; i < groupedCount; i++) {
+			groupTargets[groupFill[groupedSources[i]]++] = groupedTargets[i];
+		}
+
+		String edgeType = (networkView != null && directed) ? " -> " : " -- ";
+		// lastSource[target] is the last source whose group holds target
+		int[] lastSource = new int[nodeCount];
+		Arrays.fill(lastSource, -1);
+		StringBuilder statement = new StringBuilder();
+		StringBuilder repeats = new StringBuilder();
+		for (int source = 0; source < nodeCount; source++) {
+			if (cancelled) {
+				return;
+			}
+			if (groupStart[source] == groupStart[source + 1]) {
+				continue;
+			}
+			String sourceID = nodeStates.getNodeID(source);
+			statement.setLength(0);
+			repeats.setLength(0);
+			statement.append(sourceID);
+			statement.append(edgeType).append('{');
+			boolean first = true;
+			for (int i = groupStart[source]; i < groupStart[source + 1]; i++) {
+				int target = groupTargets[i];
+				String targetID = nodeStates.getNodeID(target);
+				if (lastSource[target] == source) {
+					repeats.append(sourceID).append(edgeType).append(targetID).append('\n');
+					continue;
+				}
+				lastSource[target] = source;
+				if (!first) {
+					statement.append(' ');
+				}
+				first = false;
+				statement.append(targetID);
+			}
+			statement.append("}\n");
+			statement.append(repeats);
+			try {
+				outputWriter.write(statement.toString());
+			} catch (IOException exception) {
+				LOGGER.error("Write failed @ writeEdgeGroups()");
+			}
+		}
+	}
+
 	/**
 	 * Writes the .dot declaration of each edge to file
 	 */
 	private void writeEdges() {
 		LOGGER.trace("Writing edge declarations...");
 
+		// edges carry no positions
+		if (networkView != null && positionsOnly) {
+			return;
+		}
+		// if only a subset of nodes is exported, write the edges between them
+		else if (nodeSubset != null) {
+			writeInducedEdges();
+		}
 		// do the following if user passed in the networkView
-		if (networkView != null) {
-			// create list of all edge views
-			ArrayList<View<CyEdge>> edgeViewList = new ArrayList<View<CyEdge>>(
-					networkView.getEdgeViews());
-			String edgeType = (directed) ? "->" : "--";
-
+		else if (networkView != null) {
 			// for each edge, write declaration string
-			for (View<CyEdge> edgeView : edgeViewList) {
+			for (View<CyEdge> edgeView : edgeViews()) {
 				if (!cancelled) {
-					edgeMapper = new EdgePropertyMapper(edgeView, vizStyle,
-							networkView);
-
 					try {
-						// Retrieve source+target node names
-						CyEdge edgeModel = edgeView.getModel();
-						CyNode sourceNode = edgeModel.getSource();
-						CyNode targetNode = edgeModel.getTarget();
-
-						String sourceID = buildNodeID(sourceNode);
-						String targetID = buildNodeID(targetNode);
-
-						String edgeName = String.format("%s %s %s", sourceID,
-								edgeType, targetID);
-						String declaration = String.format("%s %s\n", edgeName,
-								edgeMapper.getElementString());
-
-						outputWriter.write(declaration);
+						writeEdge(edgeView.getModel(), edgeView);
 					} catch (IOException exception) {
 						LOGGER.error("Write failed @ writeEdges()");
 					}
@@ -258,17 +556,7 @@ public class DotWriterTask implements CyWriter {
 			for (CyEdge edge : edgeList) {
 				if (!cancelled) {
 					try {
-						CyNode sourceNode = edge.getSource();
-						CyNode targetNode = edge.getTarget();
-
-						String sourceID = buildNodeID(sourceNode);
-						String targetID = buildNodeID(targetNode);
-
-						String edgeName = String.format("%s %s %s", sourceID,
-								"--", targetID);
-						String declaration = String.format("%s\n", edgeName);
-
-						outputWriter.write(declaration);
+						writeEdge(edge, null);
 					} catch (IOException exception) {
 						LOGGER.error(
 								"Write failed @ writeEdges() (passed in network instead of networkView)");
@@ -278,36 +566,120 @@ public class DotWriterTask implements CyWriter {
 				}
 			}
 		}
+		if (groupEdges) {
+			writeEdgeGroups();
+		}
 		LOGGER.trace("Finished writing edge declarations...");
 	}
 
+	/**
+	 * Writes the .dot declaration of each edge whose source and target are
+	 * both in nodeSubset
+	 */
+	private void writeInducedEdges() {
+		for (CyEdge edge : SubsetResolver.resolveInducedEdges(network, nodeStates, nodeSubset)) {
+			if (cancelled) {
+				return;
+			}
+			try {
+				writeEdge(edge, edgeViewOf(edge));
+			} catch (IOException exception) {
+				LOGGER.error("Write failed @ writeInducedEdges()");
+			}
+		}
+	}
+
+	/**
+	 * Writes the .dot declaration of one node to file
+	 * 
+	 * @param node
+	 *            CyNode being written
+	 * @param nodeView
+	 *            View of node, null if only the network is exported
+	 * @throws IOException
+	 *             if the write fails
+	 */
+	private void writeNode(CyNode node, View<CyNode> nodeView) throws IOException {
+		// Retrieve node name
+		String nodeID = nodeStates.getNodeID(node);
+
+		if (nodeView != null && positionsOnly) {
+			outputWriter.write(buildPositionDeclaration(nodeID, nodeView));
+		} else if (nodeView != null) {
+			nodeMapper = new NodePropertyMapper(nodeView, vizStyle,
+					nodeLabelLoc, encodingCache);
+			String declaration = String.format("%s %s\n", nodeID,
+					nodeMapper.getElementString());
+
+			outputWriter.write(declaration);
+		} else {
+			String declaration = String.format("%s\n", nodeID);
+
+			outputWriter.write(declaration);
+		}
+	}
+
+	/**
+	 * Builds a node declaration holding only the position and, if chosen, the
+	 * size of the node. Values are read straight from the view without the
+	 * mapper machinery
+	 * 
+	 * @param nodeID
+	 *            .dot ID of the node
+	 * @param nodeView
+	 *            View of the node
+	 * @return declaration in form ID [pos = "x,y"]
+	 */
+	private String buildPositionDeclaration(String nodeID, View<CyNode> nodeView) {
+		DecimalFormat decimalFormatter = encodingCache.getDecimalFormatter();
+		StringBuilder declaration = new StringBuilder(nodeID.length() + 64);
+		declaration.append(nodeID);
+		declaration.append(" [pos = \"");
+		declaration.append(encodingCache.formatPosition(nodeView.getVisualProperty(NODE_X_LOCATION),
+				nodeView.getVisualProperty(NODE_Y_LOCATION)));
+		declaration.append('"');
+		if (positionsWithSizes) {
+			double height = nodeView.getVisualProperty(NODE_HEIGHT);
+			// NODE_WIDTH is not kept in sync with NODE_HEIGHT when sizes are locked
+			double width = (encodingCache.areNodeSizesLocked(vizStyle)) ? height
+					: nodeView.getVisualProperty(NODE_WIDTH);
+			declaration.append(",height = \"");
+			declaration.append(decimalFormatter.format(height / PPI));
+			declaration.append("\",width = \"");
+			declaration.append(decimalFormatter.format(width / PPI));
+			declaration.append('"');
+		}
+		declaration.append("]\n");
+		return declaration.toString();
+	}
+
 	/**
 	 * Writes the .dot declaration of each node to file
 	 */
 	private void writeNodes() {
 		LOGGER.info("Writing node declarations...");
 
+		// if only a subset of nodes is exported
+		if (nodeSubset != null) {
+			for (int index = nodeSubset.nextSetBit(0); index >= 0; index = nodeSubset.nextSetBit(index + 1)) {
+				if (cancelled) {
+					return;
+				}
+				CyNode node = nodeStates.getNode(index);
+				try {
+					writeNode(node, nodeViewOf(node));
+				} catch (IOException exception) {
+					LOGGER.error("Write failed @ writeNodes()");
+				}
+			}
+		}
 		// if the user passed in networkView
-		if (networkView != null) {
-			// create list of all node views
-			ArrayList<View<CyNode>> nodeViewList = new ArrayList<View<CyNode>>(
-					networkView.getNodeViews());
-
+		else if (networkView != null) {
 			// for each node, write declaration string
-			for (View<CyNode> nodeView : nodeViewList) {
+			for (View<CyNode> nodeView : nodeViews()) {
 				if (!cancelled) {
-					nodeMapper = new NodePropertyMapper(nodeView, vizStyle,
-							nodeLabelLoc);
-
 					try {
-						// Retrieve node name
-						CyNode nodeModel = nodeView.getModel();
-						String nodeID = buildNodeID(nodeModel);
-
-						String declaration = String.format("%s %s\n", nodeID,
-								nodeMapper.getElementString());
-
-						outputWriter.write(declaration);
+						writeNode(nodeView.getModel(), nodeView);
 					} catch (IOException exception) {
 						LOGGER.error("Write failed @ writeNodes()");
 					}
@@ -322,11 +694,7 @@ public class DotWriterTask implements CyWriter {
 			for (CyNode node : nodeList) {
 				if (!cancelled) {
 					try {
-						String nodeName = buildNodeID(node);
-
-						String declaration = String.format("%s\n", nodeName);
-
-						outputWriter.write(declaration);
+						writeNode(node, null);
 					} catch (IOException exception) {
 						LOGGER.error(
 							"Write failed @ writeNodes() passed in network "
@@ -344,34 +712,160 @@ public class DotWriterTask implements CyWriter {
 	}
 
 	/**
-	 * Writes the network properties to file
+	 * Returns the node views being written, from the copy if one was taken
+	 * 
+	 * @return Collection of node views
 	 */
-	private void writeProps() {
-		try {
-			LOGGER.info("Writing network properties...");
-			if (network == null) {
-				network = networkView.getModel();
-			}
+	private Collection<View<CyNode>> nodeViews() {
+		if (viewSnapshot != null) {
+			return viewSnapshot.getNodeViews();
+		}
+		return new ArrayList<View<CyNode>>(networkView.getNodeViews());
+	}
+
+	/**
+	 * Returns the edge views being written, from the copy if one was taken
+	 * 
+	 * @return Collection of edge views
+	 */
+	private Collection<View<CyEdge>> edgeViews() {
+		if (viewSnapshot != null) {
+			return viewSnapshot.getEdgeViews();
+		}
+		return new ArrayList<View<CyEdge>>(networkView.getEdgeViews());
+	}
+
+	/**
+	 * Returns the view of a node, from the copy if one was taken
+	 * 
+	 * @param node
+	 *            CyNode being looked up
+	 * @return View of node, null if only the network is exported
+	 */
+	private View<CyNode> nodeViewOf(CyNode node) {
+		if (viewSnapshot != null) {
+			return viewSnapshot.getNodeView(node);
+		}
+		return (networkView != null) ? networkView.getNodeView(node) : null;
+	}
 
-			String networkName = network.getRow(network).get(CyNetwork.NAME,
-					String.class);
-			String networkProps;
+	/**
+	 * Returns the view of an edge, from the copy if one was taken
+	 * 
+	 * @param edge
+	 *            CyEdge being looked up
+	 * @return View of edge, null if only the network is exported
+	 */
+	private View<CyEdge> edgeViewOf(CyEdge edge) {
+		if (viewSnapshot != null) {
+			return viewSnapshot.getEdgeView(edge);
+		}
+		return (networkView != null) ? networkView.getEdgeView(edge) : null;
+	}
+
+	/**
+	 * Resolves the subset of nodes chosen by the user, reduced to the viewport
+	 * and highest-degree nodes if requested
+	 * 
+	 * @return BitSet over the indices of nodeStates, or null if all nodes are exported
+	 */
+	private BitSet resolveNodeSubset() {
+		String subsetMode = subsetModes.getSelectedValue();
+		LOGGER.info("Subset mode: " + subsetMode);
+		BitSet subset;
+		switch (subsetMode) {
+		case "Selected nodes":
+			subset = SubsetResolver.resolveSelected(network, nodeStates);
+			break;
+		case "Nodes matching column filter":
+			subset = SubsetResolver.resolveFilter(network, nodeStates, filterColumn, filterValue);
+			break;
+		default:
+			subset = null;
+			break;
+		}
+
+		// reduce level of detail for previews
+		if (viewportOnly && networkView != null) {
+			subset = LevelOfDetail.cullToViewport(networkView, nodeStates, subset);
+		}
+		if (topDegreeCount > 0) {
+			subset = LevelOfDetail.keepTopDegree(network, nodeStates, subset, topDegreeCount);
+		}
+		return subset;
+	}
+
+	/**
+	 * Builds the network properties, the opening of the graph declaration
+	 * 
+	 * @return network properties in .dot form
+	 */
+	private String buildProps() {
+		if (network == null) {
+			network = networkView.getModel();
+		}
+
+		String networkName = network.getRow(network).get(CyNetwork.NAME,
+				String.class);
+		String networkProps;
 
-			// if we are exporting network view
-			if (networkView != null) {
-				networkProps = networkMapper.getElementString();
+		// if we are only exporting positions, no graph attributes are needed
+		if (networkView != null && positionsOnly) {
+			String graphType = (directed) ? "digraph" : "graph";
+			networkProps = String.format("%s %s {\n", graphType,
+					Mapper.modifyElementID(networkName));
+			if (pinPositions) {
+				networkProps += "inputscale = \"72\"\nnotranslate = \"true\"\nsplines = \"false\"\n";
 			}
-			// if we are only exporting network
-			else {
-				String moddedName = Mapper.modifyElementID(networkName);
-				String label = (networkLabelLoc != null) ? moddedName : "";
-				networkProps = String.format("graph %s {\n"
-						+ "label = \"%s\"\n" + "splines = \"%s\"\n",
-						moddedName, label, splinesVal);
+		}
+		// if we are exporting network view
+		else if (networkView != null) {
+			networkProps = networkMapper.getElementString();
+		}
+		// if we are only exporting network
+		else {
+			String moddedName = Mapper.modifyElementID(networkName);
+			String label = (networkLabelLoc != null) ? moddedName : "";
+			networkProps = String.format("graph %s {\n"
+					+ "label = \"%s\"\n" + "splines = \"%s\"\n",
+					moddedName, label, splinesVal);
+		}
+		// if network name was modified
+		if (!networkProps.contains(networkName)) {
+			nameModified = true;
+		}
+		return networkProps;
+	}
+
+	/**
+	 * Writes the comment header mapping the compact IDs of the exported nodes
+	 * back to their names
+	 */
+	private void writeNameHeader() {
+		try {
+			LOGGER.info("Writing node name header...");
+			outputWriter.write(NodeNameHeader.MARKER);
+			outputWriter.write('\n');
+			int index = (nodeSubset != null) ? nodeSubset.nextSetBit(0) : 0;
+			while (index >= 0 && index < nodeStates.size() && !cancelled) {
+				String name = network.getRow(nodeStates.getNode(index)).get(CyNetwork.NAME, String.class);
+				outputWriter.write(NodeNameHeader.formatLine(nodeStates.getNodeID(index), name));
+				index = (nodeSubset != null) ? nodeSubset.nextSetBit(index + 1) : index + 1;
 			}
-			// if network name was modified
-			if (!networkProps.contains(networkName)) {
-				nameModified = true;
+		} catch (IOException exception) {
+			LOGGER.error("Write failed @ writeNameHeader()");
+		}
+	}
+
+	/**
+	 * Writes the network properties to file
+	 */
+	private void writeProps() {
+		try {
+			LOGGER.info("Writing network properties...");
+			// built ahead of time if the view was copied
+			if (networkProps == null) {
+				networkProps = buildProps();
 			}
 
 			outputWriter.write(networkProps);
@@ -381,12 +875,132 @@ public class DotWriterTask implements CyWriter {
 		}
 	}
 
+	/**
+	 * Shows a warning in a dialog, or reports it to the TaskMonitor when this
+	 * task is not interactive
+	 * 
+	 * @param taskMonitor
+	 *            TaskMonitor of the running task
+	 * @param message
+	 *            warning being shown
+	 */
+	private void showWarning(TaskMonitor taskMonitor, String message) {
+		if (interactive) {
+			Notifier.showMessage(message, Notifier.MessageType.WARNING);
+		} else {
+			LOGGER.warn(message);
+			taskMonitor.showMessage(TaskMonitor.Level.WARN, message);
+		}
+	}
+
 	/**
 	 * Causes the task to stop execution.
 	 */
 	@Override
 	public void cancel() {
 		cancelled = true;
+		for (DotWriterTask partWriter : partWriters) {
+			partWriter.cancel();
+		}
+	}
+
+	/**
+	 * Writes the network properties, nodes and edges to file and closes it
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be closed
+	 */
+	private void writeGraph() throws IOException {
+		try {
+			if (compactIDs) {
+				writeNameHeader();
+			}
+			writeProps();
+			writeNodes();
+			writeEdges();
+			outputWriter.write("}");
+		} finally {
+			outputWriter.close();
+		}
+	}
+
+	/**
+	 * Writes this part to its own file. The file is opened here, so that only
+	 * the parts being written hold a file open, and is deleted if it cannot
+	 * be written completely
+	 * 
+	 * @param file
+	 *            file of this part
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	private void writePart(File file) throws IOException {
+		outputWriter = new OutputStreamWriter(new FileOutputStream(file));
+		boolean written = false;
+		try {
+			writeGraph();
+			written = true;
+		} finally {
+			if (!written && !file.delete()) {
+				LOGGER.warn("Could not delete partially written file " + file);
+			}
+		}
+	}
+
+	/**
+	 * Splits the exported nodes into connected components and writes each
+	 * part to its own file. The other parts are written in parallel while
+	 * this task writes the largest part to its own output
+	 * 
+	 * @param taskMonitor
+	 *            TaskMonitor of the running task
+	 * @throws Exception
+	 *             if a part cannot be written
+	 */
+	private void writeParts(TaskMonitor taskMonitor) throws Exception {
+		List<BitSet> parts = ComponentPartitioner.partition(network, nodeStates, nodeSubset, minPartSize);
+		if (parts.size() <= 1) {
+			writeGraph();
+			return;
+		}
+
+		String baseName = partFile.getName();
+		int extensionStart = baseName.lastIndexOf('.');
+		if (extensionStart > 0) {
+			baseName = baseName.substring(0, extensionStart);
+		}
+		File directory = partFile.getAbsoluteFile().getParentFile();
+
+		int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), parts.size() - 1));
+		LOGGER.info(String.format("Writing %d parts on %d threads...", parts.size(), threadCount));
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 1; i < parts.size(); i++) {
+				final File file = new File(directory, baseName + "_" + i + ".gv");
+				final DotWriterTask partWriter = new DotWriterTask(this, parts.get(i));
+				partWriters.add(partWriter);
+				futures.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						partWriter.writePart(file);
+						return null;
+					}
+				}));
+			}
+
+			// the largest part goes to the export file itself
+			nodeSubset = parts.get(0);
+			writeGraph();
+			for (int i = 0; i < futures.size(); i++) {
+				futures.get(i).get();
+				// a part may have modified a name the largest part does not contain
+				nameModified |= partWriters.get(i).nameModified;
+				taskMonitor.setProgress((i + 2) / (double) parts.size());
+			}
+		} finally {
+			pool.shutdown();
+		}
 	}
 
 	/**
@@ -408,33 +1022,45 @@ public class DotWriterTask implements CyWriter {
 			// be determined until run()
 			this.networkMapper = new NetworkPropertyMapper(networkView,
 					directed, splinesVal, networkLabelLoc, nodeLabelLoc,
-					vizStyle);
+					vizStyle, encodingCache);
+		}
+
+		if (splitComponents && partFile == null) {
+			throw new IllegalArgumentException("No file name selected for the other components");
+		}
+		if (network == null) {
+			network = networkView.getModel();
+		}
+		taskMonitor.setStatusMessage("Indexing nodes...");
+		nodeStates = new NodeStateIndex(network, networkView, compactIDs);
+		nodeSubset = resolveNodeSubset();
+		if (snapshotView && networkView != null) {
+			taskMonitor.setStatusMessage("Copying view...");
+			viewSnapshot = new ViewSnapshot(networkView, nodeStates);
+			networkProps = buildProps();
+			LOGGER.info("View copied, it is no longer read while writing");
 		}
 
 		LOGGER.info("Writing .dot file...");
-		taskMonitor.setStatusMessage("Writing network attributes...");
-		writeProps();
-		taskMonitor.setStatusMessage("Writing node declarations...");
-		writeNodes();
-		taskMonitor.setStatusMessage("Writing edge declarations...");
-		writeEdges();
-
-		taskMonitor.setStatusMessage("Closing off file...");
-		// Close off file and notify if needed
+		// Write file, close it off and notify if needed
 		try {
-			outputWriter.write("}");
-			outputWriter.close();
+			if (splitComponents) {
+				taskMonitor.setStatusMessage("Writing connected components...");
+				writeParts(taskMonitor);
+			} else {
+				taskMonitor.setStatusMessage("Writing network...");
+				writeGraph();
+			}
 			LOGGER.info("Finished writing file");
 			if (nameModified) {
-				Notifier.showMessage(
-						"Some names have been modified in order to comply to DOT syntax",
-						Notifier.MessageType.WARNING);
+				showWarning(taskMonitor,
+						"Some names have been modified in order to comply to DOT syntax");
 			} else if (cancelled) {
-				Notifier.showMessage("Export cancelled. Be sure to delete the created file",
-						Notifier.MessageType.WARNING);
+				showWarning(taskMonitor, "Export cancelled. Be sure to delete the created file");
 			}
 		} catch (IOException e) {
 			LOGGER.error("Failed to close file, IOException in DotWriterTask");
+			throw new RuntimeException("Sorry! File could not be written", e);
 		} catch (Exception e) {
 			LOGGER.error("Not an IOException");
 			throw new RuntimeException(e);
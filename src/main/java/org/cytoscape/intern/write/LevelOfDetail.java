@@ -0,0 +1,117 @@
+package org.cytoscape.intern.write;
+
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NETWORK_CENTER_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NETWORK_CENTER_Y_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NETWORK_HEIGHT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NETWORK_SCALE_FACTOR;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NETWORK_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_HEIGHT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reduces the nodes of an export to a level of detail suited for previews:
+ * the nodes inside the current viewport of a view, and/or the nodes with the
+ * highest degree. Results are BitSets over the dense node indices of a
+ * NodeStateIndex
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class LevelOfDetail {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(LevelOfDetail.class);
+
+	/**
+	 * Returns the nodes whose bounds intersect the part of the network shown
+	 * by a view. Each candidate's bounds are tested as its view is read
+	 *
+	 * @param networkView CyNetworkView whose viewport is used
+	 * @param nodeStates NodeStateIndex of the network of networkView
+	 * @param nodeSubset indices of candidate nodes, null for all nodes
+	 * @return BitSet of the candidate nodes inside the viewport
+	 */
+	public static BitSet cullToViewport(CyNetworkView networkView, NodeStateIndex nodeStates, BitSet nodeSubset) {
+		int nodeCount = nodeStates.size();
+
+		// viewport bounds in network coordinates
+		double scale = networkView.getVisualProperty(NETWORK_SCALE_FACTOR);
+		double halfWidth = networkView.getVisualProperty(NETWORK_WIDTH) / (2 * scale);
+		double halfHeight = networkView.getVisualProperty(NETWORK_HEIGHT) / (2 * scale);
+		double centerX = networkView.getVisualProperty(NETWORK_CENTER_X_LOCATION);
+		double centerY = networkView.getVisualProperty(NETWORK_CENTER_Y_LOCATION);
+		double minX = centerX - halfWidth;
+		double maxX = centerX + halfWidth;
+		double minY = centerY - halfHeight;
+		double maxY = centerY + halfHeight;
+		LOGGER.debug(String.format("Viewport is [%f,%f]x[%f,%f]", minX, maxX, minY, maxY));
+
+		// every candidate view is read once, so its bounds are tested right away
+		BitSet visible = new BitSet(nodeCount);
+		int candidateCount = 0;
+		for (View<CyNode> nodeView : networkView.getNodeViews()) {
+			int index = nodeStates.indexOf(nodeView.getModel());
+			if (index < 0 || (nodeSubset != null && !nodeSubset.get(index))) {
+				continue;
+			}
+			candidateCount++;
+			double x = nodeView.getVisualProperty(NODE_X_LOCATION);
+			double y = nodeView.getVisualProperty(NODE_Y_LOCATION);
+			double halfNodeWidth = nodeView.getVisualProperty(NODE_WIDTH) / 2;
+			double halfNodeHeight = nodeView.getVisualProperty(NODE_HEIGHT) / 2;
+			if (x + halfNodeWidth >= minX && x - halfNodeWidth <= maxX
+					&& y + halfNodeHeight >= minY && y - halfNodeHeight <= maxY) {
+				visible.set(index);
+			}
+		}
+		LOGGER.info(visible.cardinality() + " of " + candidateCount + " nodes are inside the viewport");
+		return visible;
+	}
+
+	/**
+	 * Returns the nodes with the highest degree. Ties are broken by node order
+	 *
+	 * @param network CyNetwork containing the nodes
+	 * @param nodeStates NodeStateIndex of network
+	 * @param nodeSubset indices of candidate nodes, null for all nodes
+	 * @param count number of nodes kept
+	 * @return BitSet of at most count candidate nodes
+	 */
+	public static BitSet keepTopDegree(CyNetwork network, NodeStateIndex nodeStates, BitSet nodeSubset, int count) {
+		int nodeCount = nodeStates.size();
+		if (nodeSubset == null) {
+			nodeSubset = new BitSet(nodeCount);
+			nodeSubset.set(0, nodeCount);
+		}
+
+		// degree in the high bits and inverted index in the low bits, so one sort orders both
+		long[] ranked = new long[nodeSubset.cardinality()];
+		int rankedCount = 0;
+		for (int index = nodeSubset.nextSetBit(0); index >= 0; index = nodeSubset.nextSetBit(index + 1)) {
+			long degree = network.getAdjacentEdgeList(nodeStates.getNode(index), CyEdge.Type.ANY).size();
+			ranked[rankedCount++] = (degree << 32) | (Integer.MAX_VALUE - index);
+		}
+		Arrays.sort(ranked);
+
+		BitSet kept = new BitSet(nodeCount);
+		for (int i = ranked.length - 1; i >= 0 && ranked.length - i <= count; i--) {
+			kept.set(Integer.MAX_VALUE - (int) (ranked[i] & 0xFFFFFFFFL));
+		}
+		return kept;
+	}
+}
@@ -0,0 +1,167 @@
+package org.cytoscape.intern.write;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the subsets of nodes that can be exported into BitSets over the
+ * dense node indices of a NodeStateIndex. Each subset is resolved with a single
+ * pass over the matching rows of the node table
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class SubsetResolver {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(SubsetResolver.class);
+
+	/**
+	 * Returns the nodes that are selected in a network
+	 *
+	 * @param network CyNetwork being exported
+	 * @param nodeStates NodeStateIndex of network
+	 * @return BitSet with bit i set when node i is selected
+	 */
+	public static BitSet resolveSelected(CyNetwork network, NodeStateIndex nodeStates) {
+		CyTable nodeTable = network.getDefaultNodeTable();
+		return toBitSet(nodeTable.getMatchingRows(CyNetwork.SELECTED, Boolean.TRUE), nodeStates);
+	}
+
+	/**
+	 * Returns the nodes whose value in a column equals a value. For list
+	 * columns, nodes whose list contains the value are returned
+	 *
+	 * @param network CyNetwork being exported
+	 * @param nodeStates NodeStateIndex of network
+	 * @param columnName name of node table column being filtered on
+	 * @param value value being matched, as typed by the user
+	 * @return BitSet with bit i set when node i matches the filter
+	 * @throws IllegalArgumentException if the column does not exist or value
+	 * cannot be converted to the column type
+	 */
+	public static BitSet resolveFilter(CyNetwork network, NodeStateIndex nodeStates,
+			String columnName, String value) {
+		CyTable nodeTable = network.getDefaultNodeTable();
+		CyColumn column = nodeTable.getColumn(columnName);
+		if (column == null) {
+			throw new IllegalArgumentException("Node column \"" + columnName + "\" does not exist");
+		}
+
+		if (List.class.equals(column.getType())) {
+			LOGGER.debug("Filtering on list column " + columnName);
+			BitSet matches = new BitSet(nodeStates.size());
+			for (CyRow row : nodeTable.getAllRows()) {
+				List<?> list = row.getList(columnName, column.getListElementType());
+				if (list == null) {
+					continue;
+				}
+				for (Object element : list) {
+					if (element != null && value.equals(element.toString())) {
+						setBit(matches, row, nodeStates);
+						break;
+					}
+				}
+			}
+			return matches;
+		}
+
+		Object typedValue = parseValue(value, column.getType());
+		return toBitSet(nodeTable.getMatchingRows(columnName, typedValue), nodeStates);
+	}
+
+	/**
+	 * Returns the edges whose source and target are both in a subset of nodes,
+	 * in the order of their sources. Only the adjacency lists of nodes in the
+	 * subset are visited, so cost grows with the size of the subset
+	 *
+	 * @param network CyNetwork being exported
+	 * @param nodeStates NodeStateIndex of network
+	 * @param nodeSubset indices of nodes in the subset
+	 * @return List of the edges induced by nodeSubset, each listed once
+	 */
+	public static List<CyEdge> resolveInducedEdges(CyNetwork network, NodeStateIndex nodeStates, BitSet nodeSubset) {
+		List<CyEdge> edges = new ArrayList<CyEdge>();
+		// self-loops can be listed twice in a node's adjacency list
+		Set<CyEdge> loops = new HashSet<CyEdge>();
+
+		for (int index = nodeSubset.nextSetBit(0); index >= 0; index = nodeSubset.nextSetBit(index + 1)) {
+			CyNode node = nodeStates.getNode(index);
+			for (CyEdge edge : network.getAdjacentEdgeList(node, CyEdge.Type.ANY)) {
+				// each edge is listed once, when its source is visited
+				if (!edge.getSource().equals(node)) {
+					continue;
+				}
+				int targetIndex = nodeStates.indexOf(edge.getTarget());
+				if (targetIndex < 0 || !nodeSubset.get(targetIndex)) {
+					continue;
+				}
+				if (targetIndex == index && !loops.add(edge)) {
+					continue;
+				}
+				edges.add(edge);
+			}
+		}
+		return edges;
+	}
+
+	/**
+	 * Converts a value typed by the user to the type of a column
+	 *
+	 * @param value String being converted
+	 * @param type type of the column
+	 * @return value as an instance of type
+	 */
+	private static Object parseValue(String value, Class<?> type) {
+		try {
+			if (Integer.class.equals(type)) {
+				return Integer.valueOf(value.trim());
+			}
+			if (Long.class.equals(type)) {
+				return Long.valueOf(value.trim());
+			}
+			if (Double.class.equals(type)) {
+				return Double.valueOf(value.trim());
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("\"" + value + "\" is not a valid " + type.getSimpleName());
+		}
+		if (Boolean.class.equals(type)) {
+			return Boolean.valueOf(value.trim());
+		}
+		return value;
+	}
+
+	private static BitSet toBitSet(Collection<CyRow> rows, NodeStateIndex nodeStates) {
+		BitSet matches = new BitSet(nodeStates.size());
+		for (CyRow row : rows) {
+			setBit(matches, row, nodeStates);
+		}
+		return matches;
+	}
+
+	private static void setBit(BitSet matches, CyRow row, NodeStateIndex nodeStates) {
+		Long suid = row.get(CyIdentifiable.SUID, Long.class);
+		int index = (suid == null) ? -1 : nodeStates.indexOf(suid);
+		// rows of nodes that belong to another network sharing the table are skipped
+		if (index >= 0) {
+			matches.set(index);
+		}
+	}
+}
@@ -40,16 +40,43 @@ public class EdgePropertyMapper extends Mapper {
 	
 	private CyNetworkView networkView;
 	
+	// visibility of the nodes of the network, null if it must be read from networkView
+	private NodeStateIndex nodeStates;
+	
 	/**
 	 * Constructs EdgePropertyMapper object
 	 * 
 	 * @param view of edge we are converting
 	 */
 	public EdgePropertyMapper(View<CyEdge> view, VisualStyle vizStyle, CyNetworkView networkView) {
-		super(view, vizStyle);
+		this(view, vizStyle, networkView, new EncodingCache());
+	}
+
+	/**
+	 * Constructs EdgePropertyMapper object
+	 * 
+	 * @param view of edge we are converting
+	 * @param encodingCache EncodingCache shared by all mappers of the export
+	 */
+	public EdgePropertyMapper(View<CyEdge> view, VisualStyle vizStyle, CyNetworkView networkView,
+			EncodingCache encodingCache) {
+		this(view, vizStyle, networkView, encodingCache, null);
+	}
+
+	/**
+	 * Constructs EdgePropertyMapper object
+	 * 
+	 * @param view of edge we are converting
+	 * @param encodingCache EncodingCache shared by all mappers of the export
+	 * @param nodeStates NodeStateIndex of the network the edge belongs to
+	 */
+	public EdgePropertyMapper(View<CyEdge> view, VisualStyle vizStyle, CyNetworkView networkView,
+			EncodingCache encodingCache, NodeStateIndex nodeStates) {
+		super(view, vizStyle, encodingCache);
 		// initialize data structure
 		simpleVisPropsToDot = new ArrayList<String>();
 		this.networkView = networkView;
+		this.nodeStates = nodeStates;
 		populateMaps();		
 	}
 	
@@ -64,10 +91,18 @@ public class EdgePropertyMapper extends Mapper {
 		CyEdge model = ((View<CyEdge>)view).getModel();
 		CyNode source = model.getSource();
 		CyNode target = model.getTarget();
-		View<CyNode> sourceView = networkView.getNodeView(source);
-		View<CyNode> targetView = networkView.getNodeView(target);
-		boolean visibleBySource = sourceView.getVisualProperty(NODE_VISIBLE);
-		boolean visibleByTarget = targetView.getVisualProperty(NODE_VISIBLE);
+		boolean visibleBySource;
+		boolean visibleByTarget;
+		if (nodeStates != null) {
+			visibleBySource = nodeStates.isVisible(source);
+			visibleByTarget = nodeStates.isVisible(target);
+		}
+		else {
+			View<CyNode> sourceView = networkView.getNodeView(source);
+			View<CyNode> targetView = networkView.getNodeView(target);
+			visibleBySource = sourceView.getVisualProperty(NODE_VISIBLE);
+			visibleByTarget = targetView.getVisualProperty(NODE_VISIBLE);
+		}
 		if (!visibleBySource || !visibleByTarget) {
 			LOGGER.trace("Edge not visible due to source node or target node's property.");
 			return false;
@@ -124,17 +159,17 @@ public class EdgePropertyMapper extends Mapper {
 		if (!isEqualToDefault(EDGE_TARGET_ARROW_SHAPE)) {
 			ArrowShape targetArrow = view.getVisualProperty(EDGE_TARGET_ARROW_SHAPE);
 			LOGGER.debug("Retrieving target/head arrow. CS version is: " + targetArrow);
-			String dotTargetArrow = ARROW_SHAPE_MAP.get(targetArrow);
+			String dotTargetArrow = encodingCache.getArrowHeadAttribute(targetArrow);
 			LOGGER.debug("Target/head arrow retrieved. .dot verison is: " + dotTargetArrow);
-			simpleVisPropsToDot.add(String.format("arrowhead = \"%s\"", dotTargetArrow));
+			simpleVisPropsToDot.add(dotTargetArrow);
 		}
 				
 		if (!isEqualToDefault(EDGE_SOURCE_ARROW_SHAPE)) {
 			ArrowShape sourceArrow = view.getVisualProperty(EDGE_SOURCE_ARROW_SHAPE);
 			LOGGER.debug("Retrieving source/tail arrow. CS version is: " + sourceArrow);
-			String dotSourceArrow = ARROW_SHAPE_MAP.get(sourceArrow);
+			String dotSourceArrow = encodingCache.getArrowTailAttribute(sourceArrow);
 			LOGGER.debug("Source/tail arrow retrieved. .dot verison is: " + dotSourceArrow);
-			simpleVisPropsToDot.add(String.format("arrowtail = \"%s\"", dotSourceArrow));
+			simpleVisPropsToDot.add(dotSourceArrow);
 		}
 	}
 	
@@ -147,14 +182,8 @@ public class EdgePropertyMapper extends Mapper {
 		if(!isEqualToDefault(EDGE_LINE_TYPE) || !isEqualToDefault(isVisible, EDGE_VISIBLE)) {
 			LOGGER.trace("Not default style attr, building edge's own...");
 			LineType lineType = view.getVisualProperty(EDGE_LINE_TYPE);
-			String lineStr = LINE_TYPE_MAP.get(lineType);
 			dotStyle = new StringBuilder();
-			if (lineStr == null) {
-				lineStr = "solid";
-				LOGGER.warn("Cytoscape property doesn't map to a .dot attribute. Setting to default");
-			}
-			String invisString = (!isVisible) ? ",invis" : "";
-			String style = String.format("style = \"%s%s\"", lineStr, invisString);
+			String style = encodingCache.getEdgeStyle(lineType, isVisible);
 			dotStyle.append(style);
 		}
 		if(dotStyle == null) {
@@ -185,7 +214,7 @@ public class EdgePropertyMapper extends Mapper {
 		if (!isEqualToDefault(EDGE_STROKE_UNSELECTED_PAINT) || !isEqualToDefault(EDGE_TRANSPARENCY)) {
 			Color strokeColor = (Color) view.getVisualProperty(EDGE_STROKE_UNSELECTED_PAINT);
 			Integer strokeTransparency = ((Number)view.getVisualProperty(EDGE_TRANSPARENCY)).intValue();
-			String dotColor = String.format("color = \"%s\"", mapColorToDot(strokeColor, strokeTransparency));
+			String dotColor = mapColorAttribute("color", strokeColor, strokeTransparency);
 			elementString.append(dotColor + ",");
 		}
 		
@@ -0,0 +1,386 @@
+package org.cytoscape.intern.write.mapper;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.cytoscape.view.presentation.property.values.ArrowShape;
+import org.cytoscape.view.presentation.property.values.LineType;
+import org.cytoscape.view.presentation.property.values.NodeShape;
+import org.cytoscape.view.vizmap.VisualStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memoizes the .dot encodings of values that repeat across the elements of an
+ * export: colors, node shapes, arrow shapes, line types and fonts. Each distinct
+ * value is encoded once, after which its encoding costs a single lookup.
+ *
+ * One EncodingCache is meant to be shared by all Mappers of a single export.
+ * It also owns the rest of the export's formatting state, so exports that each
+ * use their own EncodingCache can safely run concurrently. It is not thread-safe.
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class EncodingCache {
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(EncodingCache.class);
+
+	// Object that formats all of the numbers. Decimal separator is forced to '.' for GraphViz
+	private DecimalFormat decimalFormatter = new DecimalFormat("#0.000000;-#0.000000");
+	{
+		DecimalFormatSymbols formatSymbols = decimalFormatter.getDecimalFormatSymbols();
+		formatSymbols.setDecimalSeparator('.');
+		decimalFormatter.setDecimalFormatSymbols(formatSymbols);
+	}
+
+	// whether positions are pinned with a trailing '!' so neato -n keeps them
+	private boolean pinPositions = false;
+
+	// whether node width and height are locked, for each VisualStyle seen so far
+	private Map<VisualStyle, Boolean> nodeSizesLocked = new IdentityHashMap<VisualStyle, Boolean>();
+
+	// bare "#rrggbbaa" strings, keyed by packed RGBA value
+	private ColorTable hexColors = new ColorTable("", "");
+
+	// full color attributes (eg. fillcolor = "#rrggbbaa"), one table per attribute name
+	private Map<String, ColorTable> colorAttributes = new HashMap<String, ColorTable>();
+
+	// shape = "..." attribute for each NodeShape seen so far
+	private Map<NodeShape, String> shapeAttributes = new IdentityHashMap<NodeShape, String>();
+
+	// arrowhead = "..." and arrowtail = "..." attributes for each ArrowShape seen so far
+	private Map<ArrowShape, String> arrowHeadAttributes = new IdentityHashMap<ArrowShape, String>();
+	private Map<ArrowShape, String> arrowTailAttributes = new IdentityHashMap<ArrowShape, String>();
+
+	/*
+	 * style = "..." attributes for each LineType seen so far. Array is indexed
+	 * by the style flags of the element (see getNodeStyle/getEdgeStyle)
+	 */
+	private Map<LineType, String[]> nodeStyles = new IdentityHashMap<LineType, String[]>();
+	private Map<LineType, String[]> edgeStyles = new IdentityHashMap<LineType, String[]>();
+
+	// fontname = "..." attribute for each Font seen so far
+	private Map<Font, String> fontNameAttributes = new HashMap<Font, String>();
+
+	/**
+	 * Returns the number formatter of this export
+	 *
+	 * @return DecimalFormat that writes numbers with six decimal places and '.' separator
+	 */
+	public DecimalFormat getDecimalFormatter() {
+		return decimalFormatter;
+	}
+
+	/**
+	 * Sets whether positions written by this export are pinned
+	 *
+	 * @param pinPositions true to append '!' to every position
+	 */
+	public void setPinPositions(boolean pinPositions) {
+		this.pinPositions = pinPositions;
+	}
+
+	/**
+	 * Returns whether positions written by this export are pinned
+	 *
+	 * @return true if '!' is appended to every position
+	 */
+	public boolean isPinPositions() {
+		return pinPositions;
+	}
+
+	/**
+	 * Returns the String that denotes a position in .dot format. Coordinates
+	 * stay in points, pinned exports declare inputscale = 72 so GraphViz
+	 * converts them. Positive y is down in Cytoscape and up in GraphViz,
+	 * so the y-value is negated
+	 *
+	 * @param x x coordinate of position
+	 * @param y y coordinate of position
+	 * @return String in form x,y or x,y! if positions are pinned
+	 */
+	public String formatPosition(double x, double y) {
+		StringBuilder position = new StringBuilder(24);
+		position.append(decimalFormatter.format(x));
+		position.append(',');
+		position.append(decimalFormatter.format(-1 * y));
+		if (pinPositions) {
+			position.append('!');
+		}
+		return position.toString();
+	}
+
+	/**
+	 * Checks whether node size is locked in a VisualStyle. Result is computed
+	 * once per VisualStyle
+	 *
+	 * @param vizStyle VisualStyle being checked
+	 * @return true if size is locked, false if not
+	 */
+	public boolean areNodeSizesLocked(VisualStyle vizStyle) {
+		Boolean locked = nodeSizesLocked.get(vizStyle);
+		if (locked == null) {
+			locked = Mapper.areNodeSizesLocked(vizStyle);
+			nodeSizesLocked.put(vizStyle, locked);
+		}
+		return locked;
+	}
+
+	/**
+	 * Packs a color and alpha level into a single RGBA int
+	 *
+	 * @param color color being packed. Its own alpha is ignored
+	 * @param alpha alpha level of that color from 0-255
+	 * @return int of the form 0xRRGGBBAA
+	 */
+	public static int packColor(Color color, int alpha) {
+		return (color.getRGB() << 8) | (alpha & 0xFF);
+	}
+
+	/**
+	 * Returns the .dot color string for a packed RGBA value
+	 *
+	 * @param rgba color in the form 0xRRGGBBAA
+	 * @return String in the form "#RRGGBBAA"
+	 */
+	static String encodeColor(int rgba) {
+		char[] encoded = new char[9];
+		encoded[0] = '#';
+		for (int i = 8; i > 0; i--) {
+			encoded[i] = HEX_DIGITS[rgba & 0xF];
+			rgba >>>= 4;
+		}
+		return new String(encoded);
+	}
+
+	/**
+	 * Given a color, returns the color in String format that .dot uses for color.
+	 * Format is "#rrggbbaa" -- red, green, blue, alpha in hexadecimal
+	 *
+	 * @param color color being converted
+	 * @param alpha alpha level of that color from 0-255
+	 * @return String representation of color in .dot format of rgba
+	 */
+	public String getColor(Color color, int alpha) {
+		return hexColors.get(packColor(color, alpha));
+	}
+
+	/**
+	 * Returns a complete .dot color attribute eg. fillcolor = "#rrggbbaa"
+	 *
+	 * @param attrName name of the .dot attribute eg. color, fillcolor, fontcolor
+	 * @param color color being converted
+	 * @param alpha alpha level of that color from 0-255
+	 * @return String in form attrName = "#rrggbbaa"
+	 */
+	public String getColorAttribute(String attrName, Color color, int alpha) {
+		ColorTable table = colorAttributes.get(attrName);
+		if (table == null) {
+			table = new ColorTable(attrName + " = \"", "\"");
+			colorAttributes.put(attrName, table);
+		}
+		return table.get(packColor(color, alpha));
+	}
+
+	/**
+	 * Returns the .dot shape attribute for a NodeShape. Shapes that have no
+	 * .dot equivalent are written as rectangles
+	 *
+	 * @param shape NodeShape being converted
+	 * @return String in form shape = "..."
+	 */
+	public String getShapeAttribute(NodeShape shape) {
+		String attribute = shapeAttributes.get(shape);
+		if (attribute == null) {
+			String shapeStr = Mapper.NODE_SHAPE_MAP.get(shape);
+			// default if there is no match
+			if (shapeStr == null) {
+				shapeStr = "rectangle";
+				LOGGER.warn("Cytoscape property doesn't map to a .dot attribute. Setting to default");
+			}
+			attribute = "shape = \"" + shapeStr + "\"";
+			shapeAttributes.put(shape, attribute);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Returns the .dot arrowhead attribute for an ArrowShape
+	 *
+	 * @param arrow ArrowShape of the edge target
+	 * @return String in form arrowhead = "..."
+	 */
+	public String getArrowHeadAttribute(ArrowShape arrow) {
+		String attribute = arrowHeadAttributes.get(arrow);
+		if (attribute == null) {
+			attribute = "arrowhead = \"" + Mapper.ARROW_SHAPE_MAP.get(arrow) + "\"";
+			arrowHeadAttributes.put(arrow, attribute);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Returns the .dot arrowtail attribute for an ArrowShape
+	 *
+	 * @param arrow ArrowShape of the edge source
+	 * @return String in form arrowtail = "..."
+	 */
+	public String getArrowTailAttribute(ArrowShape arrow) {
+		String attribute = arrowTailAttributes.get(arrow);
+		if (attribute == null) {
+			attribute = "arrowtail = \"" + Mapper.ARROW_SHAPE_MAP.get(arrow) + "\"";
+			arrowTailAttributes.put(arrow, attribute);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Returns the .dot equivalent of a line type. Line types that have no
+	 * .dot equivalent are written as solid lines
+	 *
+	 * @param lineType LineType being converted
+	 * @return String that is solid, dashed or dotted
+	 */
+	public String getLineStyle(LineType lineType) {
+		String lineStr = Mapper.LINE_TYPE_MAP.get(lineType);
+		if (lineStr == null) {
+			lineStr = "solid";
+			LOGGER.warn("Cytoscape property doesn't map to a .dot attribute. Setting to default");
+		}
+		return lineStr;
+	}
+
+	/**
+	 * Returns the .dot style attribute of a node
+	 *
+	 * @param lineType border line type of the node
+	 * @param rounded whether the node is a rounded rectangle
+	 * @param visible whether the node is visible
+	 * @return String in form style = "line,[rounded,][invis,]filled"
+	 */
+	public String getNodeStyle(LineType lineType, boolean rounded, boolean visible) {
+		String[] styles = nodeStyles.get(lineType);
+		if (styles == null) {
+			styles = new String[4];
+			nodeStyles.put(lineType, styles);
+		}
+		int flags = (rounded ? 1 : 0) | (visible ? 0 : 2);
+		if (styles[flags] == null) {
+			String roundedString = (rounded) ? "rounded," : "";
+			String invisString = (!visible) ? "invis," : "";
+			styles[flags] = "style = \"" + getLineStyle(lineType) + "," + roundedString + invisString + "filled\"";
+		}
+		return styles[flags];
+	}
+
+	/**
+	 * Returns the .dot style attribute of an edge
+	 *
+	 * @param lineType line type of the edge
+	 * @param visible whether the edge is visible
+	 * @return String in form style = "line[,invis]"
+	 */
+	public String getEdgeStyle(LineType lineType, boolean visible) {
+		String[] styles = edgeStyles.get(lineType);
+		if (styles == null) {
+			styles = new String[2];
+			edgeStyles.put(lineType, styles);
+		}
+		int flags = (visible) ? 0 : 1;
+		if (styles[flags] == null) {
+			String invisString = (!visible) ? ",invis" : "";
+			styles[flags] = "style = \"" + getLineStyle(lineType) + invisString + "\"";
+		}
+		return styles[flags];
+	}
+
+	/**
+	 * Returns the .dot fontname attribute of a font
+	 *
+	 * @param font Font being converted
+	 * @return String in form fontname = "..."
+	 */
+	public String getFontNameAttribute(Font font) {
+		String attribute = fontNameAttributes.get(font);
+		if (attribute == null) {
+			attribute = "fontname = \"" + font.getFontName() + "\"";
+			fontNameAttributes.put(font, attribute);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Open-addressed table from packed RGBA ints to their encodings, so
+	 * color lookups neither box nor hash an Object
+	 */
+	private static class ColorTable {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		// text written before and after the "#rrggbbaa" string
+		private final String prefix;
+		private final String suffix;
+
+		private int[] keys = new int[INITIAL_CAPACITY];
+		// null marks an empty slot, since every int is a valid RGBA key
+		private String[] values = new String[INITIAL_CAPACITY];
+		private int size = 0;
+
+		ColorTable(String prefix, String suffix) {
+			this.prefix = prefix;
+			this.suffix = suffix;
+		}
+
+		private static int slotOf(int key, int mask) {
+			int hash = key * 0x9E3779B9;
+			return (hash ^ (hash >>> 16)) & mask;
+		}
+
+		String get(int rgba) {
+			int mask = keys.length - 1;
+			int slot = slotOf(rgba, mask);
+			while (values[slot] != null) {
+				if (keys[slot] == rgba) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			String encoded = prefix + encodeColor(rgba) + suffix;
+			keys[slot] = rgba;
+			values[slot] = encoded;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+			return encoded;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			String[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new String[oldValues.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] == null) {
+					continue;
+				}
+				int slot = slotOf(oldKeys[i], mask);
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
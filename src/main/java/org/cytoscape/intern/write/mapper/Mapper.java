@@ -24,7 +24,6 @@ import static org.cytoscape.view.presentation.property.NodeShapeVisualProperty.T
 import java.awt.Color;
 import java.awt.Font;
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Set;
@@ -63,17 +62,14 @@ public abstract class Mapper {
 	// view that this mapper object is mapping
 	protected View<? extends CyIdentifiable> view;
 
+	// memoized .dot encodings shared by every mapper of the same export
+	protected EncodingCache encodingCache;
+
 	// If node width and height are locked
-	private static boolean nodeSizesLockedIsSet = false;
-	protected static boolean nodeSizesLocked;
+	protected boolean nodeSizesLocked;
 	
-	// Object that formats all of the numbers. Decimal separator is forced to '.' for GraphViz
-	protected static DecimalFormat decimalFormatter = new DecimalFormat("#0.000000;-#0.000000");
-	static {
-		DecimalFormatSymbols formatSymbols = decimalFormatter.getDecimalFormatSymbols();
-		formatSymbols.setDecimalSeparator('.');
-		decimalFormatter.setDecimalFormatSymbols(formatSymbols);
-	}
+	// Object that formats all of the numbers. Owned by encodingCache, so it is never shared between exports
+	protected DecimalFormat decimalFormatter;
 	
 	/*
 	 * Maps Cytoscape line types to the equivalent string used in .dot
@@ -132,7 +128,7 @@ public abstract class Mapper {
 	 * @param visualStyle VisualStyle being checked if node sizes are locked
 	 * @return true if size is locked, false if not
 	 */
-	private static boolean areNodeSizesLocked(VisualStyle visualStyle) {
+	static boolean areNodeSizesLocked(VisualStyle visualStyle) {
 		LOGGER.info("Determining if NODE_HEIGHT/NODE_WIDTH are locked...");
 		Set<VisualPropertyDependency<?>> vizDependencies = visualStyle.getAllVisualPropertyDependencies();
 		boolean output = false;
@@ -197,12 +193,22 @@ public abstract class Mapper {
 	 * @param vizStyle Visual Style being applied to the view
 	 */
 	public Mapper(View<? extends CyIdentifiable> view, VisualStyle vizStyle) {
+		this(view, vizStyle, new EncodingCache());
+	}
+
+	/**
+	 * Constructor for Mapper objects that share encodings with other mappers
+	 * 
+	 * @param view View being mapped to dot by this mapper
+	 * @param vizStyle Visual Style being applied to the view
+	 * @param encodingCache EncodingCache shared by all mappers of the export
+	 */
+	public Mapper(View<? extends CyIdentifiable> view, VisualStyle vizStyle, EncodingCache encodingCache) {
 		this.view = view;
 		this.vizStyle = vizStyle;
-		if (!nodeSizesLockedIsSet) {
-			nodeSizesLocked = areNodeSizesLocked(vizStyle);
-			nodeSizesLockedIsSet = true;
-		}
+		this.encodingCache = encodingCache;
+		this.decimalFormatter = encodingCache.getDecimalFormatter();
+		this.nodeSizesLocked = encodingCache.areNodeSizesLocked(vizStyle);
 	}
 	
 	/**
@@ -237,13 +243,19 @@ public abstract class Mapper {
 	 * @return String representation of color in .dot format of rgba
 	 */
 	protected String mapColorToDot(Color color, Integer alpha) {
-		LOGGER.trace("Creating .dot color attribute string");
-		Integer red = color.getRed();
-		Integer green = color.getGreen();
-		Integer blue = color.getBlue();
-		String result = String.format("#%02X%02X%02X%02X", red, green, blue, alpha);
-		LOGGER.debug("Created .dot color attribute string. Result: " + result);
-		return result;
+		return encodingCache.getColor(color, alpha);
+	}
+
+	/**
+	 * Given a color, returns a complete .dot color attribute for it
+	 * 
+	 * @param attrName name of the .dot attribute eg. color, fillcolor, fontcolor
+	 * @param color color being converted
+	 * @param alpha alpha level of that color-- cytoscape does not use alpha in Paint class
+	 * @return String in form attrName = "#rrggbbaa"
+	 */
+	protected String mapColorAttribute(String attrName, Color color, Integer alpha) {
+		return encodingCache.getColorAttribute(attrName, color, alpha);
 	}
 	
 	/**
@@ -275,7 +287,7 @@ public abstract class Mapper {
 				Font styleFont = vizStyle.getDefaultValue(NODE_LABEL_FONT_FACE);
 				if (!font.getFontName().equals(styleFont.getFontName()) || 
 						!font.getFamily().equals(styleFont.getFamily())) {
-					String fontName = String.format("fontname = \"%s\"", font.getFontName());
+					String fontName = encodingCache.getFontNameAttribute(font);
 					if (returnValue == null) {
 						returnValue = new StringBuilder(fontName);
 					}
@@ -294,7 +306,7 @@ public abstract class Mapper {
 			LOGGER.trace("Determining need for fontcolor attr");
 			if (!isEqualToDefault(color, NODE_LABEL_COLOR) ||
 					!isEqualToDefault(transparency, NODE_LABEL_TRANSPARENCY)) {
-				String fontColor = String.format("fontcolor = \"%s\"", mapColorToDot(color, transparency));
+				String fontColor = mapColorAttribute("fontcolor", color, transparency);
 				if (returnValue == null) {
 					returnValue = new StringBuilder(fontColor);
 				} 
@@ -311,7 +323,7 @@ public abstract class Mapper {
 				Font styleFont = vizStyle.getDefaultValue(EDGE_LABEL_FONT_FACE);
 				if (!font.getFontName().equals(styleFont.getFontName()) || 
 						!font.getFamily().equals(styleFont.getFamily())) {
-					String fontName = String.format("fontname = \"%s\"", font.getFontName());
+					String fontName = encodingCache.getFontNameAttribute(font);
 					if (returnValue == null) {
 						returnValue = new StringBuilder(fontName);
 					}
@@ -330,7 +342,7 @@ public abstract class Mapper {
 			LOGGER.trace("Determining need for fontcolor attr");
 			if (!isEqualToDefault(color, EDGE_LABEL_COLOR) ||
 					!isEqualToDefault(transparency, EDGE_LABEL_TRANSPARENCY)) {
-				String fontColor = String.format("fontcolor = \"%s\"", mapColorToDot(color, transparency));
+				String fontColor = mapColorAttribute("fontcolor", color, transparency);
 				if (returnValue == null) {
 					returnValue = new StringBuilder(fontColor);
 				} 
@@ -357,12 +369,10 @@ public abstract class Mapper {
 	 * 
 	 * @param x x coordinate of position
 	 * @param y y coordinate of position
-	 * @return String in form %x,%y
+	 * @return String in form %x,%y, followed by ! if positions are pinned
 	 */
 	protected String mapPosition(Double x, Double y) {
-		/*x /= PPI;
-		y /= PPI;*/
-		return String.format("%s,%s", decimalFormatter.format(x), decimalFormatter.format(-1*y));
+		return encodingCache.formatPosition(x, y);
 	}	
 
 	/**
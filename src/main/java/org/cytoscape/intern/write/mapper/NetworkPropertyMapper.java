@@ -101,7 +101,18 @@ public class NetworkPropertyMapper extends Mapper {
 	 * 
 	 */
 	public NetworkPropertyMapper(CyNetworkView netView, boolean directed, String splinesVal, String labelLoc, String nodeLabelLoc, VisualStyle vizStyle) {
-		super(netView, vizStyle);
+		this(netView, directed, splinesVal, labelLoc, nodeLabelLoc, vizStyle, new EncodingCache());
+	}
+
+	/**
+	 * Constructs NetworkPropertyMapper that shares encodings with the other
+	 * mappers of the export
+	 * 
+	 * @param encodingCache EncodingCache shared by all mappers of the export
+	 */
+	public NetworkPropertyMapper(CyNetworkView netView, boolean directed, String splinesVal, String labelLoc, String nodeLabelLoc, VisualStyle vizStyle,
+			EncodingCache encodingCache) {
+		super(netView, vizStyle, encodingCache);
 		simpleVisPropsToDot = new ArrayList<String>();
 		this.directed = directed;
 		this.splinesVal = splinesVal;
@@ -394,6 +405,12 @@ public class NetworkPropertyMapper extends Mapper {
 		
 		// pad so (ideally) no labels are cut off
 		simpleVisPropsToDot.add("pad = \"2\"");
+		
+		// pinned positions are in points and must not be moved by GraphViz
+		if (encodingCache.isPinPositions()) {
+			simpleVisPropsToDot.add("inputscale = \"72\"");
+			simpleVisPropsToDot.add("notranslate = \"true\"");
+		}
 	}
 	
 	@Override
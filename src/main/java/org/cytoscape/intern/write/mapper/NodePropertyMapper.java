@@ -49,7 +49,17 @@ public class NodePropertyMapper extends Mapper {
 	 * @param view View of Node we are converting to .dot
 	 */
 	public NodePropertyMapper(View<CyNode> view, VisualStyle vizStyle, String labelLoc) {
-		super(view, vizStyle);
+		this(view, vizStyle, labelLoc, new EncodingCache());
+	}
+
+	/**
+	 * Initializes and populates instance variables with mappings
+	 * 
+	 * @param view View of Node we are converting to .dot
+	 * @param encodingCache EncodingCache shared by all mappers of the export
+	 */
+	public NodePropertyMapper(View<CyNode> view, VisualStyle vizStyle, String labelLoc, EncodingCache encodingCache) {
+		super(view, vizStyle, encodingCache);
 		// initialize data structure
 		simpleVisPropsToDot = new ArrayList<String>();
 		this.labelLoc = labelLoc;
@@ -70,7 +80,7 @@ public class NodePropertyMapper extends Mapper {
 		if (!isEqualToDefault(NODE_BORDER_PAINT) || !isEqualToDefault(NODE_BORDER_TRANSPARENCY)) {
 			Color borderColor = (Color) view.getVisualProperty(NODE_BORDER_PAINT);
 			Integer borderTransparency = ((Number)view.getVisualProperty(NODE_BORDER_TRANSPARENCY)).intValue();
-			String dotBorderColor = String.format("color = \"%s\"", mapColorToDot(borderColor, borderTransparency));
+			String dotBorderColor = mapColorAttribute("color", borderColor, borderTransparency);
 			elementString = new StringBuilder(dotBorderColor);
 		}
 		
@@ -78,7 +88,7 @@ public class NodePropertyMapper extends Mapper {
 		if (!isEqualToDefault(NODE_FILL_COLOR) || !isEqualToDefault(NODE_TRANSPARENCY)) {
 			Color fillColor = (Color) view.getVisualProperty(NODE_FILL_COLOR);
 			Integer transparency = ((Number)view.getVisualProperty(NODE_TRANSPARENCY)).intValue();
-			String dotFillColor = String.format("fillcolor = \"%s\"", mapColorToDot(fillColor, transparency));
+			String dotFillColor = mapColorAttribute("fillcolor", fillColor, transparency);
 			if (elementString != null) {
 				elementString.append("," + dotFillColor);
 			}
@@ -121,15 +131,7 @@ public class NodePropertyMapper extends Mapper {
 			return null;
 		}
 		NodeShape shape = view.getVisualProperty(NODE_SHAPE);
-		String shapeStr = NODE_SHAPE_MAP.get(shape);
-		
-		// default if there is no match
-		if (shapeStr == null) {
-			shapeStr = "rectangle"; 
-			LOGGER.warn("Cytoscape property doesn't map to a .dot attribute. Setting to default");
-		}
-		
-		String dotShape = String.format("shape = \"%s\"", shapeStr);
+		String dotShape = encodingCache.getShapeAttribute(shape);
 		LOGGER.debug("Appended shape attribute to .dot string. Result: " + dotShape);
 		
 		return dotShape;
@@ -213,21 +215,13 @@ public class NodePropertyMapper extends Mapper {
 			LOGGER.info("Not default style attr, building node's own...");
 			LineType lineType = view.getVisualProperty(NODE_BORDER_LINE_TYPE);
 			NodeShape nodeShape = view.getVisualProperty(NODE_SHAPE);
-			String lineStr = "";
 			dotStyle = new StringBuilder();
 
 			// get .dot equivalent of line style, see if we need rounded
-			lineStr = LINE_TYPE_MAP.get(lineType);
-			if (lineStr == null) {
-				lineStr = "solid";
-				LOGGER.warn("Cytoscape property doesn't map to a .dot attribute. Setting to default");
-			}
 			boolean rounded = nodeShape.equals(ROUND_RECTANGLE);
 			boolean isVisible = view.getVisualProperty(NODE_VISIBLE);
-			String roundedString = (rounded) ? "rounded," : "";
-			String invisString = (!isVisible) ? "invis," : "";
-           	String style = String.format("style = \"%s,%s%sfilled\"", lineStr, roundedString, invisString);
-           	dotStyle.append(style);
+			String style = encodingCache.getNodeStyle(lineType, rounded, isVisible);
+			dotStyle.append(style);
 		}
 		if (dotStyle == null) {
 			return null;
@@ -260,7 +254,7 @@ public class NodePropertyMapper extends Mapper {
 		// Write nodeShape
 		String shapeString = mapShape();
 		if (shapeString != null) {
-			elementString.append(mapShape() + ",");
+			elementString.append(shapeString + ",");
 		}
 		
 
@@ -0,0 +1,201 @@
+package org.cytoscape.intern.write.mapper;
+
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_VISIBLE;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the per-node state that edge declarations depend on, taken once
+ * per export. Nodes are given a dense index in network order, and their
+ * visibility and .dot IDs are stored in arrays under that index so that edges
+ * do not have to go back through the view model for each endpoint.
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class NodeStateIndex {
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(NodeStateIndex.class);
+
+	// table from node SUID to dense index
+	private SUIDTable suidIndices;
+
+	// nodes in dense index order
+	private CyNode[] nodes;
+
+	// bit i is set when node i is visible
+	private BitSet visible;
+
+	// .dot ID of node i
+	private String[] nodeIDs;
+
+	// prefix of compact node IDs, followed by the dense index in base 36. No
+	// .dot keyword starts with it, so no index can spell one, eg. "node"
+	public static final String COMPACT_ID_PREFIX = "n_";
+
+	/**
+	 * Builds the index for a network. If a view is given, node visibility is
+	 * read from it, otherwise all nodes are considered visible
+	 *
+	 * @param network CyNetwork being exported
+	 * @param networkView CyNetworkView being exported, may be null
+	 */
+	public NodeStateIndex(CyNetwork network, CyNetworkView networkView) {
+		this(network, networkView, false);
+	}
+
+	/**
+	 * Builds the index for a network. If a view is given, node visibility is
+	 * read from it, otherwise all nodes are considered visible
+	 *
+	 * @param network CyNetwork being exported
+	 * @param networkView CyNetworkView being exported, may be null
+	 * @param compactIDs true if nodes get compact IDs instead of "name§SUID" IDs
+	 */
+	public NodeStateIndex(CyNetwork network, CyNetworkView networkView, boolean compactIDs) {
+		LOGGER.debug("Building node state index...");
+		List<CyNode> nodeList = network.getNodeList();
+		int nodeCount = nodeList.size();
+
+		suidIndices = new SUIDTable(nodeCount);
+
+		nodes = new CyNode[nodeCount];
+		nodeIDs = new String[nodeCount];
+		visible = new BitSet(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			CyNode node = nodeList.get(i);
+			nodes[i] = node;
+			suidIndices.put(node.getSUID(), i);
+			nodeIDs[i] = (compactIDs) ? buildCompactNodeID(i) : buildNodeID(network, node);
+		}
+
+		if (networkView == null) {
+			visible.set(0, nodeCount);
+		}
+		else {
+			for (View<CyNode> nodeView : networkView.getNodeViews()) {
+				int index = indexOf(nodeView.getModel());
+				if (index != SUIDTable.NO_INDEX && nodeView.getVisualProperty(NODE_VISIBLE)) {
+					visible.set(index);
+				}
+			}
+		}
+		LOGGER.debug("Node state index built for " + nodeCount + " nodes");
+	}
+
+	/**
+	 * Returns the .dot ID of a node, in form "name§SUID" made .dot-compliant
+	 *
+	 * @param network CyNetwork containing node
+	 * @param node CyNode whose ID is being built
+	 * @return .dot ID of node
+	 */
+	public static String buildNodeID(CyNetwork network, CyNode node) {
+		Long nodeSUID = node.getSUID();
+		String nodeID = network.getRow(node).get(CyNetwork.NAME, String.class);
+		nodeID = String.format("\"%s§%s\"", nodeID, nodeSUID);
+		return Mapper.modifyElementID(nodeID);
+	}
+
+	/**
+	 * Returns the compact .dot ID of a node, in form "n_" followed by its dense
+	 * index in base 36. These IDs need no quoting and are unique within one
+	 * export, names have to be carried separately
+	 *
+	 * @param index dense index of node
+	 * @return compact .dot ID of node
+	 */
+	public static String buildCompactNodeID(int index) {
+		return COMPACT_ID_PREFIX + Integer.toString(index, 36);
+	}
+
+	/**
+	 * Returns the dense index of a node SUID
+	 *
+	 * @param suid SUID of node
+	 * @return index of node, or -1 if node is not in the network
+	 */
+	public int indexOf(long suid) {
+		return suidIndices.get(suid);
+	}
+
+	/**
+	 * Returns the dense index of a node
+	 *
+	 * @param node CyNode being looked up
+	 * @return index of node, or -1 if node is not in the network
+	 */
+	public int indexOf(CyNode node) {
+		return indexOf(node.getSUID());
+	}
+
+	/**
+	 * Returns the number of nodes in the index
+	 *
+	 * @return number of nodes
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * Returns the node at a dense index
+	 *
+	 * @param index dense index of node
+	 * @return CyNode at that index
+	 */
+	public CyNode getNode(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * Returns whether node at a dense index is visible
+	 *
+	 * @param index dense index of node
+	 * @return true if node is visible
+	 */
+	public boolean isVisible(int index) {
+		return visible.get(index);
+	}
+
+	/**
+	 * Returns whether a node is visible
+	 *
+	 * @param node CyNode being checked
+	 * @return true if node is in the network and visible
+	 */
+	public boolean isVisible(CyNode node) {
+		int index = indexOf(node);
+		return index != SUIDTable.NO_INDEX && visible.get(index);
+	}
+
+	/**
+	 * Returns the .dot ID of node at a dense index
+	 *
+	 * @param index dense index of node
+	 * @return .dot ID of node
+	 */
+	public String getNodeID(int index) {
+		return nodeIDs[index];
+	}
+
+	/**
+	 * Returns the .dot ID of a node
+	 *
+	 * @param node CyNode being looked up
+	 * @return .dot ID of node
+	 */
+	public String getNodeID(CyNode node) {
+		return nodeIDs[indexOf(node)];
+	}
+}
@@ -0,0 +1,71 @@
+package org.cytoscape.intern.write.mapper;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressed table from element SUIDs to dense int indices. Neither keys
+ * nor values are boxed, so lookups cost a few array reads
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class SUIDTable {
+
+	// value returned for SUIDs that are not in the table, also marks empty slots
+	public static final int NO_INDEX = -1;
+
+	private long[] keys;
+	private int[] indices;
+
+	/**
+	 * Constructs a table that can hold expectedSize SUIDs at a load of at most one half
+	 *
+	 * @param expectedSize number of SUIDs that will be put in the table
+	 */
+	public SUIDTable(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2) * 2;
+		keys = new long[capacity];
+		indices = new int[capacity];
+		Arrays.fill(indices, NO_INDEX);
+	}
+
+	private static int slotOf(long suid, int mask) {
+		long hash = suid * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Maps a SUID to an index. Each SUID must only be put once
+	 *
+	 * @param suid SUID of element
+	 * @param index non-negative index of element
+	 */
+	public void put(long suid, int index) {
+		int mask = keys.length - 1;
+		int slot = slotOf(suid, mask);
+		while (indices[slot] != NO_INDEX) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = suid;
+		indices[slot] = index;
+	}
+
+	/**
+	 * Returns the index of a SUID
+	 *
+	 * @param suid SUID of element
+	 * @return index of element, or NO_INDEX if it was never put
+	 */
+	public int get(long suid) {
+		int mask = keys.length - 1;
+		int slot = slotOf(suid, mask);
+		while (indices[slot] != NO_INDEX) {
+			if (keys[slot] == suid) {
+				return indices[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_INDEX;
+	}
+}
@@ -0,0 +1,470 @@
+package org.cytoscape.intern.write.mapper;
+
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_COLOR;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_FONT_FACE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_FONT_SIZE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_TRANSPARENCY;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LINE_TYPE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_SOURCE_ARROW_SHAPE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_TARGET_ARROW_SHAPE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_TOOLTIP;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_TRANSPARENCY;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_VISIBLE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_BORDER_LINE_TYPE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_BORDER_PAINT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_BORDER_TRANSPARENCY;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_BORDER_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_FILL_COLOR;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_HEIGHT;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_LABEL;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_LABEL_COLOR;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_LABEL_FONT_FACE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_LABEL_FONT_SIZE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_LABEL_TRANSPARENCY;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_SHAPE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_TOOLTIP;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_TRANSPARENCY;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_VISIBLE;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_WIDTH;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X_LOCATION;
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
+
+import java.awt.Color;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copy of every node and edge VisualProperty the mappers read, taken from a
+ * network view in one pass. Values are stored in primitive columns:
+ * coordinates and sizes as doubles, colors as packed RGBA ints, and shapes,
+ * line types, fonts and strings as codes into a dictionary of distinct values.
+ *
+ * Once taken, the snapshot no longer touches the view, so an export can format
+ * and write it while the view is edited, and the file stays consistent. The
+ * snapshot hands out read-only flyweight Views so the mappers can be reused as is.
+ *
+ * @author Massoud Maher
+ * @author Braxton Fitts
+ * @author Ziran Zhang
+ */
+public class ViewSnapshot {
+
+	// node VisualProperties captured, by the kind of column they are stored in
+	private static final VisualProperty<?>[] NODE_DOUBLE_PROPS = { NODE_X_LOCATION, NODE_Y_LOCATION,
+			NODE_WIDTH, NODE_HEIGHT, NODE_BORDER_WIDTH };
+	private static final VisualProperty<?>[] NODE_INT_PROPS = { NODE_TRANSPARENCY, NODE_BORDER_TRANSPARENCY,
+			NODE_LABEL_TRANSPARENCY, NODE_LABEL_FONT_SIZE };
+	private static final VisualProperty<?>[] NODE_BOOLEAN_PROPS = { NODE_VISIBLE };
+	private static final VisualProperty<?>[] NODE_COLOR_PROPS = { NODE_FILL_COLOR, NODE_BORDER_PAINT,
+			NODE_LABEL_COLOR };
+	private static final VisualProperty<?>[] NODE_DICTIONARY_PROPS = { NODE_LABEL, NODE_TOOLTIP, NODE_SHAPE,
+			NODE_BORDER_LINE_TYPE, NODE_LABEL_FONT_FACE };
+
+	// edge VisualProperties captured, by the kind of column they are stored in
+	private static final VisualProperty<?>[] EDGE_DOUBLE_PROPS = { EDGE_WIDTH };
+	private static final VisualProperty<?>[] EDGE_INT_PROPS = { EDGE_TRANSPARENCY, EDGE_LABEL_TRANSPARENCY,
+			EDGE_LABEL_FONT_SIZE };
+	private static final VisualProperty<?>[] EDGE_BOOLEAN_PROPS = { EDGE_VISIBLE };
+	private static final VisualProperty<?>[] EDGE_COLOR_PROPS = { EDGE_STROKE_UNSELECTED_PAINT,
+			EDGE_LABEL_COLOR };
+	private static final VisualProperty<?>[] EDGE_DICTIONARY_PROPS = { EDGE_LABEL, EDGE_TOOLTIP, EDGE_LINE_TYPE,
+			EDGE_SOURCE_ARROW_SHAPE, EDGE_TARGET_ARROW_SHAPE, EDGE_LABEL_FONT_FACE };
+
+	// Logger that outputs to Cytoscape standard log file:  .../CytoscapeConfiguration/3/framework-cytoscape.log
+	private static final Logger LOGGER = LoggerFactory.getLogger(ViewSnapshot.class);
+
+	// node rows are the dense indices of nodeStates
+	private NodeStateIndex nodeStates;
+	private Map<VisualProperty<?>, Column> nodeColumns;
+
+	// edges in the order of the view, with their row in the edge columns
+	private CyEdge[] edges;
+	private SUIDTable edgeRows;
+	private Map<VisualProperty<?>, Column> edgeColumns;
+
+	/**
+	 * Takes a snapshot of the nodes and edges of a view
+	 *
+	 * @param networkView CyNetworkView being captured
+	 * @param nodeStates NodeStateIndex of the network of networkView
+	 */
+	public ViewSnapshot(CyNetworkView networkView, NodeStateIndex nodeStates) {
+		LOGGER.info("Taking snapshot of network view...");
+		this.nodeStates = nodeStates;
+
+		int nodeCount = nodeStates.size();
+		nodeColumns = createColumns(nodeCount, NODE_DOUBLE_PROPS, NODE_INT_PROPS, NODE_BOOLEAN_PROPS,
+				NODE_COLOR_PROPS, NODE_DICTIONARY_PROPS);
+		for (View<CyNode> nodeView : networkView.getNodeViews()) {
+			int row = nodeStates.indexOf(nodeView.getModel());
+			if (row != SUIDTable.NO_INDEX) {
+				capture(nodeView, row, nodeColumns);
+			}
+		}
+
+		Collection<View<CyEdge>> edgeViews = networkView.getEdgeViews();
+		int edgeCount = edgeViews.size();
+		edges = new CyEdge[edgeCount];
+		edgeRows = new SUIDTable(edgeCount);
+		edgeColumns = createColumns(edgeCount, EDGE_DOUBLE_PROPS, EDGE_INT_PROPS, EDGE_BOOLEAN_PROPS,
+				EDGE_COLOR_PROPS, EDGE_DICTIONARY_PROPS);
+		int row = 0;
+		for (View<CyEdge> edgeView : edgeViews) {
+			edges[row] = edgeView.getModel();
+			edgeRows.put(edges[row].getSUID(), row);
+			capture(edgeView, row, edgeColumns);
+			row++;
+		}
+
+		for (Column column : nodeColumns.values()) {
+			column.freeze();
+		}
+		for (Column column : edgeColumns.values()) {
+			column.freeze();
+		}
+		LOGGER.info(String.format("Snapshot taken of %d nodes and %d edges", nodeCount, edgeCount));
+	}
+
+	private static Map<VisualProperty<?>, Column> createColumns(int rowCount, VisualProperty<?>[] doubleProps,
+			VisualProperty<?>[] intProps, VisualProperty<?>[] booleanProps, VisualProperty<?>[] colorProps,
+			VisualProperty<?>[] dictionaryProps) {
+		Map<VisualProperty<?>, Column> columns = new IdentityHashMap<VisualProperty<?>, Column>();
+		for (VisualProperty<?> vizProp : doubleProps) {
+			columns.put(vizProp, new DoubleColumn(rowCount));
+		}
+		for (VisualProperty<?> vizProp : intProps) {
+			columns.put(vizProp, new IntColumn(rowCount));
+		}
+		for (VisualProperty<?> vizProp : booleanProps) {
+			columns.put(vizProp, new BooleanColumn(rowCount));
+		}
+		for (VisualProperty<?> vizProp : colorProps) {
+			columns.put(vizProp, new ColorColumn(rowCount));
+		}
+		for (VisualProperty<?> vizProp : dictionaryProps) {
+			columns.put(vizProp, new DictionaryColumn(rowCount));
+		}
+		return columns;
+	}
+
+	private static void capture(View<?> view, int row, Map<VisualProperty<?>, Column> columns) {
+		for (Map.Entry<VisualProperty<?>, Column> entry : columns.entrySet()) {
+			entry.getValue().set(row, view.getVisualProperty(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Returns the captured view of a node
+	 *
+	 * @param node CyNode being looked up
+	 * @return read-only View of node, or null if node was not captured
+	 */
+	public View<CyNode> getNodeView(CyNode node) {
+		int row = nodeStates.indexOf(node);
+		return (row == SUIDTable.NO_INDEX) ? null : new SnapshotView<CyNode>(node, row, nodeColumns);
+	}
+
+	/**
+	 * Returns the captured view of an edge
+	 *
+	 * @param edge CyEdge being looked up
+	 * @return read-only View of edge, or null if edge was not captured
+	 */
+	public View<CyEdge> getEdgeView(CyEdge edge) {
+		int row = edgeRows.get(edge.getSUID());
+		return (row == SUIDTable.NO_INDEX) ? null : new SnapshotView<CyEdge>(edge, row, edgeColumns);
+	}
+
+	/**
+	 * Returns the captured views of all nodes, in dense index order. Views are
+	 * created as the list is read
+	 *
+	 * @return List of read-only node Views
+	 */
+	public List<View<CyNode>> getNodeViews() {
+		return new AbstractList<View<CyNode>>() {
+			@Override
+			public View<CyNode> get(int row) {
+				return new SnapshotView<CyNode>(nodeStates.getNode(row), row, nodeColumns);
+			}
+
+			@Override
+			public int size() {
+				return nodeStates.size();
+			}
+		};
+	}
+
+	/**
+	 * Returns the captured views of all edges, in view order. Views are
+	 * created as the list is read
+	 *
+	 * @return List of read-only edge Views
+	 */
+	public List<View<CyEdge>> getEdgeViews() {
+		return new AbstractList<View<CyEdge>>() {
+			@Override
+			public View<CyEdge> get(int row) {
+				return new SnapshotView<CyEdge>(edges[row], row, edgeColumns);
+			}
+
+			@Override
+			public int size() {
+				return edges.length;
+			}
+		};
+	}
+
+	/**
+	 * Column of captured values. Values that do not fit the primitive storage
+	 * of a column, eg. null or a gradient Paint, are kept aside as objects
+	 */
+	private abstract static class Column {
+
+		// values that are not stored in the primitive array, by row
+		private Map<Integer, Object> others;
+
+		/**
+		 * Stores a value in primitive form
+		 *
+		 * @return false if value does not fit the primitive storage
+		 */
+		protected abstract boolean setPrimitive(int row, Object value);
+
+		protected abstract Object getPrimitive(int row);
+
+		void set(int row, Object value) {
+			if (!setPrimitive(row, value)) {
+				if (others == null) {
+					others = new HashMap<Integer, Object>();
+				}
+				others.put(row, value);
+			}
+		}
+
+		Object get(int row) {
+			if (others != null && others.containsKey(row)) {
+				return others.get(row);
+			}
+			return getPrimitive(row);
+		}
+
+		// releases anything only needed while capturing
+		void freeze() {
+		}
+	}
+
+	private static class DoubleColumn extends Column {
+		private double[] values;
+
+		DoubleColumn(int rowCount) {
+			values = new double[rowCount];
+		}
+
+		@Override
+		protected boolean setPrimitive(int row, Object value) {
+			if (!(value instanceof Double)) {
+				return false;
+			}
+			values[row] = (Double) value;
+			return true;
+		}
+
+		@Override
+		protected Object getPrimitive(int row) {
+			return values[row];
+		}
+	}
+
+	private static class IntColumn extends Column {
+		private int[] values;
+
+		IntColumn(int rowCount) {
+			values = new int[rowCount];
+		}
+
+		@Override
+		protected boolean setPrimitive(int row, Object value) {
+			if (!(value instanceof Integer)) {
+				return false;
+			}
+			values[row] = (Integer) value;
+			return true;
+		}
+
+		@Override
+		protected Object getPrimitive(int row) {
+			return values[row];
+		}
+	}
+
+	private static class BooleanColumn extends Column {
+		private BitSet values;
+
+		BooleanColumn(int rowCount) {
+			values = new BitSet(rowCount);
+		}
+
+		@Override
+		protected boolean setPrimitive(int row, Object value) {
+			if (!(value instanceof Boolean)) {
+				return false;
+			}
+			values.set(row, (Boolean) value);
+			return true;
+		}
+
+		@Override
+		protected Object getPrimitive(int row) {
+			return values.get(row);
+		}
+	}
+
+	private static class ColorColumn extends Column {
+		// colors as 0xAARRGGBB, the form Color.getRGB() returns
+		private int[] values;
+
+		ColorColumn(int rowCount) {
+			values = new int[rowCount];
+		}
+
+		@Override
+		protected boolean setPrimitive(int row, Object value) {
+			// subclasses of Color may carry more than an ARGB value
+			if (value == null || value.getClass() != Color.class) {
+				return false;
+			}
+			values[row] = ((Color) value).getRGB();
+			return true;
+		}
+
+		@Override
+		protected Object getPrimitive(int row) {
+			return new Color(values[row], true);
+		}
+	}
+
+	private static class DictionaryColumn extends Column {
+		// code of each row into dictionary
+		private int[] codes;
+		private List<Object> dictionary = new ArrayList<Object>();
+		// code of each distinct value, only needed while capturing
+		private Map<Object, Integer> codeOf = new HashMap<Object, Integer>();
+
+		DictionaryColumn(int rowCount) {
+			codes = new int[rowCount];
+		}
+
+		@Override
+		protected boolean setPrimitive(int row, Object value) {
+			Integer code = codeOf.get(value);
+			if (code == null) {
+				code = dictionary.size();
+				dictionary.add(value);
+				codeOf.put(value, code);
+			}
+			codes[row] = code;
+			return true;
+		}
+
+		@Override
+		protected Object getPrimitive(int row) {
+			return dictionary.get(codes[row]);
+		}
+
+		@Override
+		void freeze() {
+			codeOf = null;
+		}
+	}
+
+	/**
+	 * Read-only View of one row of a snapshot
+	 */
+	private static class SnapshotView<S extends CyIdentifiable> implements View<S> {
+
+		private S model;
+		private int row;
+		private Map<VisualProperty<?>, Column> columns;
+
+		SnapshotView(S model, int row, Map<VisualProperty<?>, Column> columns) {
+			this.model = model;
+			this.row = row;
+			this.columns = columns;
+		}
+
+		@Override
+		public S getModel() {
+			return model;
+		}
+
+		@Override
+		public Long getSUID() {
+			return model.getSUID();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> T getVisualProperty(VisualProperty<T> vizProp) {
+			Column column = columns.get(vizProp);
+			if (column == null) {
+				throw new IllegalArgumentException("VisualProperty " + vizProp.getIdString()
+						+ " is not part of the snapshot");
+			}
+			return (T) column.get(row);
+		}
+
+		@Override
+		public boolean isSet(VisualProperty<?> vizProp) {
+			return columns.containsKey(vizProp);
+		}
+
+		@Override
+		public boolean isValueLocked(VisualProperty<?> vizProp) {
+			return false;
+		}
+
+		@Override
+		public boolean isDirectlyLocked(VisualProperty<?> vizProp) {
+			return false;
+		}
+
+		@Override
+		public <T, V extends T> void setVisualProperty(VisualProperty<? extends T> vizProp, V value) {
+			throw new UnsupportedOperationException("Snapshot views are read-only");
+		}
+
+		@Override
+		public <T, V extends T> void setLockedValue(VisualProperty<? extends T> vizProp, V value) {
+			throw new UnsupportedOperationException("Snapshot views are read-only");
+		}
+
+		@Override
+		public void clearValueLock(VisualProperty<?> vizProp) {
+			throw new UnsupportedOperationException("Snapshot views are read-only");
+		}
+
+		@Override
+		public void clearVisualProperties() {
+			throw new UnsupportedOperationException("Snapshot views are read-only");
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.cytoscape.intern.write.mapper.EdgePropertyMapper;
+import org.cytoscape.intern.write.mapper.EncodingCache;
 import org.cytoscape.intern.write.mapper.Mapper;
 import org.cytoscape.intern.write.mapper.NetworkPropertyMapper;
 import org.cytoscape.intern.write.mapper.NodePropertyMapper;
@@ -21,6 +22,7 @@ import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.property.ArrowShapeVisualProperty;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.presentation.property.LineTypeVisualProperty;
+import org.cytoscape.view.presentation.property.NodeShapeVisualProperty;
 import org.cytoscape.view.presentation.property.NullVisualProperty;
 import org.cytoscape.view.vizmap.VisualPropertyDependency;
 //import org.junit.Ignore;
@@ -88,6 +90,27 @@ public class MapperTest {
 		
 	}
 	
+	@Test
+	public void testEncodingCache() {
+		EncodingCache encodingCache = new EncodingCache();
+		assertEquals("Color encoding is wrong", "#95DDEEFF", encodingCache.getColor(new Color(0x95, 0xDD, 0xEE), 255));
+		assertEquals("Color encoding is wrong", "#00000000", encodingCache.getColor(Color.BLACK, 0));
+		assertEquals("Color attribute is wrong", "fillcolor = \"#95DDEEFF\"",
+				encodingCache.getColorAttribute("fillcolor", new Color(0x95, 0xDD, 0xEE), 255));
+		// repeated colors must come back from the cache unchanged
+		for (int i = 0; i < 1000; i++) {
+			Color color = new Color(i % 256, (i * 7) % 256, (i * 13) % 256);
+			String expected = String.format("#%02X%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue(), i % 256);
+			assertEquals("Color encoding is wrong", expected, encodingCache.getColor(color, i % 256));
+			assertEquals("Color encoding is wrong", expected, encodingCache.getColor(color, i % 256));
+		}
+		assertEquals("Shape encoding is wrong", "shape = \"ellipse\"", encodingCache.getShapeAttribute(NodeShapeVisualProperty.ELLIPSE));
+		assertEquals("Arrow encoding is wrong", "arrowhead = \"vee\"", encodingCache.getArrowHeadAttribute(ArrowShapeVisualProperty.ARROW));
+		assertEquals("Style encoding is wrong", "style = \"dashed,rounded,invis,filled\"",
+				encodingCache.getNodeStyle(LineTypeVisualProperty.EQUAL_DASH, true, false));
+		assertEquals("Style encoding is wrong", "style = \"solid\"", encodingCache.getEdgeStyle(LineTypeVisualProperty.SOLID, true));
+	}
+	
 	//@Ignore
 	@Test
 	public void testNetworkGetElementString() {
@@ -0,0 +1,127 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.cytoscape.intern.NodeNameHeader;
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.junit.Test;
+
+public class DotFormatSnifferTest {
+
+	private static InputStream stream(String text) throws UnsupportedEncodingException {
+		return new ByteArrayInputStream(text.getBytes("UTF-8"));
+	}
+
+	private static boolean looksLikeDot(String text) throws IOException {
+		return DotFormatSniffer.looksLikeDot(stream(text));
+	}
+
+	@Test
+	public void testPlainHeaders() throws IOException {
+		assertTrue("graph", looksLikeDot("graph G { a; }"));
+		assertTrue("digraph", looksLikeDot("digraph{a->b}"));
+		assertTrue("strict", looksLikeDot("strict digraph G {\n}"));
+		assertTrue("upper case", looksLikeDot("DiGraph G {}"));
+	}
+
+	@Test
+	public void testByteOrderMark() throws IOException {
+		assertTrue("byte order mark", looksLikeDot("\uFEFFdigraph G {}"));
+		assertTrue("byte order mark and comment", looksLikeDot("\uFEFF// generated\ngraph {}"));
+	}
+
+	@Test
+	public void testLeadingComments() throws IOException {
+		assertTrue("line comment", looksLikeDot("// a -> b\ndigraph G {}"));
+		assertTrue("block comment", looksLikeDot("/* graph\n * notes */ graph G {}"));
+		assertTrue("# line", looksLikeDot("# 1 \"input.gv\"\n\t digraph G {}"));
+		assertTrue("comment between strict and graph", looksLikeDot("strict /* x */ graph {}"));
+		assertFalse("# not at a line start", looksLikeDot("x # comment\ngraph {}"));
+		assertFalse("unterminated comment", looksLikeDot("/* graph G {}"));
+	}
+
+	@Test
+	public void testOtherFormats() throws IOException {
+		assertFalse("word starting with graph", looksLikeDot("graphml {}"));
+		assertFalse("xml", looksLikeDot("<?xml version=\"1.0\"?>\n<graphml/>"));
+		assertFalse("empty", looksLikeDot(""));
+		assertFalse("keyword only", looksLikeDot("digraph"));
+	}
+
+	@Test
+	public void testPlainOutput() throws IOException {
+		String plain = "graph 1 2.5 3.25\nnode a 1 1 0.75 0.5 a solid ellipse black lightgrey\nstop\n";
+		assertFalse("plain output taken for .dot", looksLikeDot(plain));
+		assertTrue("plain output", DotFormatSniffer.looksLikePlain(stream(plain)));
+		assertFalse("dot taken for plain", DotFormatSniffer.looksLikePlain(stream("graph G {\n}\n")));
+	}
+
+	/*
+	 * A header after SNIFF_LIMIT bytes of comments is not seen
+	 */
+	@Test
+	public void testLimit() throws IOException {
+		StringBuilder text = new StringBuilder();
+		while (text.length() < DotFormatSniffer.SNIFF_LIMIT) {
+			text.append("// padding\n");
+		}
+		assertFalse("header after the limit", looksLikeDot(text + "digraph G {}"));
+	}
+
+	/*
+	 * The node name header of a compact ID export may not end within
+	 * SNIFF_LIMIT bytes
+	 */
+	@Test
+	public void testLongNameHeader() throws IOException {
+		StringBuilder header = new StringBuilder(NodeNameHeader.MARKER).append('\n');
+		for (int i = 0; header.length() < 2 * DotFormatSniffer.SNIFF_LIMIT; i++) {
+			header.append(NodeNameHeader.formatLine(NodeStateIndex.buildCompactNodeID(i), "node " + i));
+		}
+		assertTrue("long name header", looksLikeDot(header + "digraph G {}"));
+		assertTrue("short name header", looksLikeDot(NodeNameHeader.MARKER + "\n"
+				+ NodeNameHeader.formatLine("n_0", "a") + "digraph G {}"));
+		assertFalse("name header only", looksLikeDot(NodeNameHeader.MARKER + "\n"
+				+ NodeNameHeader.formatLine("n_0", "a")));
+		assertFalse("name header and other format", looksLikeDot(NodeNameHeader.MARKER + "\n"
+				+ NodeNameHeader.formatLine("n_0", "a") + "<graphml/>"));
+	}
+
+	@Test
+	public void testStreamIsReset() throws IOException {
+		InputStream in = stream("digraph G {}");
+		assertTrue("digraph", DotFormatSniffer.looksLikeDot(in));
+		assertEquals("first byte after sniffing", 'd', in.read());
+	}
+
+	@Test
+	public void testStreamWithoutMark() throws IOException {
+		InputStream in = new FilterInputStream(stream("digraph G {}")) {
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+		};
+		assertFalse("stream without mark was read", DotFormatSniffer.looksLikeDot(in));
+		assertEquals("first byte", 'd', in.read());
+		assertTrue("buffered", DotFormatSniffer.looksLikeDot(new BufferedInputStream(stream("graph {}"))));
+	}
+
+	@Test
+	public void testGetExtension() {
+		assertEquals("gv", DotFormatSniffer.getExtension("/tmp/graph.gv"));
+		assertEquals("dot", DotFormatSniffer.getExtension("C:\\graphs\\a.b.dot"));
+		assertEquals("", DotFormatSniffer.getExtension("/tmp/dir.d/graph"));
+		assertEquals("", DotFormatSniffer.getExtension("/tmp/.hidden"));
+		assertEquals("", DotFormatSniffer.getExtension("graph."));
+	}
+}
@@ -0,0 +1,126 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DotPreviewTaskTest {
+
+	private static final int FIRST_EDGE_COUNT = 30;
+	private static final int SECOND_EDGE_COUNT = 20;
+
+	/*
+	 * Two graphs, each node has a node statement and each edge statement a
+	 * weight giving its position in the file
+	 */
+	private static String buildInput() {
+		StringBuilder text = new StringBuilder();
+		int edge = 0;
+		for (int g = 0; g < 2; g++) {
+			int edgeCount = (g == 0) ? FIRST_EDGE_COUNT : SECOND_EDGE_COUNT;
+			text.append("digraph G").append(g).append(" {\n");
+			text.append("\tnode [shape=box];\n");
+			for (int i = 0; i <= edgeCount; i++) {
+				text.append("\t\"n{").append(g).append('_').append(i).append("\" [color=red];\n");
+			}
+			for (int i = 0; i < edgeCount; i++) {
+				text.append("\t\"n{").append(g).append('_').append(i).append("\" -> \"n{")
+						.append(g).append('_').append(i + 1).append("\" [weight=").append(edge++).append("];\n");
+			}
+			text.append("}\n");
+		}
+		return text.toString();
+	}
+
+	private static DotPreviewTask.Statistics scan(String mode, int sampleSize) throws IOException {
+		DotPreviewTask task = new DotPreviewTask(null, null, null);
+		DotPreviewTask.Statistics statistics = task.new Statistics(mode, sampleSize);
+		DotScanner.scan(new StringReader(buildInput()), statistics);
+		if (mode.equals(DotPreviewTask.EDGE_SAMPLE)) {
+			DotScanner.scan(new StringReader(buildInput()), task.new NodeCollector(statistics));
+		}
+		return statistics;
+	}
+
+	/*
+	 * Returns the weights of the edge statements of a preview, in order
+	 */
+	private static List<Integer> edgeWeights(String preview) {
+		List<Integer> weights = new ArrayList<Integer>();
+		for (String line : preview.split("\n")) {
+			int start = line.indexOf("weight = ");
+			if (line.contains("->") && start >= 0) {
+				int end = line.indexOf(' ', start + 9);
+				weights.add(Integer.parseInt(line.substring(start + 9, end)));
+			}
+		}
+		return weights;
+	}
+
+	private static int countLines(String preview, String part) {
+		int count = 0;
+		for (String line : preview.split("\n")) {
+			if (line.contains(part)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testReservoirSize() throws IOException {
+		for (int sampleSize : new int[] {1, 10, 49}) {
+			String preview = scan(DotPreviewTask.EDGE_SAMPLE, sampleSize).previewText();
+			List<Integer> weights = edgeWeights(preview);
+			assertEquals("edges in a sample of " + sampleSize, sampleSize, weights.size());
+			for (int i = 1; i < weights.size(); i++) {
+				assertTrue("sampled edges are not in file order: " + weights, weights.get(i - 1) < weights.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testReservoirLargerThanFile() throws IOException {
+		String preview = scan(DotPreviewTask.EDGE_SAMPLE, 1000).previewText();
+		List<Integer> weights = edgeWeights(preview);
+		assertEquals("edges", FIRST_EDGE_COUNT + SECOND_EDGE_COUNT, weights.size());
+		for (int i = 0; i < weights.size(); i++) {
+			assertEquals("edge in file order", i, (int) weights.get(i));
+		}
+		assertEquals("graphs", 2, countLines(preview, "digraph"));
+	}
+
+	/*
+	 * The second pass adds the node statements of the ends of sampled edges
+	 */
+	@Test
+	public void testSampleKeepsNodesOfEnds() throws IOException {
+		String preview = scan(DotPreviewTask.EDGE_SAMPLE, 1).previewText();
+		assertEquals("edges", 1, edgeWeights(preview).size());
+		assertEquals("node statements of the ends", 2, countLines(preview, "color = red"));
+		assertEquals("defaults", 1, countLines(preview, "shape = box"));
+		assertEquals("graphs", 1, countLines(preview, "digraph"));
+	}
+
+	@Test
+	public void testFirstElements() throws IOException {
+		String preview = scan(DotPreviewTask.FIRST_ELEMENTS, 5).previewText();
+		assertEquals("node statements", 5, countLines(preview, "color = red"));
+		assertEquals("edges", 0, edgeWeights(preview).size());
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		String report = scan(DotPreviewTask.STATISTICS_ONLY, 10).report("test.gv");
+		int nodeCount = FIRST_EDGE_COUNT + SECOND_EDGE_COUNT + 2;
+		assertTrue("graphs: " + report, report.contains("Graphs: 2 (2 directed, 0 undirected)"));
+		assertTrue("nodes: " + report, report.contains("Nodes: " + nodeCount + " (" + nodeCount + " node statements)"));
+		assertTrue("edges: " + report, report.contains("Edges: " + (FIRST_EDGE_COUNT + SECOND_EDGE_COUNT)));
+	}
+}
@@ -0,0 +1,127 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DotScannerTest {
+
+	/*
+	 * Listener keeping everything the scanner reports
+	 */
+	private static class Recorder implements DotScanner.Listener {
+
+		private List<String> headers = new ArrayList<String>();
+		private List<Boolean> directed = new ArrayList<Boolean>();
+		private List<DotScanner.Statement> statements = new ArrayList<DotScanner.Statement>();
+		private int endedCount = 0;
+
+		@Override
+		public void graphStarted(String header, boolean directed) {
+			headers.add(header);
+			this.directed.add(directed);
+		}
+
+		@Override
+		public void statement(DotScanner.Statement statement) {
+			statements.add(statement);
+		}
+
+		@Override
+		public void graphEnded() {
+			endedCount++;
+		}
+	}
+
+	private static Recorder scan(String text) throws IOException {
+		Recorder recorder = new Recorder();
+		DotScanner.scan(new StringReader(text), recorder);
+		return recorder;
+	}
+
+	@Test
+	public void testStatementKinds() throws IOException {
+		Recorder recorder = scan("digraph G {\n"
+				+ "\tnode [shape=box];\n"
+				+ "\trankdir=LR;\n"
+				+ "\ta [label=\"A\", pos=\"1,2!\"];\n"
+				+ "\ta -> b [weight=2];\n"
+				+ "\tsubgraph cluster_x { c; d -> e; }\n"
+				+ "}\n");
+		assertEquals("graphs", 1, recorder.headers.size());
+		assertEquals("graphs ended", 1, recorder.endedCount);
+		assertTrue("digraph", recorder.directed.get(0));
+		assertEquals("header", "digraph G {", recorder.headers.get(0));
+
+		List<DotScanner.Statement> statements = recorder.statements;
+		assertEquals("statements", 5, statements.size());
+		assertEquals("defaults", DotScanner.DEFAULTS_STATEMENT, statements.get(0).getKind());
+		assertEquals("graph attribute", DotScanner.GRAPH_ATTRIBUTE_STATEMENT, statements.get(1).getKind());
+		assertEquals("graph attribute name", Arrays.asList("rankdir"), statements.get(1).getAttributeNames());
+		assertEquals("node", DotScanner.NODE_STATEMENT, statements.get(2).getKind());
+		assertEquals("node attributes", Arrays.asList("label", "pos"), statements.get(2).getAttributeNames());
+		assertEquals("node IDs", Arrays.asList("a"), statements.get(2).getNodeIDs());
+		assertEquals("edge", DotScanner.EDGE_STATEMENT, statements.get(3).getKind());
+		assertEquals("edge IDs", Arrays.asList("a", "b"), statements.get(3).getNodeIDs());
+		assertEquals("edge count", 1, statements.get(3).getEdgeCount());
+		assertEquals("edge text", "a -> b [ weight = 2 ];", statements.get(3).getText());
+		assertEquals("subgraph", DotScanner.SUBGRAPH_STATEMENT, statements.get(4).getKind());
+		assertEquals("subgraph IDs", Arrays.asList("c", "d", "e"), statements.get(4).getNodeIDs());
+		assertEquals("subgraph edge count", 1, statements.get(4).getEdgeCount());
+	}
+
+	/*
+	 * Braces in quoted and HTML strings, comments and '#' lines are not
+	 * structure
+	 */
+	@Test
+	public void testBracesInStringsAndComments() throws IOException {
+		Recorder recorder = scan("# 1 \"file { .gv\"\n"
+				+ "/* { */ graph \"name { with brace\" {\n"
+				+ "\t\"a{b\" -- \"c}d\";\n"
+				+ "\t// }\n"
+				+ "\te [label=<<b>{</b>>, tooltip=\"\\\"}\\\"\"];\n"
+				+ "}\n"
+				+ "graph second {\n\tf;\n}\n");
+		assertEquals("graphs", 2, recorder.headers.size());
+		assertEquals("graphs ended", 2, recorder.endedCount);
+		assertFalse("graph", recorder.directed.get(0));
+		assertEquals("header", "graph \"name { with brace\" {", recorder.headers.get(0));
+
+		List<DotScanner.Statement> statements = recorder.statements;
+		assertEquals("statements", 3, statements.size());
+		assertEquals("quoted IDs", Arrays.asList("a{b", "c}d"), statements.get(0).getNodeIDs());
+		assertEquals("edge count", 1, statements.get(0).getEdgeCount());
+		assertEquals("node after strings", Arrays.asList("e"), statements.get(1).getNodeIDs());
+		assertEquals("attributes after strings", Arrays.asList("label", "tooltip"), statements.get(1).getAttributeNames());
+		assertEquals("second graph", Arrays.asList("f"), statements.get(2).getNodeIDs());
+	}
+
+	@Test
+	public void testEdgeCountOfGroups() throws IOException {
+		Recorder recorder = scan("digraph {\n\ta -> {b c} -> d -> {e f g};\n}\n");
+		DotScanner.Statement statement = recorder.statements.get(0);
+		assertEquals("node IDs", Arrays.asList("a", "b", "c", "d", "e", "f", "g"), statement.getNodeIDs());
+		// a to b and c, b and c to d, d to e, f and g
+		assertEquals("edge count", 7, statement.getEdgeCount());
+	}
+
+	@Test
+	public void testUnseparatedStatements() throws IOException {
+		Recorder recorder = scan("graph {\n\ta b -- c d [color=red] e:n\n}\n");
+		List<DotScanner.Statement> statements = recorder.statements;
+		assertEquals("statements", 4, statements.size());
+		assertEquals("first", Arrays.asList("a"), statements.get(0).getNodeIDs());
+		assertEquals("edge", Arrays.asList("b", "c"), statements.get(1).getNodeIDs());
+		assertEquals("node with attributes", Arrays.asList("d"), statements.get(2).getNodeIDs());
+		assertEquals("node with port", Arrays.asList("e"), statements.get(3).getNodeIDs());
+	}
+}
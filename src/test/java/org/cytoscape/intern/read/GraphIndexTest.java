@@ -0,0 +1,160 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphIndexTest {
+
+	private static final String TEXT = "/* graph in { a comment */\n"
+			+ "# 1 \"preprocessed.gv\"\n"
+			+ "graph first {\n\ta -- b [label=\"} not a brace\"];\n}\n"
+			+ "strict digraph \"second { one\" {\n"
+			+ "\tsubgraph cluster_x { c -> d; }\n"
+			+ "\t// } line comment\n"
+			+ "\te [label=\"escaped \\\" quote }\"];\n"
+			+ "}\n"
+			+ "digraph {\n\tf;\n}\n";
+
+	// directory of the indexed file, deleted after each test
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("graphindex").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	private static GraphIndex scan(String text) {
+		byte[] data = text.getBytes();
+		return GraphIndex.scan(data, data.length, null);
+	}
+
+	private File writeFile(String text) throws IOException {
+		File file = new File(directory, "graphs.gv");
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static void assertEntry(String text, GraphIndex.Entry entry, String name, String start) {
+		assertEquals("name", name, entry.getName());
+		int offset = text.indexOf(start);
+		assertEquals("offset of " + name, offset, entry.getOffset());
+		String graph = text.substring(offset, (int) (entry.getOffset() + entry.getLength()));
+		assertTrue("graph " + name + " does not end with its brace: " + graph, graph.endsWith("}"));
+	}
+
+	@Test
+	public void testScan() {
+		List<GraphIndex.Entry> entries = scan(TEXT).getEntries();
+		assertEquals("number of graphs", 3, entries.size());
+		assertEntry(TEXT, entries.get(0), "first", "graph first");
+		assertEntry(TEXT, entries.get(1), "second { one", "strict digraph");
+		assertEntry(TEXT, entries.get(2), "", "digraph {");
+		assertEquals("end of the second graph", TEXT.indexOf("}\ndigraph {") + 1,
+				entries.get(1).getOffset() + entries.get(1).getLength());
+	}
+
+	@Test
+	public void testSelect() {
+		List<GraphIndex.Entry> selected = scan(TEXT).select(Arrays.asList("second { one", "first", "missing"));
+		assertEquals("number of selected graphs", 2, selected.size());
+		assertEquals("file order", "first", selected.get(0).getName());
+		assertEquals("file order", "second { one", selected.get(1).getName());
+	}
+
+	@Test
+	public void testSidecarRoundTrip() throws IOException {
+		File file = writeFile(TEXT);
+		byte[] data = Files.readAllBytes(file.toPath());
+		GraphIndex index = GraphIndex.scan(data, data.length, file);
+		index.writeSidecar(file);
+		assertTrue("sidecar was not written", new File(file.getPath() + ".idx").isFile());
+
+		GraphIndex read = GraphIndex.readSidecar(file);
+		assertNotNull("sidecar was not read", read);
+		assertEquals("number of graphs", index.getEntries().size(), read.getEntries().size());
+		for (int i = 0; i < index.getEntries().size(); i++) {
+			GraphIndex.Entry expected = index.getEntries().get(i);
+			GraphIndex.Entry actual = read.getEntries().get(i);
+			assertEquals("name", expected.getName(), actual.getName());
+			assertEquals("offset", expected.getOffset(), actual.getOffset());
+			assertEquals("length", expected.getLength(), actual.getLength());
+		}
+	}
+
+	@Test
+	public void testSidecarStaleByLength() throws IOException {
+		File file = writeFile(TEXT);
+		long modified = file.lastModified();
+		byte[] data = Files.readAllBytes(file.toPath());
+		GraphIndex.scan(data, data.length, file).writeSidecar(file);
+
+		writeFile(TEXT + "graph added {\n\tg;\n}\n");
+		assertTrue("could not reset modification time", file.setLastModified(modified));
+		assertNull("sidecar of a longer file was read", GraphIndex.readSidecar(file));
+	}
+
+	@Test
+	public void testSidecarStaleByModificationTime() throws IOException {
+		File file = writeFile(TEXT);
+		byte[] data = Files.readAllBytes(file.toPath());
+		GraphIndex.scan(data, data.length, file).writeSidecar(file);
+
+		// same length, different contents
+		writeFile(TEXT.replace("first", "FIRST"));
+		assertTrue("could not change modification time", file.setLastModified(file.lastModified() + 2000));
+		assertNull("sidecar of a modified file was read", GraphIndex.readSidecar(file));
+	}
+
+	@Test
+	public void testMissingOrForeignSidecar() throws IOException {
+		File file = writeFile(TEXT);
+		assertNull("missing sidecar was read", GraphIndex.readSidecar(file));
+
+		OutputStream out = new FileOutputStream(new File(file.getPath() + ".idx"));
+		try {
+			out.write("not an index\n".getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		assertNull("foreign sidecar was read", GraphIndex.readSidecar(file));
+	}
+
+	@Test
+	public void testToFile() throws IOException {
+		File file = writeFile(TEXT);
+		assertEquals("path", file, GraphIndex.toFile(file.getPath()));
+		assertEquals("file URI", file.getAbsoluteFile(), GraphIndex.toFile(file.toURI().toString()));
+		assertNull("missing file", GraphIndex.toFile(new File(directory, "missing.gv").getPath()));
+		assertNull("no name", GraphIndex.toFile(null));
+	}
+}
@@ -0,0 +1,148 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.Parser;
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Node;
+
+public class InterningParserTest {
+
+	private static ArrayList<Graph> parseWithParser(String text) throws ParseException {
+		Parser parser = new Parser();
+		parser.parse(new StringReader(text));
+		return parser.getGraphs();
+	}
+
+	private static ArrayList<Graph> parseInterning(String text) throws ParseException {
+		// trimmed like Parser.parse() trims
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		new InterningParser(new StringReader(text.trim())).parseGraphs(graphs);
+		return graphs;
+	}
+
+	/*
+	 * Checks that both parsers read the same graphs with the same nodes in
+	 * each graph and subgraph
+	 */
+	private static void assertSameAsParser(String text) throws ParseException {
+		ArrayList<Graph> expected = parseWithParser(text);
+		ArrayList<Graph> actual = parseInterning(text);
+		assertEquals("Wrong number of graphs", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals("Graph " + i + " differs from Parser", expected.get(i).toString(), actual.get(i).toString());
+			assertEquals("Nodes of graph " + i + " differ from Parser",
+					nodeIds(expected.get(i).getNodes(true)), nodeIds(actual.get(i).getNodes(true)));
+			assertEquals("Subgraphs of graph " + i + " differ from Parser",
+					expected.get(i).getSubgraphs().size(), actual.get(i).getSubgraphs().size());
+			for (int j = 0; j < expected.get(i).getSubgraphs().size(); j++) {
+				assertEquals("Nodes of subgraph " + j + " differ from Parser",
+						nodeIds(expected.get(i).getSubgraphs().get(j).getNodes(false)),
+						nodeIds(actual.get(i).getSubgraphs().get(j).getNodes(false)));
+			}
+		}
+	}
+
+	private static String nodeIds(ArrayList<Node> nodes) {
+		StringBuilder ids = new StringBuilder();
+		for (Node node : nodes) {
+			ids.append('[').append(node.getId().getId()).append('|').append(node.getId().getLabel()).append(']');
+		}
+		return ids.toString();
+	}
+
+	@Test
+	public void testIdAndLabelAreDifferentNodes() throws ParseException {
+		// a is stored as an ID and "a" as a label, Id.isEqual() tells them apart
+		String text = "digraph G {\n\ta [color=red];\n\t\"a\" [color=blue];\n\ta -> \"a\";\n\t\"a\" -> a;\n}\n";
+		assertSameAsParser(text);
+		Graph graph = parseInterning(text).get(0);
+		assertEquals("ID and label were merged", 2, graph.getNodes(false).size());
+		assertEquals("Edge does not join ID and label node", graph.getNodes(false).get(1), graph.getEdges().get(0).getTarget().getNode());
+		assertEquals("Edge does not join label and ID node", graph.getNodes(false).get(0), graph.getEdges().get(1).getTarget().getNode());
+	}
+
+	@Test
+	public void testNodeRedeclaredInSubgraph() throws ParseException {
+		String text = "digraph G {\n\ta [color=red];\n"
+				+ "\tsubgraph cluster_s {\n\t\ta [shape=box];\n\t\t\"b\";\n\t\tc;\n\t}\n"
+				+ "\ta -> \"b\";\n\tc -> a;\n}\n";
+		assertSameAsParser(text);
+		Graph graph = parseInterning(text).get(0);
+		Node a = graph.getNodes(false).get(0);
+		assertEquals("Redeclared node lost attribute", "red", a.getAttribute("color"));
+		assertEquals("Redeclared node did not get attribute", "box", a.getAttribute("shape"));
+		assertSame("Edge does not use the first declaration", a, graph.getEdges().get(0).getSource().getNode());
+	}
+
+	@Test
+	public void testNodeOfEarlierGraph() throws ParseException {
+		// Parser finds nodes of graphs parsed before, they are not added again
+		String text = "digraph A {\n\ta;\n\tb;\n\ta -> b;\n}\ndigraph B {\n\tb -> c;\n\t\"a\";\n}\n";
+		assertSameAsParser(text);
+	}
+
+	/*
+	 * Returns the instance of key that edge stores its attribute under
+	 */
+	private static String attributeKey(Edge edge, String key) {
+		for (String stored : edge.getAttributes().keySet()) {
+			if (stored.equals(key)) {
+				return stored;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testEdgeAttributes() throws ParseException {
+		String text = "digraph G {\n\ta [color=red];\n\ta -> b [color=red, style=dashed, label=same];\n"
+				+ "\tb -> c [style=dashed, label=same];\n"
+				+ "\tsubgraph cluster_s {\n\t\tc -> a [color=red];\n\t}\n}\n";
+		assertSameAsParser(text);
+		Graph graph = parseInterning(text).get(0);
+		Node a = graph.getNodes(false).get(0);
+		Edge ab = graph.getEdges().get(0);
+		Edge bc = graph.getEdges().get(1);
+		Edge ca = graph.getSubgraphs().get(0).getEdges().get(0);
+
+		assertEquals("Value is wrong", "red", ab.getAttribute("color"));
+		assertSame("Edge value was not interned", a.getAttribute("color"), ab.getAttribute("color"));
+		assertSame("Subgraph edge value was not interned", ab.getAttribute("color"), ca.getAttribute("color"));
+		assertSame("Edge value was not interned", ab.getAttribute("style"), bc.getAttribute("style"));
+		assertSame("Edge key was not interned", attributeKey(ab, "style"), attributeKey(bc, "style"));
+		assertSame("Edge key was not interned", attributeKey(ab, "color"), attributeKey(ca, "color"));
+		assertEquals("Label is wrong", "same", bc.getAttribute("label"));
+		assertNotSame("Edge label was interned", ab.getAttribute("label"), bc.getAttribute("label"));
+	}
+
+	@Test
+	public void testInternCap() throws ParseException {
+		StringBuilder text = new StringBuilder("digraph G {\n\tu [color=early];\n\tv [color=early];\n");
+		// distinct values fill the table, later values are only looked up
+		for (int i = 0; i < 70000; i++) {
+			text.append("\tfill [color=c").append(i).append("];\n");
+		}
+		text.append("\tw [color=late];\n\tx [color=late];\n\ty [color=c5];\n\tz [color=c5];\n");
+		text.append("\tp [label=same];\n\tq [label=same];\n\tlast;\n}\n");
+		ArrayList<Node> nodes = parseInterning(text.toString()).get(0).getNodes(false);
+		// nodes in order: u, v, fill, w, x, y, z, p, q, last
+
+		assertEquals("Value is wrong", "early", nodes.get(0).getAttribute("color"));
+		assertSame("Value was not interned", nodes.get(0).getAttribute("color"), nodes.get(1).getAttribute("color"));
+		assertSame("Value in the table was not looked up", nodes.get(5).getAttribute("color"), nodes.get(6).getAttribute("color"));
+		assertEquals("Value after the cap is wrong", "late", nodes.get(3).getAttribute("color"));
+		assertEquals("Value after the cap is wrong", "late", nodes.get(4).getAttribute("color"));
+		assertNotSame("Value was interned after the cap", nodes.get(3).getAttribute("color"), nodes.get(4).getAttribute("color"));
+		assertNotSame("Label was interned", nodes.get(7).getAttribute("label"), nodes.get(8).getAttribute("label"));
+	}
+}
@@ -0,0 +1,156 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.intern.NodeNameHeader;
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Test;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.Parser;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Node;
+
+public class NodeNameSchemeTest {
+
+	private static CyNetwork buildNetwork(String... names) {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		CyNetwork network = nts.getNetwork();
+		CyNode previous = null;
+		for (String name : names) {
+			CyNode node = network.addNode();
+			network.getRow(node).set(CyNetwork.NAME, name);
+			if (previous != null) {
+				network.addEdge(previous, node, true);
+			}
+			previous = node;
+		}
+		return network;
+	}
+
+	/*
+	 * Writes the nodes and edges of network with the IDs of nodeStates, and a
+	 * name header if the IDs are compact, the way DotWriterTask does
+	 */
+	private static String write(CyNetwork network, NodeStateIndex nodeStates, boolean compactIDs) {
+		StringBuilder text = new StringBuilder();
+		if (compactIDs) {
+			text.append(NodeNameHeader.MARKER).append('\n');
+			for (int i = 0; i < nodeStates.size(); i++) {
+				String name = network.getRow(nodeStates.getNode(i)).get(CyNetwork.NAME, String.class);
+				text.append(NodeNameHeader.formatLine(nodeStates.getNodeID(i), name));
+			}
+		}
+		text.append("digraph G {\n");
+		for (int i = 0; i < nodeStates.size(); i++) {
+			text.append('\t').append(nodeStates.getNodeID(i)).append(";\n");
+		}
+		for (int i = 1; i < nodeStates.size(); i++) {
+			text.append('\t').append(nodeStates.getNodeID(i - 1)).append(" -> ")
+					.append(nodeStates.getNodeID(i)).append(";\n");
+		}
+		text.append("}\n");
+		return text.toString();
+	}
+
+	/*
+	 * Reads the name header and the graph of text, and returns the names the
+	 * reader gives its nodes, in file order
+	 */
+	private static List<String> readNames(String text) throws IOException, ParseException {
+		BufferedReader input = new BufferedReader(new StringReader(text));
+		Map<String, String> nodeNames = NodeNameHeader.read(input);
+		Parser parser = new Parser();
+		parser.parse(input);
+		Graph graph = parser.getGraphs().get(0);
+		List<String> names = new ArrayList<String>();
+		for (Node node : graph.getNodes(false)) {
+			names.add(DotReaderTask.getNodeName(node, nodeNames));
+		}
+		return names;
+	}
+
+	private static List<String> namesInIndexOrder(CyNetwork network, NodeStateIndex nodeStates) {
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < nodeStates.size(); i++) {
+			names.add(network.getRow(nodeStates.getNode(i)).get(CyNetwork.NAME, String.class));
+		}
+		return names;
+	}
+
+	@Test
+	public void testNameAndSUIDScheme() throws IOException, ParseException {
+		CyNetwork network = buildNetwork("alpha", "two words", "dash-name", "1.5", "ümlaut");
+		NodeStateIndex nodeStates = new NodeStateIndex(network, null, false);
+		String text = write(network, nodeStates, false);
+		assertEquals("Names read back", namesInIndexOrder(network, nodeStates), readNames(text));
+	}
+
+	@Test
+	public void testCompactScheme() throws IOException, ParseException {
+		CyNetwork network = buildNetwork("alpha", "two words", "back\\slash", "line\nbreak",
+				"quote \" inside", "§ section", "trailing space ");
+		NodeStateIndex nodeStates = new NodeStateIndex(network, null, true);
+		String text = write(network, nodeStates, true);
+		assertEquals("Names read back", namesInIndexOrder(network, nodeStates), readNames(text));
+	}
+
+	/*
+	 * Both schemes give the same names for names the name§SUID scheme can carry
+	 */
+	@Test
+	public void testSchemesAgree() throws IOException, ParseException {
+		CyNetwork network = buildNetwork("alpha", "two words", "dash-name");
+		List<String> fromNameAndSUID = readNames(write(network, new NodeStateIndex(network, null, false), false));
+		List<String> fromCompact = readNames(write(network, new NodeStateIndex(network, null, true), true));
+		assertEquals("Schemes give different names", fromNameAndSUID, fromCompact);
+	}
+
+	@Test
+	public void testCompactIDs() {
+		assertEquals("First ID", "n_0", NodeStateIndex.buildCompactNodeID(0));
+		assertEquals("Base 36", "n_z", NodeStateIndex.buildCompactNodeID(35));
+		assertEquals("Base 36", "n_10", NodeStateIndex.buildCompactNodeID(36));
+	}
+
+	/*
+	 * Index 31586 is "ode" in base 36, the ID must not spell the node keyword
+	 */
+	@Test
+	public void testCompactIDIsNoKeyword() throws IOException, ParseException {
+		int index = Integer.parseInt("ode", 36);
+		String nodeID = NodeStateIndex.buildCompactNodeID(index);
+		String text = NodeNameHeader.MARKER + "\n" + NodeNameHeader.formatLine(nodeID, "keyword node")
+				+ "digraph G {\n\t" + nodeID + ";\n\t" + nodeID + " -> other;\n}\n";
+		assertEquals("Names read back", Arrays.asList("keyword node", "other"), readNames(text));
+	}
+
+	@Test
+	public void testHeaderLeavesGraph() throws IOException {
+		BufferedReader input = new BufferedReader(new StringReader(NodeNameHeader.MARKER + "\n"
+				+ NodeNameHeader.formatLine("n_0", "a") + NodeNameHeader.formatLine("n_1", null)
+				+ "digraph G {}\n"));
+		Map<String, String> names = NodeNameHeader.read(input);
+		assertNotNull("Header was not read", names);
+		assertEquals("Name of n_0", "a", names.get("n_0"));
+		assertNull("Node without name", names.get("n_1"));
+		assertEquals("Lines after the header", "digraph G {}", input.readLine());
+
+		input = new BufferedReader(new StringReader("digraph G {}\n"));
+		assertNull("Header read from a file without one", NodeNameHeader.read(input));
+		assertEquals("Input was consumed", "digraph G {}", input.readLine());
+	}
+}
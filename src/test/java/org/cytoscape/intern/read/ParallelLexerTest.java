@@ -0,0 +1,166 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.Parser;
+import com.alexmerz.graphviz.TokenMgrError;
+import com.alexmerz.graphviz.objects.Graph;
+
+public class ParallelLexerTest {
+
+	// small chunks, so that the test input is cut many times
+	private static final int CHUNK_SIZE = 4096;
+
+	private static final int THREAD_COUNT = 4;
+
+	/*
+	 * Builds graphs with strings continued over several lines, block and line comments, and a
+	 * string and a comment longer than a chunk, so that the line breaks where
+	 * a chunk would end are inside them
+	 */
+	private static String buildInput(int graphCount) {
+		Random random = new Random(42);
+		StringBuilder text = new StringBuilder("/* file comment */\n");
+		for (int g = 0; g < graphCount; g++) {
+			// the lexer stays directed after a digraph, as in Parser
+			boolean directed = g > 0;
+			String edgeOp = (directed) ? " -> " : " -- ";
+			text.append((directed) ? "digraph" : "graph").append(" G").append(g).append(" {\n");
+			text.append("\tnode [shape=box, color=\"red\"];\n");
+			for (int i = 0; i < 200; i++) {
+				int target = random.nextInt(200);
+				switch (random.nextInt(5)) {
+				case 0:
+					text.append("\tn").append(i).append(" [label=\"line one\\\nline \\\"two\\\" // not a comment\"];\n");
+					break;
+				case 1:
+					text.append("\t/* comment with \"quote\" and -> arrow\n\t   on two lines */ n").append(i).append(";\n");
+					break;
+				case 2:
+					text.append("\tn").append(i).append(edgeOp).append('n').append(target).append("; // edge /* not a block\n");
+					break;
+				case 3:
+					text.append("\tsubgraph cluster_").append(i).append(" { \"n ").append(i).append('"').append(edgeOp).append('n').append(target).append("; };\n");
+					break;
+				default:
+					text.append("\tn").append(i).append(edgeOp).append('n').append(target).append(" [weight=").append(random.nextInt(10)).append("];\n");
+					break;
+				}
+			}
+			if (g == 1) {
+				text.append("\tlong [label=\"");
+				for (int i = 0; i < 2 * CHUNK_SIZE / 16; i++) {
+					text.append("string line ").append(i % 10).append("\\\n");
+				}
+				text.append("\"];\n\t/*");
+				for (int i = 0; i < 2 * CHUNK_SIZE / 16; i++) {
+					text.append(" comment line\n");
+				}
+				text.append("*/\n");
+			}
+			text.append("\tlast;\n}\n");
+		}
+		return text.toString();
+	}
+
+	private static ArrayList<Graph> parseWithParser(String text) throws ParseException {
+		Parser parser = new Parser();
+		parser.parse(new StringReader(text));
+		return parser.getGraphs();
+	}
+
+	private static void assertSameGraphs(ArrayList<Graph> expected, ArrayList<Graph> actual) {
+		assertEquals("Wrong number of graphs", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals("Graph " + i + " differs from Parser", expected.get(i).toString(), actual.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testChunkedParseMatchesParser() throws ParseException {
+		String text = buildInput(12);
+		assertTrue("Input is not cut into chunks", ParallelLexer.split(text, 0, text.length(), CHUNK_SIZE).size() >= 4);
+		assertSameGraphs(parseWithParser(text), ParallelLexer.parse(text, CHUNK_SIZE, THREAD_COUNT));
+	}
+
+	/*
+	 * Tokenizes each chunk of text on its own, which only works if every chunk
+	 * starts in code
+	 */
+	private static int tokenizeChunks(String text) {
+		int chunkCount = 0;
+		for (ParallelLexer.Chunk chunk : ParallelLexer.split(text, 0, text.length(), CHUNK_SIZE)) {
+			chunk.call();
+			chunkCount++;
+		}
+		return chunkCount;
+	}
+
+	@Test
+	public void testChunksStartOutsideStringsAndComments() throws ParseException {
+		tokenizeChunks(buildInput(3));
+
+		// the line breaks where chunks would end are inside a string and a comment
+		String lines = new String(new char[3 * CHUNK_SIZE]);
+		// one escaped quote, a string ending at it would end before the line breaks
+		String longString = "digraph G {\n\ta [label=\"say \\\"hi " + lines.replace("\0", "\\\n") + "\"];\n\tlast;\n}\n";
+		assertEquals("Chunk was cut inside a string", 2, tokenizeChunks(longString));
+		assertSameGraphs(parseWithParser(longString), ParallelLexer.parse(longString, CHUNK_SIZE, THREAD_COUNT));
+		String longComment = "digraph G {\n\t/*" + lines.replace('\0', '\n') + "*/ a -> b;\n\tlast;\n}\n";
+		assertEquals("Chunk was cut inside a comment", 2, tokenizeChunks(longComment));
+		assertSameGraphs(parseWithParser(longComment), ParallelLexer.parse(longComment, CHUNK_SIZE, THREAD_COUNT));
+	}
+
+	@Test
+	public void testDigraphStateCarriesIntoChunks() throws ParseException {
+		// "->" only lexes after a digraph keyword, which is in the first chunk
+		StringBuilder text = new StringBuilder("digraph G {\n");
+		for (int i = 0; i < 2000; i++) {
+			text.append("\ta").append(i).append(" -> b").append(i).append(";\n");
+		}
+		text.append("}\n");
+		String input = text.toString();
+		assertTrue("Input is not cut into chunks", ParallelLexer.split(input, 0, input.length(), CHUNK_SIZE).size() >= 4);
+		ArrayList<Graph> graphs = ParallelLexer.parse(input, CHUNK_SIZE, THREAD_COUNT);
+		assertEquals("Edges were lost at chunk boundaries", 2000, graphs.get(0).getEdges().size());
+		assertSameGraphs(parseWithParser(input), graphs);
+	}
+
+	@Test
+	public void testErrorLineRefersToWholeInput() throws ParseException {
+		String text = buildInput(6);
+		int line = 1;
+		for (int i = 0; i < text.length() * 3 / 4; i++) {
+			if (text.charAt(i) == '\n') {
+				line++;
+			}
+		}
+		// a character no token starts with, on its own line late in the input
+		int lineStart = text.indexOf('\n', text.length() * 3 / 4) + 1;
+		text = text.substring(0, lineStart) + "$\n" + text.substring(lineStart);
+		try {
+			ParallelLexer.parse(text, CHUNK_SIZE, THREAD_COUNT);
+			fail("Invalid character was tokenized");
+		}
+		catch (TokenMgrError e) {
+			String expected = null;
+			try {
+				parseWithParser(text);
+			}
+			catch (TokenMgrError stockError) {
+				expected = stockError.getMessage();
+			}
+			assertTrue("Chunk is not after the first line", line > 1);
+			assertEquals("Error message differs from Parser", expected, e.getMessage());
+		}
+	}
+}
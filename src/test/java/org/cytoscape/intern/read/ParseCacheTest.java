@@ -0,0 +1,199 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+
+public class ParseCacheTest {
+
+	private static final String[] GENERIC_ATTRIBUTES = {"shape", "color", "bgcolor"};
+
+	// the undirected graph comes first, the JPGD lexer stays directed after a digraph
+	private static final String TEXT = "graph H {\n\tx -- y;\n\tlast;\n}\n"
+			+ "digraph G {\n"
+			+ "\tgraph [bgcolor=yellow];\n"
+			+ "\tnode [shape=box];\n"
+			+ "\tedge [color=red];\n"
+			+ "\ta [label=\"A \\\"quoted\\\" é\", pos=\"1,2\", width=0.5];\n"
+			+ "\t\"b c\" [color=blue];\n"
+			+ "\tsubgraph cluster_s {\n\t\td;\n\t\ta;\n\t}\n"
+			+ "\ta:e -> \"b c\":w [weight=3, style=dashed];\n"
+			+ "\td -> a;\n"
+			+ "\tlast;\n"
+			+ "}\n";
+
+	// directory of the cache, deleted after each test
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("parsecache").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	private static ArrayList<Graph> parse(String text) throws ParseException {
+		return ParallelLexer.parse(text);
+	}
+
+	private File entryFile(String key) {
+		return new File(directory, key + ".dotcache");
+	}
+
+	@Test
+	public void testRoundTrip() throws ParseException, IOException {
+		ParseCache cache = new ParseCache(directory, 1 << 20);
+		ArrayList<Graph> graphs = parse(TEXT);
+		String key = ParseCache.hash(TEXT);
+		cache.store(key, graphs, GENERIC_ATTRIBUTES);
+		assertTrue("Entry was not written", entryFile(key).isFile());
+
+		ArrayList<Graph> loaded = cache.load(key, GENERIC_ATTRIBUTES);
+		assertNotNull("Entry was not read", loaded);
+		assertEquals("Wrong number of graphs", graphs.size(), loaded.size());
+		for (int i = 0; i < graphs.size(); i++) {
+			Graph graph = graphs.get(i);
+			Graph loadedGraph = loaded.get(i);
+			assertEquals("Graph ID is wrong", graph.getId().getId(), loadedGraph.getId().getId());
+			assertEquals("Graph type is wrong", graph.getType(), loadedGraph.getType());
+			assertEquals("Nodes are wrong", graph.getNodes(true).toString(), loadedGraph.getNodes(true).toString());
+			assertEquals("Wrong number of edges", graph.getEdges().size(), loadedGraph.getEdges().size());
+			for (int j = 0; j < graph.getEdges().size(); j++) {
+				Edge edge = graph.getEdges().get(j);
+				Edge loadedEdge = loadedGraph.getEdges().get(j);
+				assertEquals("Edge is wrong", edge.toString(), loadedEdge.toString());
+				assertEquals("Source port is wrong", edge.getSource().getPort(), loadedEdge.getSource().getPort());
+				assertEquals("Target port is wrong", edge.getTarget().getPort(), loadedEdge.getTarget().getPort());
+				assertEquals("Edge attributes are wrong", edge.getAttributes(), loadedEdge.getAttributes());
+			}
+			for (String name : GENERIC_ATTRIBUTES) {
+				assertEquals("Generic node attribute is wrong", graph.getGenericNodeAttribute(name), loadedGraph.getGenericNodeAttribute(name));
+				assertEquals("Generic edge attribute is wrong", graph.getGenericEdgeAttribute(name), loadedGraph.getGenericEdgeAttribute(name));
+				assertEquals("Generic graph attribute is wrong", graph.getGenericGraphAttribute(name), loadedGraph.getGenericGraphAttribute(name));
+			}
+		}
+		// the same node in a graph and its subgraph stays one node
+		Graph loadedGraph = loaded.get(1);
+		assertEquals("Edge end is not the node of the graph", loadedGraph.getNodes(true).get(0), loadedGraph.getEdges().get(0).getSource().getNode());
+		assertEquals("Non-ASCII label is wrong", "A \\\"quoted\\\" é", loadedGraph.getNodes(true).get(0).getAttribute("label"));
+
+		// entries of the same graphs are identical
+		cache.store(ParseCache.hash(TEXT + " "), parse(TEXT), GENERIC_ATTRIBUTES);
+		assertArrayEquals("Entries of equal graphs differ", Files.readAllBytes(entryFile(key).toPath()),
+				Files.readAllBytes(entryFile(ParseCache.hash(TEXT + " ")).toPath()));
+	}
+
+	@Test
+	public void testHash() {
+		assertEquals("Hash is not stable", ParseCache.hash(TEXT), ParseCache.hash(new StringBuilder(TEXT)));
+		assertFalse("Different texts have the same hash", ParseCache.hash(TEXT).equals(ParseCache.hash(TEXT.replace('a', 'b'))));
+		assertEquals("Hash is not 128 bits", 32, ParseCache.hash("").length());
+	}
+
+	@Test
+	public void testMismatch() throws ParseException {
+		ParseCache cache = new ParseCache(directory, 1 << 20);
+		String key = ParseCache.hash(TEXT);
+		cache.store(key, parse(TEXT), GENERIC_ATTRIBUTES);
+
+		assertNull("Entry of another key was read", cache.load(ParseCache.hash("digraph G {}"), GENERIC_ATTRIBUTES));
+		assertNull("Entry for other generic attributes was read", cache.load(key, new String[] {"shape", "color"}));
+		assertNull("Entry for other generic attributes was read", cache.load(key, new String[] {"shape", "color", "fontname"}));
+		// an entry for other settings is kept, it is valid for them
+		assertTrue("Entry was deleted", entryFile(key).isFile());
+		assertNotNull("Entry was not read", cache.load(key, GENERIC_ATTRIBUTES));
+	}
+
+	@Test
+	public void testDamagedEntries() throws ParseException, IOException {
+		ParseCache cache = new ParseCache(directory, 1 << 20);
+		String key = ParseCache.hash(TEXT);
+
+		// truncated in the middle of the node table
+		cache.store(key, parse(TEXT), GENERIC_ATTRIBUTES);
+		RandomAccessFile file = new RandomAccessFile(entryFile(key), "rw");
+		file.setLength(file.length() / 2);
+		file.close();
+		assertNull("Truncated entry was read", cache.load(key, GENERIC_ATTRIBUTES));
+		assertFalse("Truncated entry was not deleted", entryFile(key).exists());
+
+		// not an entry at all
+		cache.store(key, parse(TEXT), GENERIC_ATTRIBUTES);
+		file = new RandomAccessFile(entryFile(key), "rw");
+		file.writeInt(0);
+		file.close();
+		assertNull("Entry with wrong magic was read", cache.load(key, GENERIC_ATTRIBUTES));
+		assertFalse("Entry with wrong magic was not deleted", entryFile(key).exists());
+
+		// the ports and attribute count of the last edge point past the String table
+		cache.store(key, parse(TEXT), GENERIC_ATTRIBUTES);
+		file = new RandomAccessFile(entryFile(key), "rw");
+		file.seek(file.length() - 4 * 4);
+		file.writeInt(Integer.MAX_VALUE);
+		file.writeInt(Integer.MAX_VALUE);
+		file.writeInt(Integer.MAX_VALUE);
+		file.writeInt(Integer.MAX_VALUE);
+		file.close();
+		assertNull("Corrupt entry was read", cache.load(key, GENERIC_ATTRIBUTES));
+		assertFalse("Corrupt entry was not deleted", entryFile(key).exists());
+
+		// the cache still works after damaged entries
+		cache.store(key, parse(TEXT), GENERIC_ATTRIBUTES);
+		assertNotNull("Entry was not read", cache.load(key, GENERIC_ATTRIBUTES));
+	}
+
+	@Test
+	public void testEviction() throws ParseException {
+		String[] texts = {TEXT, TEXT + "\n", TEXT + "\n\n"};
+		String[] keys = new String[texts.length];
+		for (int i = 0; i < texts.length; i++) {
+			keys[i] = ParseCache.hash(texts[i]);
+		}
+		ParseCache sizing = new ParseCache(directory, Long.MAX_VALUE);
+		sizing.store(keys[0], parse(texts[0]), GENERIC_ATTRIBUTES);
+		long entrySize = entryFile(keys[0]).length();
+		entryFile(keys[0]).delete();
+
+		// room for two entries
+		ParseCache cache = new ParseCache(directory, 2 * entrySize + entrySize / 2);
+		long now = System.currentTimeMillis();
+		cache.store(keys[0], parse(texts[0]), GENERIC_ATTRIBUTES);
+		cache.store(keys[1], parse(texts[1]), GENERIC_ATTRIBUTES);
+		assertTrue("Entry was evicted too early", entryFile(keys[0]).isFile() && entryFile(keys[1]).isFile());
+		entryFile(keys[0]).setLastModified(now - 20000);
+		entryFile(keys[1]).setLastModified(now - 10000);
+
+		// loading the older entry makes the other one least recently used
+		assertNotNull("Entry was not read", cache.load(keys[0], GENERIC_ATTRIBUTES));
+		cache.store(keys[2], parse(texts[2]), GENERIC_ATTRIBUTES);
+		assertTrue("Recently used entry was evicted", entryFile(keys[0]).isFile());
+		assertFalse("Least recently used entry was kept", entryFile(keys[1]).exists());
+		assertTrue("New entry was evicted", entryFile(keys[2]).isFile());
+	}
+}
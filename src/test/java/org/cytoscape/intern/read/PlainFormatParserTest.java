@@ -0,0 +1,101 @@
+package org.cytoscape.intern.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.alexmerz.graphviz.ParseException;
+import com.alexmerz.graphviz.objects.Edge;
+import com.alexmerz.graphviz.objects.Graph;
+import com.alexmerz.graphviz.objects.Node;
+
+public class PlainFormatParserTest {
+
+	// output of dot -Tplain for a labelled edge between a plain and a quoted node
+	private static final String PLAIN = "graph 1 1.75 2.5\n"
+			+ "node a 0.375 2.25 0.75 0.5 a solid ellipse black lightgrey\n"
+			+ "node \"b c\" 1.375 0.25 0.75 0.5 \"B C\" filled box red yellow\n"
+			+ "edge a \"b c\" 4 0.5 1.8 0.7 1.2 1 0.9 1.2 0.6 lbl 0.9 1.5 solid blue\n"
+			+ "stop\n";
+
+	// output of dot -Tplain-ext with ports, in two graph blocks
+	private static final String PLAIN_EXT = "graph 1 1 1\n"
+			+ "node a 0.5 0.5 0.75 0.5 a solid ellipse black lightgrey\n"
+			+ "node b 0.5 1.5 0.75 0.5 b solid ellipse black lightgrey\n"
+			+ "edge a:e \"b\":\"n:w\" 4 0.5 0.75 0.5 1 0.5 1 0.5 1.25 dashed black\n"
+			+ "stop\n"
+			+ "graph 1 1 1\n"
+			+ "node c 0.5 0.5 0.75 0.5 c solid ellipse black lightgrey\n"
+			+ "stop\n";
+
+	@Test
+	public void testParsePlain() throws ParseException {
+		ArrayList<Graph> graphs = PlainFormatParser.parse(PLAIN, "sample");
+		assertEquals("Wrong number of graphs", 1, graphs.size());
+		Graph graph = graphs.get(0);
+		assertEquals("Graph name is wrong", "sample", graph.getId().getId());
+
+		ArrayList<Node> nodes = graph.getNodes(false);
+		assertEquals("Wrong number of nodes", 2, nodes.size());
+		Node a = nodes.get(0);
+		assertEquals("Unquoted name is wrong", "a", a.getId().getId());
+		assertEquals("Node pos is wrong", "27.00,162.00", a.getAttribute("pos"));
+		assertEquals("Node width is wrong", "0.75", a.getAttribute("width"));
+		assertEquals("Node fillcolor is wrong", "lightgrey", a.getAttribute("fillcolor"));
+		Node b = nodes.get(1);
+		assertEquals("Quoted name is wrong", "b c", b.getId().getLabel());
+		assertEquals("Quoted label is wrong", "B C", b.getAttribute("label"));
+		assertEquals("Node shape is wrong", "box", b.getAttribute("shape"));
+		assertEquals("Node style is wrong", "filled", b.getAttribute("style"));
+
+		ArrayList<Edge> edges = graph.getEdges();
+		assertEquals("Wrong number of edges", 1, edges.size());
+		Edge edge = edges.get(0);
+		assertEquals("Edge source is wrong", a, edge.getSource().getNode());
+		assertEquals("Edge target is wrong", b, edge.getTarget().getNode());
+		assertEquals("Edge pos is wrong", "36.00,129.60 50.40,86.40 72.00,64.80 86.40,43.20", edge.getAttribute("pos"));
+		assertEquals("Edge label is wrong", "lbl", edge.getAttribute("label"));
+		assertEquals("Edge lp is wrong", "64.80,108.00", edge.getAttribute("lp"));
+		assertEquals("Edge color is wrong", "blue", edge.getAttribute("color"));
+	}
+
+	@Test
+	public void testParsePlainExt() throws ParseException {
+		ArrayList<Graph> graphs = PlainFormatParser.parse(PLAIN_EXT, "sample");
+		assertEquals("Wrong number of graphs", 2, graphs.size());
+		assertEquals("Second graph name is wrong", "sample 2", graphs.get(1).getId().getId());
+		assertEquals("Wrong number of nodes in second graph", 1, graphs.get(1).getNodes(false).size());
+
+		Edge edge = graphs.get(0).getEdges().get(0);
+		assertEquals("Source port is wrong", "e", edge.getSource().getPort());
+		assertEquals("Quoted target port is wrong", "n:w", edge.getTarget().getPort());
+		// the quoted name of the target refers to the node declared unquoted
+		assertEquals("Target node is wrong", graphs.get(0).getNodes(false).get(1), edge.getTarget().getNode());
+		assertNull("Unlabelled edge has lp", edge.getAttribute("lp"));
+		assertEquals("Edge style is wrong", "dashed", edge.getAttribute("style"));
+	}
+
+	@Test
+	public void testParseErrors() {
+		String[] invalid = {
+			"node a 1 1 1 1 a solid ellipse black lightgrey\nstop\n",
+			"graph 1 1 1\nnode a 1 1\nstop\n",
+			"graph 1 1 1\nedge a b 2 0 0 1 solid black\nstop\n",
+			"graph 1 1 1\nnode a x 1 1 1 a solid ellipse black lightgrey\nstop\n",
+			"graph 1 1 1\ncluster a\nstop\n"
+		};
+		for (String text : invalid) {
+			try {
+				PlainFormatParser.parse(text, "sample");
+				fail("Invalid plain output was parsed: " + text);
+			}
+			catch (ParseException e) {
+				// expected
+			}
+		}
+	}
+}
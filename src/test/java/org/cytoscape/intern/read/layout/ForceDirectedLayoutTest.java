@@ -0,0 +1,111 @@
+package org.cytoscape.intern.read.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForceDirectedLayoutTest {
+
+	// nodes closer than this are taken to overlap
+	private static final double MIN_SEPARATION = 1.0;
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/*
+	 * Checks that all coordinates are finite and no two nodes are at the same place
+	 */
+	private static void assertSpreadOut(GraphLayout layout, int nodeCount) {
+		for (int i = 0; i < nodeCount; i++) {
+			assertTrue("x of node " + i + " is not finite", isFinite(layout.getX(i)));
+			assertTrue("y of node " + i + " is not finite", isFinite(layout.getY(i)));
+			for (int j = 0; j < i; j++) {
+				double dx = layout.getX(i) - layout.getX(j);
+				double dy = layout.getY(i) - layout.getY(j);
+				assertTrue("nodes " + j + " and " + i + " overlap",
+						Math.sqrt(dx * dx + dy * dy) > MIN_SEPARATION);
+			}
+		}
+	}
+
+	private static boolean isFinite(double value) {
+		return !Double.isNaN(value) && !Double.isInfinite(value);
+	}
+
+	@Test
+	public void testEmptyGraph() {
+		ForceDirectedLayout layout = new ForceDirectedLayout(0, new int[0], new int[0]);
+		layout.run(pool);
+	}
+
+	@Test
+	public void testSingleNode() {
+		ForceDirectedLayout layout = new ForceDirectedLayout(1, new int[] {0}, new int[] {0});
+		layout.run(pool);
+		assertSpreadOut(layout, 1);
+	}
+
+	@Test
+	public void testConnectedGraph() {
+		int[] sources = {0, 1, 2, 3, 4, 0, 5, 6};
+		int[] targets = {1, 2, 3, 4, 0, 5, 6, 7};
+		ForceDirectedLayout layout = new ForceDirectedLayout(8, sources, targets);
+		layout.run(pool);
+		assertSpreadOut(layout, 8);
+	}
+
+	/*
+	 * Nodes at the same place fall into one quadtree cell below MIN_HALF_SIZE
+	 * and repel each other at MIN_DISTANCE, edges between them attract at
+	 * MIN_DISTANCE
+	 */
+	@Test
+	public void testCoincidingNodes() {
+		int[] sources = {0, 1, 2};
+		int[] targets = {1, 2, 3};
+		ForceDirectedLayout layout = new ForceDirectedLayout(4, sources, targets);
+		layout.run(pool, new double[] {50, 50, 50, 120}, new double[] {50, 50, 50, 80});
+		assertSpreadOut(layout, 4);
+	}
+
+	@Test
+	public void testAllNodesCoinciding() {
+		ForceDirectedLayout layout = new ForceDirectedLayout(5, new int[] {0, 3}, new int[] {1, 4});
+		layout.run(pool, new double[5], new double[5]);
+		assertSpreadOut(layout, 5);
+	}
+
+	@Test
+	public void testDeterministic() {
+		int[] sources = {0, 1, 2, 3, 4, 5};
+		int[] targets = {1, 2, 0, 4, 5, 3};
+		ForceDirectedLayout first = new ForceDirectedLayout(6, sources, targets);
+		first.run(pool);
+		// forces are computed per node, the split over threads does not matter
+		ForceDirectedLayout second = new ForceDirectedLayout(6, sources, targets);
+		ForkJoinPool singleThread = new ForkJoinPool(1);
+		try {
+			second.run(singleThread);
+		} finally {
+			singleThread.shutdown();
+		}
+		for (int i = 0; i < 6; i++) {
+			assertEquals("x of node " + i, first.getX(i), second.getX(i), 0.0);
+			assertEquals("y of node " + i, first.getY(i), second.getY(i), 0.0);
+		}
+	}
+}
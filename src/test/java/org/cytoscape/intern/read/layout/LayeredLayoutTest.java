@@ -0,0 +1,135 @@
+package org.cytoscape.intern.read.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LayeredLayoutTest {
+
+	// nodes closer than this are taken to overlap
+	private static final double MIN_SEPARATION = 1.0;
+
+	// distance between layers used by the layout
+	private static final double LAYER_SPACING = 100.0;
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/*
+	 * Checks that all coordinates are finite and no two nodes are at the same place
+	 */
+	private static void assertSpreadOut(GraphLayout layout, int nodeCount) {
+		for (int i = 0; i < nodeCount; i++) {
+			assertTrue("x of node " + i + " is not finite", isFinite(layout.getX(i)));
+			assertTrue("y of node " + i + " is not finite", isFinite(layout.getY(i)));
+			for (int j = 0; j < i; j++) {
+				double dx = layout.getX(i) - layout.getX(j);
+				double dy = layout.getY(i) - layout.getY(j);
+				assertTrue("nodes " + j + " and " + i + " overlap",
+						Math.sqrt(dx * dx + dy * dy) > MIN_SEPARATION);
+			}
+		}
+	}
+
+	private static boolean isFinite(double value) {
+		return !Double.isNaN(value) && !Double.isInfinite(value);
+	}
+
+	/*
+	 * Returns the number of layers edge goes down, negative if it points up
+	 */
+	private static int layersDown(GraphLayout layout, int source, int target) {
+		return (int) Math.round((layout.getY(source) - layout.getY(target)) / LAYER_SPACING);
+	}
+
+	@Test
+	public void testEmptyGraph() {
+		LayeredLayout layout = new LayeredLayout(0, new int[0], new int[0]);
+		layout.run(pool);
+	}
+
+	@Test
+	public void testSingleNode() {
+		LayeredLayout layout = new LayeredLayout(1, new int[] {0}, new int[] {0});
+		layout.run(pool);
+		assertSpreadOut(layout, 1);
+		assertEquals("single node y", 0.0, layout.getY(0), 0.0);
+	}
+
+	/*
+	 * Includes an edge spanning four layers, which gets dummy nodes, an
+	 * isolated node and a self loop
+	 */
+	@Test
+	public void testAcyclicEdgesPointDown() {
+		int[] sources = {0, 0, 1, 2, 3, 4, 0, 5, 6, 6};
+		int[] targets = {1, 2, 3, 3, 4, 5, 5, 7, 7, 6};
+		LayeredLayout layout = new LayeredLayout(9, sources, targets);
+		layout.run(pool);
+		assertSpreadOut(layout, 9);
+		for (int e = 0; e < sources.length; e++) {
+			if (sources[e] != targets[e]) {
+				assertTrue("edge " + sources[e] + " -> " + targets[e] + " does not point down",
+						layersDown(layout, sources[e], targets[e]) >= 1);
+			}
+		}
+		assertEquals("layers spanned by edge 0 -> 5", 4, layersDown(layout, 0, 5));
+	}
+
+	/*
+	 * Nodes without edges all start in the first layer and must be spaced out
+	 */
+	@Test
+	public void testIsolatedNodes() {
+		LayeredLayout layout = new LayeredLayout(6, new int[0], new int[0]);
+		layout.run(pool);
+		assertSpreadOut(layout, 6);
+		for (int i = 1; i < 6; i++) {
+			assertEquals("y of node " + i, layout.getY(0), layout.getY(i), 0.0);
+		}
+	}
+
+	/*
+	 * One edge of the cycle is reversed, the others point down
+	 */
+	@Test
+	public void testCycle() {
+		int[] sources = {0, 1, 2, 2};
+		int[] targets = {1, 2, 0, 3};
+		LayeredLayout layout = new LayeredLayout(4, sources, targets);
+		layout.run(pool);
+		assertSpreadOut(layout, 4);
+		int upwards = 0;
+		for (int e = 0; e < 3; e++) {
+			int layers = layersDown(layout, sources[e], targets[e]);
+			assertTrue("edge " + sources[e] + " -> " + targets[e] + " stays in its layer", layers != 0);
+			if (layers < 0) {
+				upwards++;
+			}
+		}
+		assertEquals("reversed edges of the cycle", 1, upwards);
+		assertTrue("edge 2 -> 3 does not point down", layersDown(layout, 2, 3) >= 1);
+	}
+
+	@Test
+	public void testTwoNodeCycle() {
+		LayeredLayout layout = new LayeredLayout(2, new int[] {0, 1}, new int[] {1, 0});
+		layout.run(pool);
+		assertSpreadOut(layout, 2);
+		assertEquals("layers between the nodes", 1, Math.abs(layersDown(layout, 0, 1)));
+	}
+}
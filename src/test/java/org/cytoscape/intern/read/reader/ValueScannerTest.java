@@ -0,0 +1,123 @@
+package org.cytoscape.intern.read.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.awt.Color;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ValueScannerTest {
+
+	@Test
+	public void testPlainDecimals() {
+		assertEquals("integer", 42.0, ValueScanner.parseDouble("42"), 0.0);
+		assertEquals("fraction", 0.1, ValueScanner.parseDouble("0.1"), 0.0);
+		assertEquals("no integer part", 0.5, ValueScanner.parseDouble(".5"), 0.0);
+		assertEquals("no fraction digits", 5.0, ValueScanner.parseDouble("5."), 0.0);
+		assertEquals("white space", 12.25, ValueScanner.parseDouble("  12.25\t"), 0.0);
+	}
+
+	@Test
+	public void testSigns() {
+		assertEquals("minus", -3.5, ValueScanner.parseDouble("-3.5"), 0.0);
+		assertEquals("plus", 3.5, ValueScanner.parseDouble("+3.5"), 0.0);
+		assertEquals("minus zero", Double.doubleToLongBits(-0.0),
+				Double.doubleToLongBits(ValueScanner.parseDouble("-0")));
+	}
+
+	@Test
+	public void testExponents() {
+		assertEquals("exponent", 1.5e3, ValueScanner.parseDouble("1.5e3"), 0.0);
+		assertEquals("negative exponent", -2.5e-4, ValueScanner.parseDouble("-2.5E-4"), 0.0);
+		assertEquals("signed exponent", 7e+2, ValueScanner.parseDouble("7e+2"), 0.0);
+	}
+
+	@Test
+	public void testLongMantissa() {
+		assertEquals("16 digits", 1234567890.123456, ValueScanner.parseDouble("1234567890.123456"), 0.0);
+		assertEquals("20 digits", 12345678901234567890.0, ValueScanner.parseDouble("12345678901234567890"), 0.0);
+	}
+
+	/*
+	 * The fast path must round exactly like Double.parseDouble()
+	 */
+	@Test
+	public void testMatchesDoubleParseDouble() {
+		Random random = new Random(7);
+		for (int n = 0; n < 10000; n++) {
+			String text = String.format("%s%d.%0" + (1 + random.nextInt(6)) + "d",
+					(random.nextBoolean()) ? "-" : "", random.nextInt(100000), random.nextInt(1000));
+			assertEquals(text, Double.parseDouble(text), ValueScanner.parseDouble(text), 0.0);
+		}
+	}
+
+	@Test
+	public void testRange() {
+		String text = "x=-12.5,y";
+		assertEquals("range", -12.5, ValueScanner.parseDouble(text, 2, 7), 0.0);
+	}
+
+	@Test
+	public void testMalformedNumbers() {
+		String[] malformed = {"", "  ", "-", ".", "1.2.3", "+-1", "12px", "abc"};
+		for (String text : malformed) {
+			try {
+				ValueScanner.parseDouble(text);
+				fail("\"" + text + "\" was parsed");
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+	/*
+	 * A pos of a node or spline point may end in '!', which pins it
+	 */
+	@Test
+	public void testPinnedPosition() {
+		String pos = "10.5,-20!";
+		int xEnd = ValueScanner.endOfListNumber(pos, 0);
+		int yEnd = ValueScanner.endOfListNumber(pos, xEnd + 1);
+		assertEquals("end of x", 4, xEnd);
+		assertEquals("end of y", 8, yEnd);
+		assertEquals("x", 10.5, ValueScanner.parseDouble(pos, 0, xEnd), 0.0);
+		assertEquals("y", -20.0, ValueScanner.parseDouble(pos, xEnd + 1, yEnd), 0.0);
+	}
+
+	@Test
+	public void testUnpinnedPosition() {
+		String pos = "1e2,3";
+		int xEnd = ValueScanner.endOfListNumber(pos, 0);
+		int yEnd = ValueScanner.endOfListNumber(pos, xEnd + 1);
+		assertEquals("end of y", pos.length(), yEnd);
+		assertEquals("x", 100.0, ValueScanner.parseDouble(pos, 0, xEnd), 0.0);
+		assertEquals("y", 3.0, ValueScanner.parseDouble(pos, xEnd + 1, yEnd), 0.0);
+	}
+
+	@Test
+	public void testHexColors() {
+		assertEquals("#RRGGBB", new Color(255, 0, 128), ValueScanner.parseColor("#ff0080"));
+		assertEquals("#RRGGBBAA", new Color(0x12, 0xAB, 0xcd, 0x40), ValueScanner.parseColor(" #12ABcd40 "));
+		assertNull("short", ValueScanner.parseColor("#ff008"));
+		assertNull("not hex", ValueScanner.parseColor("#ff00gg"));
+	}
+
+	@Test
+	public void testHsvColors() {
+		assertEquals("commas", Color.getHSBColor(0.5f, 1.0f, 0.25f), ValueScanner.parseColor("0.5,1,0.25"));
+		assertEquals("white space", Color.getHSBColor(0.0f, 0.5f, 1.0f), ValueScanner.parseColor("0.0 .5 1"));
+		assertEquals("both", Color.getHSBColor(0.1f, 0.2f, 0.3f), ValueScanner.parseColor(" 0.1, 0.2 ,0.3 "));
+		assertNull("component above 1", ValueScanner.parseColor("0.5 2 0.5"));
+		assertNull("two components", ValueScanner.parseColor("0.5 0.5"));
+		assertNull("trailing text", ValueScanner.parseColor("0.5 0.5 0.5 x"));
+	}
+
+	@Test
+	public void testColorNames() {
+		assertNull("name", ValueScanner.parseColor("red"));
+		assertNull("empty", ValueScanner.parseColor("  "));
+	}
+}
@@ -0,0 +1,158 @@
+package org.cytoscape.intern.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ComponentPartitionerTest {
+
+	private CyNetwork network;
+	private CyNode[] nodes;
+	private NodeStateIndex nodeStates;
+
+	/*
+	 * Components {0, 1, 2, 3}, {4, 5, 6}, {7, 8}, {9} with a self loop and the
+	 * isolated node {10}. Parts hold node indices, bits() converts to them
+	 */
+	@Before
+	public void setUp() {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		network = nts.getNetwork();
+		nodes = new CyNode[11];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = network.addNode();
+		}
+		addEdge(0, 1);
+		addEdge(2, 3);
+		addEdge(3, 1);
+		addEdge(5, 4);
+		addEdge(5, 6);
+		addEdge(6, 4);
+		addEdge(7, 8);
+		addEdge(9, 9);
+		nodeStates = new NodeStateIndex(network, null);
+	}
+
+	private void addEdge(int source, int target) {
+		network.addEdge(nodes[source], nodes[target], true);
+	}
+
+	private List<BitSet> partition(BitSet nodeSubset, int minPartSize) {
+		return ComponentPartitioner.partition(network, nodeStates, nodeSubset, minPartSize);
+	}
+
+	/*
+	 * Returns the set of node indices of the given nodes
+	 */
+	private BitSet bits(int... indices) {
+		BitSet bits = new BitSet();
+		for (int index : indices) {
+			bits.set(nodeStates.indexOf(nodes[index]));
+		}
+		return bits;
+	}
+
+	/*
+	 * Checks that every node of the subset is in exactly one part
+	 */
+	private static void assertCovers(List<BitSet> parts, BitSet nodeSubset) {
+		BitSet covered = new BitSet();
+		for (BitSet part : parts) {
+			assertFalse("Parts overlap", covered.intersects(part));
+			covered.or(part);
+		}
+		assertEquals("Parts do not cover the nodes", nodeSubset, covered);
+	}
+
+	@Test
+	public void testEachComponentItsOwnPart() {
+		List<BitSet> parts = partition(null, 1);
+		assertEquals("Number of parts", 5, parts.size());
+		assertEquals("Largest component first", bits(0, 1, 2, 3), parts.get(0));
+		assertEquals("Second component", bits(4, 5, 6), parts.get(1));
+		assertEquals("Third component", bits(7, 8), parts.get(2));
+		assertCovers(parts, bits(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+		// the self loop and the isolated node are single node components
+		assertEquals("Single node components", 1, parts.get(3).cardinality());
+		assertEquals("Single node components", 1, parts.get(4).cardinality());
+	}
+
+	/*
+	 * Components smaller than minPartSize are packed together, largest first
+	 */
+	@Test
+	public void testSmallComponentsPacked() {
+		List<BitSet> parts = partition(null, 4);
+		assertEquals("Number of parts", 3, parts.size());
+		assertEquals("Own part", bits(0, 1, 2, 3), parts.get(0));
+		// a packed part is closed once it reaches minPartSize
+		assertEquals("Packed part", bits(4, 5, 6, 7, 8), parts.get(1));
+		assertEquals("Last packed part", bits(9, 10), parts.get(2));
+	}
+
+	@Test
+	public void testOnePart() {
+		List<BitSet> parts = partition(null, 100);
+		assertEquals("Number of parts", 1, parts.size());
+		assertCovers(parts, bits(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+	}
+
+	/*
+	 * Edges leaving the subset do not join components
+	 */
+	@Test
+	public void testSubset() {
+		BitSet nodeSubset = bits(0, 2, 3, 4, 5);
+		List<BitSet> parts = partition(nodeSubset, 1);
+		assertCovers(parts, nodeSubset);
+		assertEquals("Number of parts", 3, parts.size());
+		assertEquals("Largest component first", 2, parts.get(0).cardinality());
+		assertEquals("Largest component first", 2, parts.get(1).cardinality());
+		assertEquals("Node without edges in the subset", bits(0), parts.get(2));
+		for (BitSet part : parts.subList(0, 2)) {
+			assertTrue("Component split", part.equals(bits(2, 3)) || part.equals(bits(4, 5)));
+		}
+	}
+
+	/*
+	 * A long path merged in an order that makes union by size and path
+	 * halving matter
+	 */
+	@Test
+	public void testLongPath() {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		network = nts.getNetwork();
+		nodes = new CyNode[200];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = network.addNode();
+		}
+		for (int i = nodes.length - 1; i > 0; i -= 2) {
+			addEdge(i, i - 1);
+		}
+		for (int i = 1; i + 1 < nodes.length; i += 2) {
+			addEdge(i, i + 1);
+		}
+		nodeStates = new NodeStateIndex(network, null);
+		List<BitSet> parts = partition(null, 1);
+		assertEquals("Number of parts", 1, parts.size());
+		assertEquals("Nodes of the path", nodes.length, parts.get(0).cardinality());
+	}
+
+	@Test
+	public void testEmptyNetwork() {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		network = nts.getNetwork();
+		nodeStates = new NodeStateIndex(network, null);
+		assertEquals("Number of parts", 0, partition(null, 1).size());
+	}
+}
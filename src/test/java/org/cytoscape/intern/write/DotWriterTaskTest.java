@@ -0,0 +1,178 @@
+package org.cytoscape.intern.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DotWriterTaskTest {
+
+	private static final TaskMonitor TASK_MONITOR = new TaskMonitor() {
+		@Override
+		public void setTitle(String title) {
+		}
+
+		@Override
+		public void setProgress(double progress) {
+		}
+
+		@Override
+		public void setStatusMessage(String message) {
+		}
+
+		@Override
+		public void showMessage(TaskMonitor.Level level, String message) {
+		}
+	};
+
+	private CyNetwork network;
+	private CyNode[] nodes;
+	private File directory;
+
+	@Before
+	public void setUp() {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		network = nts.getNetwork();
+		network.getRow(network).set(CyNetwork.NAME, "net");
+		String[] names = {"a", "b", "c"};
+		nodes = new CyNode[names.length];
+		for (int i = 0; i < names.length; i++) {
+			nodes[i] = network.addNode();
+			network.getRow(nodes[i]).set(CyNetwork.NAME, names[i]);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		if (directory != null) {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	private void addEdge(int source, int target) {
+		network.addEdge(nodes[source], nodes[target], true);
+	}
+
+	private String export(DotWriterTask writer, ByteArrayOutputStream output) throws UnsupportedEncodingException {
+		writer.run(TASK_MONITOR);
+		return output.toString("UTF-8");
+	}
+
+	/*
+	 * Returns the number of edges GraphViz reads from the edge statements of
+	 * text. A target repeated in a group is one edge
+	 */
+	private static int countEdges(String text) {
+		int count = 0;
+		for (String line : text.split("\n")) {
+			int groupStart = line.indexOf(" -- {");
+			if (groupStart >= 0) {
+				Set<String> targets = new HashSet<String>();
+				for (String target : line.substring(groupStart + 5, line.indexOf('}')).split(" ")) {
+					targets.add(target);
+				}
+				count += targets.size();
+			} else if (line.contains(" -- ")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testGroupedEdges() throws UnsupportedEncodingException {
+		addEdge(0, 1);
+		addEdge(0, 2);
+		addEdge(1, 2);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DotWriterTask writer = new DotWriterTask(output, network);
+		writer.groupEdges = true;
+		String text = export(writer, output);
+		assertEquals("Edges read by GraphViz:\n" + text, 3, countEdges(text));
+		assertTrue("Edges were not grouped:\n" + text, text.contains(" -- {"));
+	}
+
+	/*
+	 * Parallel edges are not merged into one by grouping
+	 */
+	@Test
+	public void testGroupedParallelEdges() throws UnsupportedEncodingException {
+		addEdge(0, 1);
+		addEdge(0, 1);
+		addEdge(0, 2);
+		addEdge(0, 1);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DotWriterTask writer = new DotWriterTask(output, network);
+		writer.groupEdges = true;
+		String text = export(writer, output);
+		assertEquals("Edges read by GraphViz:\n" + text, 4, countEdges(text));
+	}
+
+	/*
+	 * Components {a, b} and {c}, c goes to its own part file
+	 */
+	@Test
+	public void testSplitComponents() throws IOException {
+		addEdge(0, 1);
+		directory = Files.createTempDirectory("parts").toFile();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DotWriterTask writer = new DotWriterTask(output, network);
+		writer.splitComponents = true;
+		writer.minPartSize = 1;
+		writer.partFile = new File(directory, "net.gv");
+		String text = export(writer, output);
+		assertEquals("Edges of the largest part:\n" + text, 1, countEdges(text));
+		assertTrue("Largest part is not complete:\n" + text, text.trim().endsWith("}"));
+
+		File part = new File(directory, "net_1.gv");
+		assertTrue("Part file was not written", part.isFile());
+		String partText = new String(Files.readAllBytes(part.toPath()), Charset.defaultCharset());
+		assertEquals("Edges of the part:\n" + partText, 0, countEdges(partText));
+		assertTrue("Part file is not complete:\n" + partText, partText.trim().endsWith("}"));
+	}
+
+	/*
+	 * A part file that cannot be opened fails the export
+	 */
+	@Test
+	public void testPartFileNotWritable() throws IOException {
+		addEdge(0, 1);
+		directory = Files.createTempDirectory("parts").toFile();
+		// a directory in place of the part file
+		File part = new File(directory, "net_1.gv");
+		assertTrue("Directory was not created", part.mkdir());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DotWriterTask writer = new DotWriterTask(output, network);
+		writer.splitComponents = true;
+		writer.minPartSize = 1;
+		writer.partFile = new File(directory, "net.gv");
+		try {
+			writer.run(TASK_MONITOR);
+			fail("Export did not fail");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		assertTrue("Directory was replaced", part.isDirectory());
+		assertFalse("Other files were written", new File(directory, "net_2.gv").exists());
+	}
+}
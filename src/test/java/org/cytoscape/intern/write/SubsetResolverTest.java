@@ -0,0 +1,132 @@
+package org.cytoscape.intern.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+
+import org.cytoscape.intern.write.mapper.NodeStateIndex;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubsetResolverTest {
+
+	private CyNetwork network;
+	private CyNode[] nodes;
+	private NodeStateIndex nodeStates;
+
+	/*
+	 * Five nodes a to e, with a "group" and a "rank" column and a list column
+	 * of "tags"
+	 */
+	@Before
+	public void setUp() {
+		NetworkTestSupport nts = new NetworkTestSupport();
+		network = nts.getNetwork();
+		network.getDefaultNodeTable().createColumn("group", String.class, false);
+		network.getDefaultNodeTable().createColumn("rank", Integer.class, false);
+		network.getDefaultNodeTable().createListColumn("tags", String.class, false);
+		String[] names = {"a", "b", "c", "d", "e"};
+		nodes = new CyNode[names.length];
+		for (int i = 0; i < names.length; i++) {
+			nodes[i] = network.addNode();
+			network.getRow(nodes[i]).set(CyNetwork.NAME, names[i]);
+			network.getRow(nodes[i]).set("group", (i % 2 == 0) ? "even" : "odd");
+			network.getRow(nodes[i]).set("rank", i);
+			network.getRow(nodes[i]).set("tags", Arrays.asList("all", names[i]));
+		}
+		nodeStates = new NodeStateIndex(network, null);
+	}
+
+	private BitSet bits(int... indices) {
+		BitSet bits = new BitSet();
+		for (int index : indices) {
+			bits.set(nodeStates.indexOf(nodes[index]));
+		}
+		return bits;
+	}
+
+	@Test
+	public void testResolveSelected() {
+		network.getRow(nodes[1]).set(CyNetwork.SELECTED, true);
+		network.getRow(nodes[3]).set(CyNetwork.SELECTED, true);
+		assertEquals("Selected nodes", bits(1, 3), SubsetResolver.resolveSelected(network, nodeStates));
+	}
+
+	@Test
+	public void testResolveFilter() {
+		assertEquals("String column", bits(0, 2, 4),
+				SubsetResolver.resolveFilter(network, nodeStates, "group", "even"));
+		assertEquals("Integer column", bits(3),
+				SubsetResolver.resolveFilter(network, nodeStates, "rank", " 3 "));
+		assertEquals("List column", bits(2),
+				SubsetResolver.resolveFilter(network, nodeStates, "tags", "c"));
+		assertEquals("List column shared value", bits(0, 1, 2, 3, 4),
+				SubsetResolver.resolveFilter(network, nodeStates, "tags", "all"));
+		assertEquals("No match", new BitSet(),
+				SubsetResolver.resolveFilter(network, nodeStates, "group", "none"));
+	}
+
+	@Test
+	public void testResolveFilterErrors() {
+		try {
+			SubsetResolver.resolveFilter(network, nodeStates, "missing", "x");
+			fail("Missing column was accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			SubsetResolver.resolveFilter(network, nodeStates, "rank", "three");
+			fail("Value of the wrong type was accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/*
+	 * Edges with both ends in the subset are kept, self loops once
+	 */
+	@Test
+	public void testResolveInducedEdges() {
+		CyEdge ab = network.addEdge(nodes[0], nodes[1], true);
+		CyEdge bc = network.addEdge(nodes[1], nodes[2], true);
+		network.addEdge(nodes[2], nodes[3], true);
+		CyEdge loop = network.addEdge(nodes[0], nodes[0], true);
+		network.addEdge(nodes[3], nodes[0], true);
+		CyEdge ca = network.addEdge(nodes[2], nodes[0], false);
+		network.addEdge(nodes[4], nodes[4], true);
+
+		List<CyEdge> edges = SubsetResolver.resolveInducedEdges(network, nodeStates, bits(0, 1, 2));
+		assertEquals("Induced edges", 4, edges.size());
+		assertEquals("Induced edges", new HashSet<CyEdge>(Arrays.asList(ab, bc, loop, ca)),
+				new HashSet<CyEdge>(edges));
+
+		assertEquals("Single node", Arrays.asList(loop),
+				SubsetResolver.resolveInducedEdges(network, nodeStates, bits(0)));
+		assertEquals("Empty subset", 0,
+				SubsetResolver.resolveInducedEdges(network, nodeStates, new BitSet()).size());
+	}
+
+	/*
+	 * Subsets of selected nodes give the nodes plus the edges between them
+	 */
+	@Test
+	public void testSelectedNodesAndInducedEdges() {
+		CyEdge bd = network.addEdge(nodes[1], nodes[3], true);
+		network.addEdge(nodes[1], nodes[2], true);
+		network.addEdge(nodes[4], nodes[3], true);
+		network.getRow(nodes[1]).set(CyNetwork.SELECTED, true);
+		network.getRow(nodes[3]).set(CyNetwork.SELECTED, true);
+
+		BitSet selected = SubsetResolver.resolveSelected(network, nodeStates);
+		assertEquals("Selected edges", Arrays.asList(bd),
+				SubsetResolver.resolveInducedEdges(network, nodeStates, selected));
+	}
+}